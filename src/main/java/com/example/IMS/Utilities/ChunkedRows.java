@@ -0,0 +1,81 @@
+package com.example.IMS.Utilities;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Table rows read from the database a chunk at a time while they are iterated, so a page can
+ * write out its first rows before the rest have been read. Each chunk is fetched from the last
+ * row of the one before it and only the current chunk is held in memory.
+ */
+public class ChunkedRows<T> implements Iterable<T> {
+
+    private final int chunkSize;
+    // Given the last row of the previous chunk, or null for the first, returns at most chunkSize rows
+    private final Function<T, List<T>> nextChunk;
+    private List<T> firstChunk;
+
+    public ChunkedRows(int chunkSize, Function<T, List<T>> nextChunk) {
+        this.chunkSize = chunkSize;
+        this.nextChunk = nextChunk;
+    }
+
+    // Reads the first chunk, which the next iteration then starts from instead of reading it again
+    public boolean isEmpty() {
+        if (firstChunk == null) {
+            firstChunk = nextChunk.apply(null);
+        }
+        return firstChunk.isEmpty();
+    }
+
+    // Reads the first chunk on its own, without starting an iteration
+    public List<T> readFirstChunk() {
+        return nextChunk.apply(null);
+    }
+
+    // The same rows with the first chunk taken from the given supplier, such as a cache
+    public ChunkedRows<T> withFirstChunk(Supplier<List<T>> firstChunk) {
+        return new ChunkedRows<>(chunkSize, last -> last == null ? firstChunk.get() : nextChunk.apply(last));
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        List<T> first = firstChunk != null ? firstChunk : nextChunk.apply(null);
+        firstChunk = null;
+        return new ChunkIterator(first);
+    }
+
+    private final class ChunkIterator implements Iterator<T> {
+        private List<T> chunk;
+        private int index;
+
+        private ChunkIterator(List<T> chunk) {
+            this.chunk = chunk;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (index < chunk.size()) {
+                return true;
+            }
+            // A short chunk means the query ran out of rows
+            if (chunk.size() < chunkSize) {
+                return false;
+            }
+            chunk = nextChunk.apply(chunk.get(chunk.size() - 1));
+            index = 0;
+            return !chunk.isEmpty();
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return chunk.get(index++);
+        }
+    }
+}
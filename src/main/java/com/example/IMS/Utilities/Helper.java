@@ -1,51 +1,52 @@
 package com.example.IMS.Utilities;
 
-import java.text.DateFormat;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
-import java.util.Calendar;
-import java.util.Date;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
 
 public class Helper {
 
-	private static DateFormat dateFormat;
+	// How loan dates are shown, and how they were stored before they had typed columns
+	public static final DateTimeFormatter DATE_TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy/MM/dd HH:mm:ss");
+
 	public static double highPrecedenceFineRate;
 	public static double lowPrecedenceFineRate;
 
 	static {
-		dateFormat = new SimpleDateFormat("yyyy/MM/dd HH:mm:ss");
 		highPrecedenceFineRate = 100;
 		lowPrecedenceFineRate = 50;
 	}
 
-	public static Date convertStringToDate(String date) {
-		Date newDate = null;
-		try {
-			newDate = dateFormat.parse(date);
-		} catch (ParseException e) {
-			e.printStackTrace();
-		}
-		return newDate;
-
+	// Whole seconds, as that is all the displayed format holds
+	public static LocalDateTime now() {
+		return LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
 	}
 
 	public static String getCurrentTime() {
-		Calendar cal = Calendar.getInstance();
-		return dateFormat.format(cal.getTime());
+		return formatDateTime(now());
 	}
 
-	public static String getDueDate(String issueDate, long l) {
-		Calendar cal = Calendar.getInstance();
-		try {
-			cal.setTime(dateFormat.parse(issueDate));
-		} catch (ParseException e) {
-			e.printStackTrace();
-		}
-		cal.add(Calendar.DATE, (int) l);
-		return convertDateToString(cal.getTime());
+	public static String formatDateTime(LocalDateTime dateTime) {
+		return dateTime != null ? dateTime.format(DATE_TIME_FORMAT) : "";
 	}
 
-	private static String convertDateToString(Date date) {
-		return dateFormat.format(date);
+	// Null for an empty string or one in neither the displayed format nor the plain
+	// "yyyy-MM-dd" days the sample loans were once seeded with, read as the start of the day
+	public static LocalDateTime parseDateTime(String dateTime) {
+		if (dateTime == null || dateTime.isEmpty()) {
+			return null;
+		}
+		try {
+			return LocalDateTime.parse(dateTime, DATE_TIME_FORMAT);
+		} catch (DateTimeParseException e) {
+			try {
+				return LocalDate.parse(dateTime).atStartOfDay();
+			} catch (DateTimeParseException notADay) {
+				System.out.println("Unreadable date: " + dateTime);
+				return null;
+			}
+		}
 	}
 }
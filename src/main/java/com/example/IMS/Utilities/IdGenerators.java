@@ -0,0 +1,28 @@
+package com.example.IMS.Utilities;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Rows of the id_generator table behind the pooled entity ids. Databases from before an entity
+ * had pooled ids have no row for it, or one behind the ids already taken, so the row is moved
+ * past them before anything inserts that entity.
+ */
+public final class IdGenerators {
+
+    public static final String TABLE = "id_generator";
+
+    private IdGenerators() {
+    }
+
+    public static void seed(JdbcTemplate jdbcTemplate, String sequenceName, String entityTable, String idColumn,
+            int allocationSize) {
+        long next = jdbcTemplate.queryForObject(
+                "select coalesce(max(" + idColumn + "), 0) from " + entityTable, Long.class) + allocationSize;
+        int updated = jdbcTemplate.update("update " + TABLE + " set next_val = ? where sequence_name = ? and next_val < ?",
+                next, sequenceName, next);
+        if (updated == 0 && jdbcTemplate.queryForObject(
+                "select count(*) from " + TABLE + " where sequence_name = ?", Long.class, sequenceName) == 0) {
+            jdbcTemplate.update("insert into " + TABLE + " (sequence_name, next_val) values (?, ?)", sequenceName, next);
+        }
+    }
+}
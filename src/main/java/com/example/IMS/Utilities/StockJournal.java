@@ -0,0 +1,189 @@
+package com.example.IMS.Utilities;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Append-only log of stock changes, kept as numbered segment files in one directory. Each record
+ * holds a sequence number, an item id and a quantity delta. A record is durable once append
+ * returns: records appended meanwhile are written and forced to disk together, by whichever of
+ * their callers gets to the file first, so one force serves every change made while the previous
+ * one ran. A record cut short by a crash is ignored when the segment is read.
+ */
+public class StockJournal implements Closeable {
+
+    public interface RecordHandler {
+        void record(long sequence, long itemId, int delta);
+    }
+
+    public static final int RECORD_SIZE = 20;
+
+    private static final String SUFFIX = ".journal";
+
+    private final Path directory;
+    // Records appended but not yet written; swapped with the other buffer by the writer
+    private ByteBuffer pending = ByteBuffer.allocate(RECORD_SIZE * 1024);
+    private ByteBuffer writing = ByteBuffer.allocate(RECORD_SIZE * 1024);
+    // Held while records are written and forced; taken before the journal's own lock
+    private final Object writeLock = new Object();
+    private volatile long durableSequence;
+    private IOException failure;
+    private FileChannel channel;
+    private Path segment;
+    private long nextSegment;
+    private long lastSequence;
+    private boolean segmentEmpty;
+
+    // Sequence numbers continue after lastSequence; segments left in the directory are kept for rotate to return
+    public StockJournal(Path directory, long lastSequence) throws IOException {
+        this.directory = directory;
+        this.lastSequence = lastSequence;
+        durableSequence = lastSequence;
+        List<Path> existing = segments(directory);
+        nextSegment = existing.isEmpty() ? 1 : number(existing.get(existing.size() - 1)) + 1;
+        openSegment();
+    }
+
+    // Returns the record's sequence number once the record is on disk
+    public long append(long itemId, int delta) throws IOException {
+        long sequence;
+        synchronized (this) {
+            if (failure != null) {
+                throw failure;
+            }
+            if (pending.remaining() < RECORD_SIZE) {
+                ByteBuffer grown = ByteBuffer.allocate(pending.capacity() * 2);
+                pending.flip();
+                pending = grown.put(pending);
+            }
+            sequence = ++lastSequence;
+            pending.putLong(sequence).putLong(itemId).putInt(delta);
+        }
+        if (durableSequence < sequence) {
+            synchronized (writeLock) {
+                if (durableSequence < sequence) {
+                    write();
+                }
+            }
+        }
+        return sequence;
+    }
+
+    public synchronized long getLastSequence() {
+        return lastSequence;
+    }
+
+    // Starts a new segment, unless the one being written is still empty. Returns every segment no
+    // longer written to, oldest first.
+    public List<Path> rotate() throws IOException {
+        synchronized (writeLock) {
+            write();
+            synchronized (this) {
+                if (!segmentEmpty) {
+                    channel.close();
+                    openSegment();
+                }
+                List<Path> closed = segments(directory);
+                closed.remove(segment);
+                return closed;
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (writeLock) {
+            write();
+            synchronized (this) {
+                channel.close();
+                if (segmentEmpty) {
+                    Files.deleteIfExists(segment);
+                }
+            }
+        }
+    }
+
+    // Writes and forces every record appended so far. Called with the write lock held; a failure
+    // is kept and fails every later append, as records after the failed ones cannot be trusted.
+    private void write() throws IOException {
+        long last;
+        synchronized (this) {
+            if (failure != null) {
+                throw failure;
+            }
+            if (pending.position() == 0) {
+                return;
+            }
+            ByteBuffer records = pending;
+            pending = writing;
+            writing = records;
+            last = lastSequence;
+        }
+        writing.flip();
+        long start = channel.position();
+        try {
+            while (writing.hasRemaining()) {
+                channel.write(writing);
+            }
+            channel.force(false);
+        } catch (IOException e) {
+            synchronized (this) {
+                failure = e;
+            }
+            try {
+                // Their callers are told the records failed, so they must not be applied later
+                channel.truncate(start);
+            } catch (IOException ignored) {
+                // The journal is failed either way
+            }
+            throw e;
+        } finally {
+            writing.clear();
+        }
+        synchronized (this) {
+            segmentEmpty = false;
+        }
+        durableSequence = last;
+    }
+
+    // Segment files in the directory, oldest first
+    public static List<Path> segments(Path directory) throws IOException {
+        List<Path> segments = new ArrayList<>();
+        if (Files.isDirectory(directory)) {
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+                files.forEach(segments::add);
+            }
+        }
+        Collections.sort(segments);
+        return segments;
+    }
+
+    public static void read(Path segment, RecordHandler handler) throws IOException {
+        ByteBuffer records = ByteBuffer.wrap(Files.readAllBytes(segment));
+        while (records.remaining() >= RECORD_SIZE) {
+            handler.record(records.getLong(), records.getLong(), records.getInt());
+        }
+    }
+
+    private void openSegment() throws IOException {
+        Files.createDirectories(directory);
+        // Zero padded so that name order is age order
+        segment = directory.resolve(String.format("%019d%s", nextSegment++, SUFFIX));
+        channel = FileChannel.open(segment, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        segmentEmpty = true;
+    }
+
+    private static long number(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(0, name.length() - SUFFIX.length()));
+    }
+}
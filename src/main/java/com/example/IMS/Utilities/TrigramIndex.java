@@ -0,0 +1,415 @@
+package com.example.IMS.Utilities;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import com.example.IMS.dto.SearchResult;
+
+/**
+ * In-memory typeahead index over (id, name) entries. Every name is indexed by its lower-case
+ * trigrams and by the first one and two letters of each word, each key holding the ascending
+ * list of entry slots that contain it. A query of one or two letters reads the word start list;
+ * a longer one scans its rarest trigram's list for names containing the whole query and, when
+ * those run short, falls back to names sharing at least half of its trigrams, which tolerates
+ * typos. Candidates scanned per query are capped, and the scan stops early once enough names
+ * start with the query, so the cost does not grow with the index.
+ *
+ * Entries are replaced and removed in place; removed slots are skipped by searches and
+ * dropped once they make up half of the index.
+ */
+public class TrigramIndex {
+
+    // Share of the query's trigrams a name needs to count as a fuzzy match
+    private static final double FUZZY_SIMILARITY = 0.5;
+    private static final int SCAN_LIMIT = 1000;
+    private static final int COMPACT_MIN_REMOVED = 1024;
+    // Marks the word start keys, which cannot clash with a trigram of real text
+    private static final char WORD_START = '\u0001';
+
+    private static final int PREFIX = 0;
+    private static final int WORD_PREFIX = 1;
+    private static final int SUBSTRING = 2;
+    private static final int FUZZY = 3;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private long[] ids;
+    // Names as shown, with whitespace collapsed; null marks a removed slot
+    private String[] names;
+    private int slots;
+    private int removed;
+    private LongIntMap slotsById;
+    // Key to its position in postings
+    private LongIntMap postingsByKey;
+    private Postings[] postings;
+    private int keys;
+
+    public TrigramIndex() {
+        reset(16);
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return slots - removed;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Adds or renames an entry; a blank name removes it
+    public void put(long id, String name) {
+        String collapsed = collapse(name);
+        lock.writeLock().lock();
+        try {
+            int slot = slotsById.get(id);
+            if (slot >= 0) {
+                if (names[slot].equals(collapsed)) {
+                    return;
+                }
+                removeSlot(id, slot);
+            }
+            if (!collapsed.isEmpty()) {
+                add(id, collapsed);
+            }
+            compactIfSparse();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long id) {
+        lock.writeLock().lock();
+        try {
+            int slot = slotsById.get(id);
+            if (slot >= 0) {
+                removeSlot(id, slot);
+                compactIfSparse();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Best matches first: names starting with the query, then a word starting with it, then
+    // names containing it, then fuzzy matches by the number of trigrams shared
+    public List<SearchResult> search(String query, int limit) {
+        String q = collapse(query).toLowerCase(Locale.ROOT);
+        if (q.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            List<Match> matches = new ArrayList<>();
+            if (q.length() < 3) {
+                Postings list = postingsOf(q.length() == 1
+                        ? key(WORD_START, q.charAt(0), '\0') : key(WORD_START, q.charAt(0), q.charAt(1)));
+                int prefixes = 0;
+                for (int i = 0; list != null && i < list.size && i < SCAN_LIMIT && prefixes < limit; i++) {
+                    int slot = list.slots[i];
+                    if (names[slot] != null) {
+                        boolean prefix = names[slot].regionMatches(true, 0, q, 0, q.length());
+                        matches.add(new Match(slot, prefix ? PREFIX : WORD_PREFIX, 0));
+                        prefixes += prefix ? 1 : 0;
+                    }
+                }
+            } else {
+                searchTrigrams(q, limit, matches);
+            }
+            matches.sort(Comparator.comparingInt((Match m) -> m.rank)
+                    .thenComparingInt(m -> -m.shared)
+                    .thenComparingInt(m -> names[m.slot].length())
+                    .thenComparingInt(m -> m.slot));
+            List<SearchResult> results = new ArrayList<>(Math.min(limit, matches.size()));
+            for (int i = 0; i < matches.size() && i < limit; i++) {
+                int slot = matches.get(i).slot;
+                results.add(new SearchResult(ids[slot], names[slot]));
+            }
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void searchTrigrams(String q, int limit, List<Match> matches) {
+        Set<Long> keys = new LinkedHashSet<>();
+        for (int i = 0; i + 3 <= q.length(); i++) {
+            keys.add(key(q.charAt(i), q.charAt(i + 1), q.charAt(i + 2)));
+        }
+        List<Postings> lists = new ArrayList<>(keys.size());
+        boolean allPresent = true;
+        for (Long key : keys) {
+            Postings list = postingsOf(key);
+            lists.add(list != null ? list : Postings.EMPTY);
+            allPresent &= list != null;
+        }
+        lists.sort(Comparator.comparingInt(list -> list.size));
+
+        Set<Integer> seen = new HashSet<>();
+        if (allPresent) {
+            // Every name containing the query is in the rarest trigram's list
+            Postings rarest = lists.get(0);
+            int prefixes = 0;
+            for (int i = 0; i < rarest.size && i < SCAN_LIMIT && prefixes < limit; i++) {
+                int slot = rarest.slots[i];
+                String name = names[slot];
+                if (name == null) {
+                    continue;
+                }
+                int at = indexOfIgnoreCase(name, q);
+                if (at >= 0) {
+                    seen.add(slot);
+                    prefixes += at == 0 ? 1 : 0;
+                    matches.add(new Match(slot, at == 0 ? PREFIX : name.charAt(at - 1) == ' ' ? WORD_PREFIX : SUBSTRING,
+                            lists.size()));
+                }
+            }
+        }
+        if (matches.size() >= limit || lists.size() < 2) {
+            return;
+        }
+
+        // A name sharing at least `needed` trigrams is missing from at most size - needed of the
+        // lists, so it is in one of the size - needed + 1 shortest. Candidates come in slot order,
+        // so each list is searched onward from where the previous candidate left it
+        int needed = (int) Math.ceil(lists.size() * FUZZY_SIMILARITY);
+        int[] cursors = new int[lists.size()];
+        int examined = 0;
+        for (int l = 0; l <= lists.size() - needed && examined < SCAN_LIMIT; l++) {
+            Postings list = lists.get(l);
+            Arrays.fill(cursors, 0);
+            for (int i = 0; i < list.size && examined < SCAN_LIMIT; i++) {
+                int slot = list.slots[i];
+                int shared = 0;
+                boolean inShorterList = false;
+                for (int o = 0; o < lists.size(); o++) {
+                    Postings other = lists.get(o);
+                    cursors[o] = o == l ? i : other.seek(cursors[o], slot);
+                    if (cursors[o] < other.size && other.slots[cursors[o]] == slot) {
+                        shared++;
+                        inShorterList |= o < l;
+                    }
+                }
+                // A name in a shorter list was examined there already
+                if (inShorterList || names[slot] == null || seen.contains(slot)) {
+                    continue;
+                }
+                examined++;
+                if (shared >= needed) {
+                    matches.add(new Match(slot, FUZZY, shared));
+                }
+            }
+        }
+    }
+
+    private void add(long id, String name) {
+        if (slots == ids.length) {
+            ids = Arrays.copyOf(ids, slots * 2);
+            names = Arrays.copyOf(names, slots * 2);
+        }
+        int slot = slots++;
+        ids[slot] = id;
+        names[slot] = name;
+        slotsById.put(id, slot);
+
+        // Slots only grow, so appending keeps every list in ascending order
+        String lower = name.toLowerCase(Locale.ROOT);
+        for (int i = 0; i < lower.length(); i++) {
+            char c = lower.charAt(i);
+            if (c != ' ' && (i == 0 || lower.charAt(i - 1) == ' ')) {
+                postingsFor(key(WORD_START, c, '\0')).add(slot);
+                if (i + 1 < lower.length() && lower.charAt(i + 1) != ' ') {
+                    postingsFor(key(WORD_START, c, lower.charAt(i + 1))).add(slot);
+                }
+            }
+            if (i + 3 <= lower.length()) {
+                postingsFor(key(c, lower.charAt(i + 1), lower.charAt(i + 2))).add(slot);
+            }
+        }
+    }
+
+    private void removeSlot(long id, int slot) {
+        names[slot] = null;
+        slotsById.put(id, -1);
+        removed++;
+    }
+
+    // Re-adds the live entries to fresh lists once removed slots make up half of the index
+    private void compactIfSparse() {
+        if (removed < COMPACT_MIN_REMOVED || removed * 2 < slots) {
+            return;
+        }
+        long[] oldIds = ids;
+        String[] oldNames = names;
+        int oldSlots = slots;
+        reset(Math.max(16, Integer.highestOneBit(Math.max(1, oldSlots - removed)) * 2));
+        for (int i = 0; i < oldSlots; i++) {
+            if (oldNames[i] != null) {
+                add(oldIds[i], oldNames[i]);
+            }
+        }
+    }
+
+    private void reset(int capacity) {
+        ids = new long[capacity];
+        names = new String[capacity];
+        slots = 0;
+        removed = 0;
+        slotsById = new LongIntMap();
+        postingsByKey = new LongIntMap();
+        postings = new Postings[64];
+        keys = 0;
+    }
+
+    private Postings postingsOf(long key) {
+        int index = postingsByKey.get(key);
+        return index >= 0 ? postings[index] : null;
+    }
+
+    private Postings postingsFor(long key) {
+        int index = postingsByKey.get(key);
+        if (index < 0) {
+            if (keys == postings.length) {
+                postings = Arrays.copyOf(postings, keys * 2);
+            }
+            index = keys++;
+            postings[index] = new Postings();
+            postingsByKey.put(key, index);
+        }
+        return postings[index];
+    }
+
+    private static long key(char a, char b, char c) {
+        return ((long) a << 32) | ((long) b << 16) | c;
+    }
+
+    private static String collapse(String name) {
+        if (name == null) {
+            return "";
+        }
+        // Most names have nothing to collapse, and the regex would cost more than indexing them
+        boolean plain = name.isEmpty() || !Character.isWhitespace(name.charAt(0))
+                && !Character.isWhitespace(name.charAt(name.length() - 1));
+        for (int i = 1; plain && i < name.length(); i++) {
+            char c = name.charAt(i);
+            plain = c == ' ' ? name.charAt(i - 1) != ' ' : !Character.isWhitespace(c);
+        }
+        return plain ? name : name.trim().replaceAll("\\s+", " ");
+    }
+
+    private static int indexOfIgnoreCase(String name, String q) {
+        for (int i = 0; i + q.length() <= name.length(); i++) {
+            if (name.regionMatches(true, i, q, 0, q.length())) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static final class Match {
+        private final int slot;
+        private final int rank;
+        private final int shared;
+
+        private Match(int slot, int rank, int shared) {
+            this.slot = slot;
+            this.rank = rank;
+            this.shared = shared;
+        }
+    }
+
+    // Ascending slots containing one key
+    private static final class Postings {
+        private static final Postings EMPTY = new Postings();
+
+        private int[] slots = new int[4];
+        private int size;
+
+        private void add(int slot) {
+            // A key repeated within one name is added by the same slot in a row
+            if (size > 0 && slots[size - 1] == slot) {
+                return;
+            }
+            if (size == slots.length) {
+                slots = Arrays.copyOf(slots, size * 2);
+            }
+            slots[size++] = slot;
+        }
+
+        // Index of the first slot at or after `from` that is not below `slot`, galloping ahead
+        // so that a run of nearby lookups costs little more than one
+        private int seek(int from, int slot) {
+            int bound = 1;
+            while (from + bound < size && slots[from + bound] < slot) {
+                bound <<= 1;
+            }
+            int index = Arrays.binarySearch(slots, from, Math.min(from + bound, size), slot);
+            return index >= 0 ? index : -index - 1;
+        }
+    }
+
+    // Open addressing map from entry id to slot, and from key to postings, without boxing a million
+    // ids; -1 marks a removed id
+    private static final class LongIntMap {
+        private long[] keys = new long[32];
+        // Slot + 1, so that 0 is an empty bucket
+        private int[] values = new int[32];
+        private int used;
+
+        private int get(long key) {
+            int mask = keys.length - 1;
+            for (int i = hash(key) & mask; values[i] != 0; i = (i + 1) & mask) {
+                if (keys[i] == key) {
+                    return values[i] > 0 ? values[i] - 1 : -1;
+                }
+            }
+            return -1;
+        }
+
+        private void put(long key, int slot) {
+            if ((used + 1) * 2 > keys.length) {
+                grow();
+            }
+            int mask = keys.length - 1;
+            int i = hash(key) & mask;
+            while (values[i] != 0 && keys[i] != key) {
+                i = (i + 1) & mask;
+            }
+            if (values[i] == 0) {
+                used++;
+            }
+            keys[i] = key;
+            values[i] = slot >= 0 ? slot + 1 : -1;
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            int[] oldValues = values;
+            keys = new long[oldKeys.length * 2];
+            values = new int[oldValues.length * 2];
+            int mask = keys.length - 1;
+            for (int j = 0; j < oldKeys.length; j++) {
+                if (oldValues[j] != 0) {
+                    int i = hash(oldKeys[j]) & mask;
+                    while (values[i] != 0) {
+                        i = (i + 1) & mask;
+                    }
+                    keys[i] = oldKeys[j];
+                    values[i] = oldValues[j];
+                }
+            }
+        }
+
+        private static int hash(long key) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+    }
+}
@@ -2,12 +2,16 @@ package com.example.IMS.chatbot.service;
 
 import com.google.gson.Gson;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import java.util.*;
 
 @Service
 public class ChatbotDatabaseService {
 
+    // Low stock items listed in one answer; the count still covers all of them
+    private static final int LOW_STOCK_LIST_LIMIT = 50;
+
     // Use your ACTUAL repository names
     @Autowired
     private com.example.IMS.repository.IItemRepository itemRepository;  // Changed!
@@ -106,14 +110,16 @@ public class ChatbotDatabaseService {
             threshold = 10;
         }
         
-        var allItems = itemRepository.findAll();
-        var lowStockItems = allItems.stream()
-                .filter(item -> item.getQuantity() < threshold)
-                .collect(java.util.stream.Collectors.toList());
+        long lowStockCount = itemRepository.countByQuantityLessThan(threshold);
+        var lowStockItems = itemRepository.findLowStock(threshold, PageRequest.of(0, LOW_STOCK_LIST_LIMIT));
         
         StringBuilder result = new StringBuilder();
-        result.append("Found ").append(lowStockItems.size())
-              .append(" items with stock below ").append(threshold).append(":\n\n");
+        result.append("Found ").append(lowStockCount)
+              .append(" items with stock below ").append(threshold);
+        if (lowStockCount > lowStockItems.size()) {
+            result.append(", showing the ").append(lowStockItems.size()).append(" lowest");
+        }
+        result.append(":\n\n");
         
         if (lowStockItems.isEmpty()) {
             result.append("No items are currently low in stock.");
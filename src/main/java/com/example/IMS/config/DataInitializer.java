@@ -1,5 +1,6 @@
 package com.example.IMS.config;
 
+import com.example.IMS.Utilities.Helper;
 import com.example.IMS.model.*;
 import com.example.IMS.repository.*;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -167,29 +168,29 @@ public class DataInitializer implements CommandLineRunner {
                 .findFirst().orElse(null);
 
         if (laptop != null && borrower1 != null) {
-            createSampleLoan(laptop, borrower1, "2024-11-01", "", 7, 0.0);
+            createSampleLoan(laptop, borrower1, "2024/11/01 10:00:00", "", 7, 0.0);
             laptop.descreaseQuantity();
             itemRepository.save(laptop);
         }
 
         if (monitor != null && borrower2 != null) {
-            createSampleLoan(monitor, borrower2, "2024-11-05", "", 14, 0.0);
+            createSampleLoan(monitor, borrower2, "2024/11/05 10:00:00", "", 14, 0.0);
             monitor.descreaseQuantity();
             itemRepository.save(monitor);
         }
 
         if (chair != null && borrower3 != null) {
-            createSampleLoan(chair, borrower3, "2024-10-20", "2024-11-10", 21, 5.0);
+            createSampleLoan(chair, borrower3, "2024/10/20 10:00:00", "2024/11/10 10:00:00", 21, 5.0);
         }
 
         if (notebook != null && borrower4 != null) {
-            createSampleLoan(notebook, borrower4, "2024-11-08", "", 7, 0.0);
+            createSampleLoan(notebook, borrower4, "2024/11/08 10:00:00", "", 7, 0.0);
             notebook.descreaseQuantity();
             itemRepository.save(notebook);
         }
 
         if (laptop != null && borrower2 != null) {
-            createSampleLoan(laptop, borrower2, "2024-10-15", "2024-10-30", 15, 0.0);
+            createSampleLoan(laptop, borrower2, "2024/10/15 10:00:00", "2024/10/30 10:00:00", 15, 0.0);
         }
 
         System.out.println("✅ Sample loans created");
@@ -214,8 +215,8 @@ public class DataInitializer implements CommandLineRunner {
         Loan loan = new Loan();
         loan.setItem(item);
         loan.setBorrower(borrower);
-        loan.setIssueDate(issueDate);
-        loan.setReturnDate(returnDate);
+        loan.setIssueDate(Helper.parseDateTime(issueDate));
+        loan.setReturnDate(Helper.parseDateTime(returnDate));
         loan.setLoanDuration(duration);
         loan.setTotalFine(fine);
         loanRepository.save(loan);
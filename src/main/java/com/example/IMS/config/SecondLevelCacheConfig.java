@@ -0,0 +1,94 @@
+package com.example.IMS.config;
+
+import org.ehcache.config.builders.CacheConfigurationBuilder;
+import org.ehcache.config.builders.ConfigurationBuilder;
+import org.ehcache.config.builders.ExpiryPolicyBuilder;
+import org.ehcache.config.builders.ResourcePoolsBuilder;
+import org.ehcache.jsr107.EhcacheCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.spi.RegionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Optional Hibernate second-level cache for the read-mostly reference data: item types, vendors
+ * and roles, plus the query cache for lookups marked cacheable. The item type and vendor behind
+ * an item then come from memory. Which roles a user holds is not cached: it decides what the user
+ * may do, so a login always reads it.
+ *
+ * Each region is an Ehcache cache bounded by entry count and time to live. The caches belong to
+ * one instance, so a write made by another instance is seen once the entries expire; vendors and
+ * item types are also evicted when the reference data version check notices such a write.
+ */
+@Configuration
+public class SecondLevelCacheConfig {
+
+    // Regions named on the cached entity and collection mappings
+    public static final String ITEM_TYPE_REGION = "itemType";
+    public static final String VENDOR_REGION = "vendor";
+    public static final String ROLE_REGION = "role";
+
+    private static final List<String> DATA_REGIONS = List.of(ITEM_TYPE_REGION, VENDOR_REGION, ROLE_REGION,
+            RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME);
+
+    // One entry per table, so this never fills up
+    private static final long TIMESTAMP_ENTRIES = 1000;
+
+    @Value("${second-level-cache.enabled:false}")
+    private boolean enabled;
+
+    @Value("${second-level-cache.max-entries:10000}")
+    private long maxEntries;
+
+    @Value("${second-level-cache.time-to-live-seconds:600}")
+    private long timeToLiveSeconds;
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCache() {
+        return properties -> {
+            if (!enabled) {
+                properties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, false);
+                return;
+            }
+            properties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, true);
+            properties.put(AvailableSettings.USE_QUERY_CACHE, true);
+            properties.put(AvailableSettings.CACHE_REGION_FACTORY, ConfigSettings.SIMPLE_FACTORY_NAME);
+            // Closed by Hibernate with the session factory
+            properties.put(ConfigSettings.CACHE_MANAGER, cacheManager());
+            // Every region is configured above, so an unknown one is a mapping mistake
+            properties.put(ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
+            // Hit, miss and put counts per region
+            properties.put(AvailableSettings.GENERATE_STATISTICS, true);
+            System.out.println("Second-level cache enabled for " + DATA_REGIONS);
+        };
+    }
+
+    private CacheManager cacheManager() {
+        CacheConfigurationBuilder<Object, Object> data = CacheConfigurationBuilder
+                .newCacheConfigurationBuilder(Object.class, Object.class, ResourcePoolsBuilder.heap(maxEntries))
+                .withExpiry(ExpiryPolicyBuilder.timeToLiveExpiration(Duration.ofSeconds(timeToLiveSeconds)));
+        ConfigurationBuilder configuration = ConfigurationBuilder.newConfigurationBuilder();
+        for (String region : DATA_REGIONS) {
+            configuration = configuration.withCache(region, data);
+        }
+        // Cached query results are only trusted while the last write to each of their tables is
+        // known, so the timestamps are neither evicted nor expired
+        configuration = configuration.withCache(RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME,
+                CacheConfigurationBuilder.newCacheConfigurationBuilder(Object.class, Object.class,
+                        ResourcePoolsBuilder.heap(TIMESTAMP_ENTRIES)));
+
+        EhcacheCachingProvider provider = (EhcacheCachingProvider) Caching.getCachingProvider(EhcacheCachingProvider.class.getName());
+        // A manager of its own, as the provider hands out one shared manager per URI
+        return provider.getCacheManager(URI.create("ims:second-level-cache:" + UUID.randomUUID()), configuration.build());
+    }
+}
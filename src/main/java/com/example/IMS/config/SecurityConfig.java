@@ -44,8 +44,8 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
             .authorizeRequests()
                 .antMatchers("/css/**", "/js/**", "/images/**", "/api/chatbot/**").permitAll()
                 .antMatchers("/register", "/login").permitAll()
-                .antMatchers("/admin/**").hasAuthority("ROLE_ADMIN")
-                .antMatchers("/ItemCreate", "/ItemEdit/**", "/ItemDelete/**").hasAnyAuthority("ROLE_ADMIN", "ROLE_MANAGER")
+                .antMatchers("/admin/**", "/reports/summary/**").hasAuthority("ROLE_ADMIN")
+                .antMatchers("/ItemCreate", "/ItemEdit/**", "/ItemDelete/**", "/api/items/import").hasAnyAuthority("ROLE_ADMIN", "ROLE_MANAGER")
                 .antMatchers("/vendors/**").hasAnyAuthority("ROLE_ADMIN", "ROLE_MANAGER")
                 .anyRequest().authenticated()
             .and()
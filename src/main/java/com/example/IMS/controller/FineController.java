@@ -12,10 +12,12 @@ import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 
+import com.example.IMS.convertor.ItemIssuanceConvertor;
 import com.example.IMS.dto.FineDto;
 import com.example.IMS.model.Borrower;
 import com.example.IMS.service.BorrowerService;
 import com.example.IMS.service.ItemIssuanceService;
+import com.example.IMS.service.ReportSummaryService;
 
 @Controller
 public class FineController {
@@ -26,9 +28,15 @@ public class FineController {
 	@Autowired
 	private ItemIssuanceService itemIssuanceService;
 
+	@Autowired
+	private ReportSummaryService reportSummaryService;
+
+	@Autowired
+	private ItemIssuanceConvertor itemIssuanceConvertor;
+
 	@GetMapping("/FineView")
 	public String Index(Model model) {
-		model.addAttribute("itemsWithFineList", itemIssuanceService.getItemsWithFine());
+		model.addAttribute("itemsWithFineList", itemIssuanceConvertor.modelToDto(itemIssuanceService.getItemsWithFine()));
 		return "Fine/View";
 	}
 
@@ -41,8 +49,7 @@ public class FineController {
 
 	@PostMapping("/FineDetails")
 	public String Details(@Valid @ModelAttribute("fineDto") FineDto fineDto, BindingResult result) {
-		Borrower borrower = borrowerService.getBorrowerById(fineDto.getBorrowerId());
-		double totalFine = borrower.totalFine();
+		double totalFine = reportSummaryService.getOutstandingFine(fineDto.getBorrowerId());
 		fineDto.setTotalFine(totalFine);
 		return "Fine/Details";
 	}
@@ -62,8 +69,10 @@ public class FineController {
 			return "Fine/Create";
 		}
 		try {
+			double fineBefore = borrower.outstandingFine();
 			borrower.updateFine(fineDto.getFinePaid());
 			borrowerService.updateBorrower(borrower);
+			reportSummaryService.fineChanged(borrower.getId(), borrower.outstandingFine() - fineBefore);
 		} catch (Exception e) {
 			System.out.println("Exception caught in Fine Controller.");
 			err = "Unable to update borrower fine details.";
@@ -1,26 +1,34 @@
 package com.example.IMS.controller;
 
-import com.example.IMS.model.Item;
-import com.example.IMS.model.Loan;
-import com.example.IMS.service.ItemService;
-import com.example.IMS.service.ItemIssuanceService;
+import com.example.IMS.dto.DashboardStatsDto;
+import com.example.IMS.service.DashboardEventBroadcaster;
+import com.example.IMS.service.DashboardRollupService;
+import com.example.IMS.service.DashboardStatsService;
+import com.example.IMS.service.DashboardTrackingService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.time.LocalDateTime;
 import java.util.*;
-import java.util.stream.Collectors;
 import java.util.LinkedHashMap;
 
 @Controller
 public class HomeController {
 	
-	@Autowired
-	private ItemService itemService;
+	private static final int MAX_DELTA_POINTS = 500;
 	
 	@Autowired
-	private ItemIssuanceService itemIssuanceService;
+	private DashboardStatsService dashboardStatsService;
 	
 	@GetMapping("/")
 	public String Index(){
@@ -28,92 +36,90 @@ public class HomeController {
 	}
 	
 	@Autowired
-	private com.example.IMS.service.DashboardTrackingService dashboardTrackingService;
+	private DashboardTrackingService dashboardTrackingService;
+	
+	@Autowired
+	private DashboardEventBroadcaster dashboardEventBroadcaster;
+	
+	@Autowired
+	private DashboardRollupService dashboardRollupService;
 	
 	@GetMapping("/api/dashboard/stats")
 	@ResponseBody
-	public Map<String, Object> getDashboardStats() {
-		Map<String, Object> stats = new HashMap<>();
-		
-		// Get all items and loans
-		List<Item> allItems = itemService.getAllItems();
-		List<Loan> allLoans = itemIssuanceService.getAllIssuedItems();
-		
-		// Items Borrowed (currently active loans - no return date)
-		long itemsBorrowed = allLoans.stream()
-				.filter(loan -> loan.getReturnDate() == null || loan.getReturnDate().isEmpty())
-				.count();
-		
-		// Items Returned (loans with return date)
-		long itemsReturned = allLoans.stream()
-				.filter(loan -> loan.getReturnDate() != null && !loan.getReturnDate().isEmpty())
-				.count();
-		
-		// Total inventory remaining (sum of all item quantities)
-		int inventoryRemaining = allItems.stream()
-				.mapToInt(Item::getQuantity)
-				.sum();
-		
-		// Total items issued (all loans)
-		long itemsIssued = allLoans.size();
-		
-		// Item distribution by type
-		Map<String, Long> itemsByType = allItems.stream()
-				.collect(Collectors.groupingBy(
-					item -> item.getItemType() != null ? item.getItemType().getTypeName() : "Unknown",
-					Collectors.counting()
-				));
-		
-		// Low stock items (quantity < 10)
-		long lowStockCount = allItems.stream()
-				.filter(item -> item.getQuantity() < 10)
-				.count();
-		
-		stats.put("itemsBorrowed", itemsBorrowed);
-		stats.put("itemsReturned", itemsReturned);
-		stats.put("inventoryRemaining", inventoryRemaining);
-		stats.put("itemsIssued", itemsIssued);
-		stats.put("itemsByType", itemsByType);
-		stats.put("lowStockCount", lowStockCount);
-		stats.put("totalItems", allItems.size());
-		stats.put("totalLoans", allLoans.size());
-		
-		return stats;
+	public DashboardStatsDto getDashboardStats() {
+		return dashboardStatsService.getStats();
 	}
 	
 	@GetMapping("/api/dashboard/history")
 	@ResponseBody
-	public List<Map<String, Object>> getDashboardHistory() {
+	public List<Map<String, Object>> getDashboardHistory(
+			@RequestParam(required = false) String resolution,
+			@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+			@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+		if (resolution != null) {
+			try {
+				return dashboardRollupService.getHistory(resolution, from, to);
+			} catch (IllegalArgumentException e) {
+				throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown resolution: " + resolution);
+			}
+		}
+		
 		List<com.example.IMS.model.DashboardSnapshot> snapshots = dashboardTrackingService.getRecentSnapshots();
-		List<Map<String, Object>> history = new ArrayList<>();
 		
 		// Reverse to get chronological order
 		Collections.reverse(snapshots);
 		
-		// Group by date and get last snapshot of each day
-		Map<String, com.example.IMS.model.DashboardSnapshot> dailySnapshots = new LinkedHashMap<>();
-		java.time.format.DateTimeFormatter dateFormatter = java.time.format.DateTimeFormatter.ofPattern("MMM d");
-		
+		// Group by date and keep the last snapshot of each day
+		Map<String, Map<String, Object>> dailyPoints = new LinkedHashMap<>();
 		for (com.example.IMS.model.DashboardSnapshot snapshot : snapshots) {
-			String dateKey = snapshot.getTimestamp().format(dateFormatter);
-			// Keep the latest snapshot for each day
-			dailySnapshots.put(dateKey, snapshot);
+			Map<String, Object> point = DashboardTrackingService.toHistoryPoint(snapshot);
+			dailyPoints.put((String) point.get("date"), point);
+		}
+		
+		return new ArrayList<>(dailyPoints.values());
+	}
+	
+	// Delta sync: only the points after the given cursor, or just the current cursor when since is negative
+	@GetMapping(value = "/api/dashboard/history", params = "since")
+	@ResponseBody
+	public ResponseEntity<Map<String, Object>> getDashboardHistorySince(@RequestParam long since,
+			@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+		long latest = dashboardTrackingService.getLatestSnapshotId();
+		String latestTag = "\"" + latest + "\"";
+		if (ifNoneMatch != null && (ifNoneMatch.equals(latestTag) || ifNoneMatch.equals("W/" + latestTag))) {
+			return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(latestTag).build();
 		}
 		
-		// Convert to list
-		for (Map.Entry<String, com.example.IMS.model.DashboardSnapshot> entry : dailySnapshots.entrySet()) {
-			com.example.IMS.model.DashboardSnapshot snapshot = entry.getValue();
-			Map<String, Object> point = new HashMap<>();
-			point.put("date", entry.getKey());
-			point.put("timestamp", snapshot.getTimestamp().toString());
-			point.put("itemsBorrowed", snapshot.getItemsBorrowed());
-			point.put("itemsReturned", snapshot.getItemsReturned());
-			point.put("inventoryRemaining", snapshot.getInventoryRemaining());
-			point.put("itemsIssued", snapshot.getItemsIssued());
-			point.put("eventType", snapshot.getEventType());
-			history.add(point);
+		List<com.example.IMS.model.DashboardSnapshot> snapshots = since < 0 ? Collections.emptyList()
+				: dashboardTrackingService.getSnapshotsSince(since, MAX_DELTA_POINTS);
+		List<Map<String, Object>> points = new ArrayList<>();
+		long cursor = since < 0 ? latest : since;
+		for (com.example.IMS.model.DashboardSnapshot snapshot : snapshots) {
+			points.add(DashboardTrackingService.toHistoryPoint(snapshot));
+			cursor = snapshot.getId();
 		}
 		
-		return history;
+		Map<String, Object> delta = new HashMap<>();
+		delta.put("cursor", cursor);
+		delta.put("points", points);
+		delta.put("hasMore", snapshots.size() == MAX_DELTA_POINTS);
+		// The tag names the cursor the client reaches with this response, so a partial page never matches
+		return ResponseEntity.ok().eTag("\"" + cursor + "\"").body(delta);
+	}
+	
+	@GetMapping("/api/dashboard/metrics")
+	@ResponseBody
+	public Map<String, Object> getDashboardMetrics() {
+		Map<String, Object> metrics = new HashMap<>(dashboardTrackingService.getWriterMetrics());
+		metrics.put("streamClients", dashboardEventBroadcaster.getClientCount());
+		metrics.put("streamDroppedEvents", dashboardEventBroadcaster.getDroppedEvents());
+		metrics.put("streamEvictedClients", dashboardEventBroadcaster.getEvictedClients());
+		return metrics;
+	}
+	
+	@GetMapping(value = "/api/dashboard/stream", produces = "text/event-stream")
+	@ResponseBody
+	public SseEmitter streamDashboard() {
+		return dashboardEventBroadcaster.subscribe();
 	}
 }
@@ -1,8 +1,11 @@
 package com.example.IMS.controller;
 
+import java.util.Objects;
+
 import javax.validation.Valid;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
@@ -41,7 +44,7 @@ public class ItemController {
 
 	@GetMapping("/ItemView")
 	public String View(Model model) {
-		model.addAttribute("itemDtoList", itemConvertor.modelToDto(itemService.getAllItems()));
+		model.addAttribute("itemDtoList", itemService.getItemRows());
 		return "/Item/View";
 	}
 
@@ -85,7 +88,14 @@ public class ItemController {
 		item = itemConvertor.dtoToModel(itemDto);
 		item.setVendor(vendor);
 		item.setItemType(itemType);
-		itemService.saveItem(item);
+		try {
+			itemService.saveItem(item);
+		} catch (DataIntegrityViolationException e) {
+			// The same item was added by someone else since the check above
+			result.addError(new ObjectError("globalError", ItemService.DUPLICATE_ITEM_MESSAGE));
+			model.addAttribute("itemTypeList", itemTypeService.getAllItemTypes());
+			return "/Item/Create";
+		}
 		dashboardTrackingService.captureSnapshot("ITEM_ADDED");
 		return "redirect:/ItemView";
 	}
@@ -125,7 +135,7 @@ public class ItemController {
 		Item existingItem = itemService.getItemById(id);
 		if (existingItem != null) {
 			// Check if name/type changed and conflicts with another item
-			if (!existingItem.getName().equalsIgnoreCase(itemDto.getItemName()) || 
+			if (!Objects.equals(existingItem.getNormalizedName(), Item.normalizeName(itemDto.getItemName())) || 
 				!existingItem.getItemType().getTypeName().equalsIgnoreCase(itemDto.getItemType())) {
 				err = itemService.validateItemId(itemDto.getItemName(), itemDto.getItemType());
 				if (!err.isEmpty()) {
@@ -148,7 +158,13 @@ public class ItemController {
 		item.setInvoiceNumber(itemDto.getInvoiceNumber());
 		item.setVendor(vendor);
 		item.setItemType(itemType);
-		itemService.saveItem(item);
+		try {
+			itemService.saveItem(item);
+		} catch (DataIntegrityViolationException e) {
+			result.addError(new ObjectError("globalError", ItemService.DUPLICATE_ITEM_MESSAGE));
+			model.addAttribute("itemTypeList", itemTypeService.getAllItemTypes());
+			return "/Item/Edit";
+		}
 		dashboardTrackingService.captureSnapshot("ITEM_UPDATED");
 		return "redirect:/ItemView";
 	}
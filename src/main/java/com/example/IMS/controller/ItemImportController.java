@@ -0,0 +1,41 @@
+package com.example.IMS.controller;
+
+import com.example.IMS.dto.ItemImportResult;
+import com.example.IMS.service.ItemImportService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.io.Reader;
+
+@RestController
+@RequestMapping("/api/items/import")
+public class ItemImportController {
+
+    @Autowired
+    private ItemImportService itemImportService;
+
+    // A header line naming the item form's fields, then one item per line
+    @PostMapping(consumes = "text/csv")
+    public ItemImportResult importCsv(Reader body) {
+        try {
+            return itemImportService.importCsv(body);
+        } catch (IllegalArgumentException | IOException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "The CSV could not be read: " + e.getMessage());
+        }
+    }
+
+    // An array of objects with the item form's fields
+    @PostMapping(consumes = "application/json")
+    public ItemImportResult importJson(Reader body) {
+        try {
+            return itemImportService.importJson(body);
+        } catch (IllegalArgumentException | IOException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "The JSON could not be read: " + e.getMessage());
+        }
+    }
+}
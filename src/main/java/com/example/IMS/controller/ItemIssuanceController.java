@@ -41,8 +41,7 @@ public class ItemIssuanceController {
 
 	@GetMapping("/ItemIssuanceView")
 	public String View(Model model) {
-		model.addAttribute("ItemIssuanceDtoList",
-				itemIssuanceConvertor.modelToDto(itemIssuanceService.getAllIssuedItems()));
+		model.addAttribute("ItemIssuanceDtoList", itemIssuanceService.getIssuedItemRows());
 		return "/Item Issuance/View";
 	}
 
@@ -71,11 +70,12 @@ public class ItemIssuanceController {
 			result.addError(error);
 		} else {
 			item = itemService.getItemById(itemIssuanceDto.getItemId());
-			if (item.getQuantity() <= 0) {
-				err = "Item is out of stock.";
-				ObjectError error = new ObjectError("globalError", err);
-				result.addError(error);
-			}
+		}
+		// The stock check and decrement are one statement, so concurrent issues cannot oversell
+		if (!result.hasErrors() && !itemService.takeOne(item.getId())) {
+			err = "Item is out of stock.";
+			ObjectError error = new ObjectError("globalError", err);
+			result.addError(error);
 		}
 		if (result.hasErrors()) {
 			return "/Item Issuance/Create";
@@ -83,9 +83,12 @@ public class ItemIssuanceController {
 		Loan loan = itemIssuanceConvertor.dtoToModel(itemIssuanceDto);
 		borrower.addLoan(loan);
 		item.addLoan(loan);
-		item.descreaseQuantity();
-		itemService.saveItem(item);
-		itemIssuanceService.saveItemIssued(loan);
+		try {
+			itemIssuanceService.saveItemIssued(loan);
+		} catch (RuntimeException e) {
+			itemService.returnOne(item.getId());
+			throw e;
+		}
 		dashboardTrackingService.captureSnapshot("ITEM_ISSUED");
 		return "redirect:/ItemIssuanceView";
 	}
@@ -18,6 +18,7 @@ import com.example.IMS.model.Borrower;
 import com.example.IMS.model.Item;
 import com.example.IMS.model.Loan;
 import com.example.IMS.service.BorrowerService;
+import com.example.IMS.service.DashboardTrackingService;
 import com.example.IMS.service.ItemIssuanceService;
 import com.example.IMS.service.ItemService;
 
@@ -36,6 +37,9 @@ public class ItemReturnController {
 	@Autowired
 	private ItemIssuanceConvertor itemIssuanceConvertor;
 
+	@Autowired
+	private DashboardTrackingService dashboardTrackingService;
+
 	@GetMapping("/ItemReturnView")
 	public String Index(Model model) {
 		model.addAttribute("ItemIssuanceDtoList",
@@ -72,24 +76,27 @@ public class ItemReturnController {
 			item = itemService.getItemById(itemReturnDto.getItemId());
 		}
 
-		try {
+		if (borrower != null && item != null) {
 			loan = itemIssuanceService.findItemIssued(borrower.getId(), item.getId());
-			borrower.removeLoan(loan);
-			item.removeLoan(loan);
-			loan.setReturnDate();
-			loan.calculateFine();
-			item.increaseQuantity();
-			itemService.saveItem(item);
-			itemIssuanceService.saveItemIssued(loan);
-		} catch (NullPointerException e) {
-			System.out.println("Null Pointer Exception Caught in Item Return Controller.");
-			err = "Loan ID does not exist. Invalid input";
-			ObjectError error = new ObjectError("globalError", err);
-			result.addError(error);
+			if (loan == null) {
+				err = "Loan ID does not exist. Invalid input";
+				ObjectError error = new ObjectError("globalError", err);
+				result.addError(error);
+			} else if (!itemIssuanceService.returnItemIssued(loan)) {
+				// Returned by another request since it was looked up; its unit was put back there
+				err = "This loan has already been returned.";
+				ObjectError error = new ObjectError("globalError", err);
+				result.addError(error);
+			} else {
+				if (!itemService.returnOne(item.getId())) {
+					System.out.println("Item " + item.getId() + " no longer exists; the returned unit was not added to stock.");
+				}
+			}
 		}
 		if (result.hasErrors()) {
 			return "/Item Return/Create";
 		}
+		dashboardTrackingService.captureSnapshot("ITEM_RETURNED");
 		return "redirect:/ItemReturnView";
 	}
 }
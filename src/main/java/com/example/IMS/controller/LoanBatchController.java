@@ -0,0 +1,52 @@
+package com.example.IMS.controller;
+
+import com.example.IMS.dto.LoanBatchRequest;
+import com.example.IMS.dto.LoanBatchResult;
+import com.example.IMS.service.LoanBatchService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+@RestController
+@RequestMapping("/api/loans/batch")
+public class LoanBatchController {
+
+    // Nothing was applied, so the same request can be sent again
+    private static final String LOCK_CONFLICT_MESSAGE = "The items are being changed by other requests; try again.";
+
+    @Autowired
+    private LoanBatchService loanBatchService;
+
+    @PostMapping("/issue")
+    public ResponseEntity<LoanBatchResult> issue(@RequestBody LoanBatchRequest request) {
+        try {
+            return respond(loanBatchService.issue(request));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        } catch (PessimisticLockingFailureException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, LOCK_CONFLICT_MESSAGE);
+        }
+    }
+
+    @PostMapping("/return")
+    public ResponseEntity<LoanBatchResult> returnItems(@RequestBody LoanBatchRequest request) {
+        try {
+            return respond(loanBatchService.returnItems(request));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        } catch (PessimisticLockingFailureException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, LOCK_CONFLICT_MESSAGE);
+        }
+    }
+
+    // An all-or-nothing batch that was rolled back still lists why each line failed
+    private static ResponseEntity<LoanBatchResult> respond(LoanBatchResult result) {
+        return result.isApplied() ? ResponseEntity.ok(result) : ResponseEntity.status(HttpStatus.CONFLICT).body(result);
+    }
+}
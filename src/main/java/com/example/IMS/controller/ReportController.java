@@ -1,22 +1,52 @@
 package com.example.IMS.controller;
 
+import com.example.IMS.dto.DataTablesResponse;
+import com.example.IMS.dto.StockPageRequest;
+import com.example.IMS.dto.StockReportRow;
+import com.example.IMS.service.CachingReportService;
 import com.example.IMS.service.IReportService;
+import com.example.IMS.service.ReportExportService;
+import com.example.IMS.service.ReportSummaryService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 @Controller
 @RequestMapping("/reports")
 public class ReportController {
 
+    // Stock table columns in display order, as named by the server-side sort
+    private static final String[] STOCK_COLUMNS = {"id", "name", "typeName", "quantity", "price"};
+
     @Autowired
     private IReportService reportService;
 
+    @Autowired
+    private ReportExportService reportExportService;
+
+    @Autowired
+    private ReportSummaryService reportSummaryService;
+
+    @Autowired
+    private CachingReportService cachingReportService;
+
     // Main reports page
     @GetMapping
     public String reportsHome() {
@@ -26,12 +56,40 @@ public class ReportController {
     // Item Stock Report
     @GetMapping("/stock")
     public String itemStockReport(Model model) {
-        model.addAttribute("items", reportService.getItemStockReport());
         model.addAttribute("totalItems", reportService.getTotalItemsCount());
         model.addAttribute("lowStockItems", reportService.getLowStockItemsCount());
         return "reports/stock-report";
     }
 
+    // One page of the stock report table, in the DataTables server-side format
+    @GetMapping("/stock/data")
+    @ResponseBody
+    public DataTablesResponse<StockReportRow> itemStockData(
+            @RequestParam(defaultValue = "0") int draw,
+            @RequestParam(defaultValue = "0") int start,
+            @RequestParam(defaultValue = "10") int length,
+            @RequestParam(name = "search[value]", required = false) String search,
+            @RequestParam(name = "order[0][column]", defaultValue = "0") int orderColumn,
+            @RequestParam(name = "order[0][dir]", defaultValue = "asc") String orderDir,
+            @RequestParam(required = false) String afterValue,
+            @RequestParam(required = false) Long afterId,
+            @RequestParam(required = false) String beforeValue,
+            @RequestParam(required = false) Long beforeId) {
+
+        StockPageRequest request = new StockPageRequest();
+        request.setDraw(draw);
+        request.setStart(start);
+        request.setLength(length);
+        request.setSearch(search);
+        request.setSortColumn(orderColumn >= 0 && orderColumn < STOCK_COLUMNS.length ? STOCK_COLUMNS[orderColumn] : "id");
+        request.setDescending("desc".equalsIgnoreCase(orderDir));
+        request.setAfterValue(afterValue);
+        request.setAfterId(afterId);
+        request.setBeforeValue(beforeValue);
+        request.setBeforeId(beforeId);
+        return reportService.getItemStockPage(request);
+    }
+
     // Borrow History Report
     @GetMapping("/borrow-history")
     public String borrowHistoryReport(
@@ -42,18 +100,19 @@ public class ReportController {
         LocalDate start = startDate != null ? LocalDate.parse(startDate) : LocalDate.now().minusMonths(1);
         LocalDate end = endDate != null ? LocalDate.parse(endDate) : LocalDate.now();
         
+        model.addAttribute("totalLoans", reportService.getTotalIssuedCount(start, end));
+        // Table rows are read chunk by chunk while the page renders rather than up front
         model.addAttribute("loans", reportService.getBorrowHistoryReport(start, end));
         model.addAttribute("startDate", start);
         model.addAttribute("endDate", end);
-        model.addAttribute("totalLoans", reportService.getTotalLoansCount());
         return "reports/borrow-history";
     }
 
     // Currently Borrowed Items Report
     @GetMapping("/borrowed-items")
     public String borrowedItemsReport(Model model) {
-        model.addAttribute("borrowedItems", reportService.getCurrentlyBorrowedItems());
         model.addAttribute("totalBorrowed", reportService.getCurrentlyBorrowedCount());
+        model.addAttribute("borrowedItems", reportService.getCurrentlyBorrowedItems());
         return "reports/borrowed-items";
     }
 
@@ -67,10 +126,62 @@ public class ReportController {
         LocalDate start = startDate != null ? LocalDate.parse(startDate) : LocalDate.now().minusMonths(1);
         LocalDate end = endDate != null ? LocalDate.parse(endDate) : LocalDate.now();
         
+        model.addAttribute("totalIssued", reportService.getTotalIssuedCount(start, end));
         model.addAttribute("issuedItems", reportService.getIssuedItemsReport(start, end));
         model.addAttribute("startDate", start);
         model.addAttribute("endDate", end);
-        model.addAttribute("totalIssued", reportService.getTotalIssuedCount(start, end));
         return "reports/issued-items";
     }
+
+    // CSV or XLSX download of any report, streamed row by row from the database
+    @GetMapping("/{report}/export")
+    public ResponseEntity<StreamingResponseBody> exportReport(
+            @PathVariable String report,
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(required = false) String startDate,
+            @RequestParam(required = false) String endDate) {
+
+        if (!ReportExportService.REPORTS.contains(report)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Unknown report: " + report);
+        }
+        ReportExportService.Format exportFormat = ReportExportService.Format.parse(format);
+        if (exportFormat == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown format: " + format);
+        }
+        LocalDate start = startDate != null ? LocalDate.parse(startDate) : LocalDate.now().minusMonths(1);
+        LocalDate end = endDate != null ? LocalDate.parse(endDate) : LocalDate.now();
+
+        String filename = report + "-" + LocalDate.now() + "." + exportFormat.getExtension();
+        StreamingResponseBody body = out -> reportExportService.export(report, start, end, exportFormat, out);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+                .contentType(MediaType.parseMediaType(exportFormat.getContentType()))
+                .body(body);
+    }
+
+    // Recomputes the report summary tables from the loan table
+    @PostMapping("/summary/rebuild")
+    @ResponseBody
+    public Map<String, Object> rebuildSummaries() {
+        Map<String, Object> result = reportSummaryService.rebuild();
+        cachingReportService.invalidate(CachingReportService.Region.LOANS);
+        return result;
+    }
+
+    // Lists summary rows that no longer agree with the loan table
+    @GetMapping("/summary/check")
+    @ResponseBody
+    public Map<String, Object> checkSummaries() {
+        List<String> discrepancies = reportSummaryService.check();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("consistent", discrepancies.isEmpty());
+        result.put("discrepancies", discrepancies);
+        return result;
+    }
+
+    @GetMapping("/cache/metrics")
+    @ResponseBody
+    public Map<String, Object> cacheMetrics() {
+        return cachingReportService.getMetrics();
+    }
 }
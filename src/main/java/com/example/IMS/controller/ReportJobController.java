@@ -0,0 +1,88 @@
+package com.example.IMS.controller;
+
+import com.example.IMS.dto.ReportJob;
+import com.example.IMS.service.ReportExportService;
+import com.example.IMS.service.ReportJobService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.security.Principal;
+import java.time.LocalDate;
+import java.util.List;
+
+@RestController
+@RequestMapping("/reports/jobs")
+public class ReportJobController {
+
+    @Autowired
+    private ReportJobService reportJobService;
+
+    // Queues a report export and returns the job, whose id is used to poll and download it
+    @PostMapping
+    public ResponseEntity<ReportJob> submit(
+            @RequestParam String report,
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(required = false) String startDate,
+            @RequestParam(required = false) String endDate,
+            Principal principal) {
+
+        if (!ReportExportService.REPORTS.contains(report)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Unknown report: " + report);
+        }
+        ReportExportService.Format exportFormat = ReportExportService.Format.parse(format);
+        if (exportFormat == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown format: " + format);
+        }
+        LocalDate start = startDate != null ? LocalDate.parse(startDate) : LocalDate.now().minusMonths(1);
+        LocalDate end = endDate != null ? LocalDate.parse(endDate) : LocalDate.now();
+        try {
+            ReportJob job = reportJobService.submit(principal.getName(), report, exportFormat, start, end);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
+        } catch (IllegalStateException e) {
+            throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, e.getMessage());
+        }
+    }
+
+    @GetMapping
+    public List<ReportJob> list(Principal principal) {
+        return reportJobService.getJobs(principal.getName());
+    }
+
+    @GetMapping("/{id}")
+    public ReportJob status(@PathVariable String id, Principal principal) {
+        return findJob(id, principal);
+    }
+
+    @GetMapping("/{id}/download")
+    public ResponseEntity<Resource> download(@PathVariable String id, Principal principal) {
+        ReportJob job = findJob(id, principal);
+        if (job.getStatus() != ReportJob.Status.DONE) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Report is " + job.getStatus());
+        }
+        ReportExportService.Format format = ReportExportService.Format.parse(job.getFormat());
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + job.getFilename() + "\"")
+                .contentType(MediaType.parseMediaType(format.getContentType()))
+                .body(new FileSystemResource(job.getFile()));
+    }
+
+    private ReportJob findJob(String id, Principal principal) {
+        ReportJob job = reportJobService.getJob(id, principal.getName());
+        if (job == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Unknown report job: " + id);
+        }
+        return job;
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.IMS.controller;
+
+import com.example.IMS.dto.SearchResult;
+import com.example.IMS.service.SearchIndexService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/search")
+public class SearchController {
+
+    @Autowired
+    private SearchIndexService searchIndexService;
+
+    // Typeahead suggestions for the id fields on the issue, return and repair forms
+    @GetMapping
+    public List<SearchResult> search(
+            @RequestParam String type,
+            @RequestParam(defaultValue = "") String q,
+            @RequestParam(defaultValue = "10") int limit) {
+
+        SearchIndexService.Kind kind = SearchIndexService.Kind.parse(type);
+        if (kind == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Unknown search type: " + type);
+        }
+        return searchIndexService.search(kind, q, limit);
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.IMS.controller;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+@RestController
+@RequestMapping("/admin/cache/second-level")
+public class SecondLevelCacheController {
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    // Hits, misses and puts of each region since startup or the last clear
+    @GetMapping
+    public Map<String, Object> metrics() {
+        SessionFactory sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        boolean enabled = sessionFactory.getSessionFactoryOptions().isSecondLevelCacheEnabled();
+        metrics.put("enabled", enabled);
+        if (!enabled) {
+            return metrics;
+        }
+        Statistics statistics = sessionFactory.getStatistics();
+        Map<String, Object> regions = new TreeMap<>();
+        for (String name : statistics.getSecondLevelCacheRegionNames()) {
+            CacheRegionStatistics region = statistics.getCacheRegionStatistics(name);
+            if (region == null) {
+                continue;
+            }
+            long lookups = region.getHitCount() + region.getMissCount();
+            Map<String, Object> counts = new LinkedHashMap<>();
+            counts.put("hits", region.getHitCount());
+            counts.put("misses", region.getMissCount());
+            counts.put("puts", region.getPutCount());
+            counts.put("hitRatio", lookups == 0 ? 0 : (double) region.getHitCount() / lookups);
+            regions.put(name, counts);
+        }
+        metrics.put("regions", regions);
+        metrics.put("queryCacheHits", statistics.getQueryCacheHitCount());
+        metrics.put("queryCacheMisses", statistics.getQueryCacheMissCount());
+        return metrics;
+    }
+
+    // Empties every region, e.g. after reference data was changed directly in the database
+    @PostMapping("/evict")
+    public Map<String, Object> evictAll() {
+        entityManagerFactory.getCache().evictAll();
+        entityManagerFactory.unwrap(SessionFactory.class).getCache().evictQueryRegions();
+        return metrics();
+    }
+}
@@ -3,7 +3,7 @@ package com.example.IMS.controller;
 import com.example.IMS.model.Item;
 import com.example.IMS.model.Vendor;
 import com.example.IMS.repository.IItemRepository;
-import com.example.IMS.repository.IVendorRepository;
+import com.example.IMS.service.IVendorService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Controller;
@@ -18,7 +18,7 @@ import java.util.List;
 public class VendorController {
 
     @Autowired
-    private IVendorRepository vendorRepository;
+    private IVendorService vendorService;
 
     @Autowired
     private IItemRepository itemRepository;
@@ -26,7 +26,7 @@ public class VendorController {
     // List all vendors
     @GetMapping
     public String listVendors(Model model) {
-        model.addAttribute("vendors", vendorRepository.findAll());
+        model.addAttribute("vendors", vendorService.getAllVendors());
         return "vendor_list";
     }
 
@@ -40,7 +40,7 @@ public class VendorController {
     // Save vendor
     @PostMapping("/save")
     public String saveVendor(@ModelAttribute Vendor vendor) {
-        vendorRepository.save(vendor);
+        vendorService.saveVendor(vendor);
         return "redirect:/vendors";
     }
 
@@ -60,7 +60,7 @@ public class VendorController {
                 return "redirect:/vendors";
             }
             
-            vendorRepository.deleteById(id);
+            vendorService.deleteVendor(id);
             redirectAttributes.addFlashAttribute("success", "Vendor deleted successfully!");
         } catch (DataIntegrityViolationException e) {
             redirectAttributes.addFlashAttribute("error", 
@@ -17,13 +17,13 @@ public class ItemIssuanceConvertor {
 		try {
 			dto.setId(loan.getId());
 			dto.setLoanDuration(loan.getLoanDuration());
-			dto.setIssueDate(loan.getIssueDate());
-			dto.setDueDate(Helper.getDueDate(loan.getIssueDate(), loan.getLoanDuration()));
+			dto.setIssueDate(Helper.formatDateTime(loan.getIssueDate()));
+			dto.setDueDate(Helper.formatDateTime(loan.getDueDate()));
 			dto.setItemId(loan.getItem().getId());
 			dto.setBorrowerId(loan.getBorrower().getId());
 			dto.setFineAmount(loan.getTotalFine());
-			// Handle null return date
-			dto.setReturnDate(loan.getReturnDate() != null ? loan.getReturnDate() : "");
+			// Empty while the item is still out
+			dto.setReturnDate(Helper.formatDateTime(loan.getReturnDate()));
 		} catch (NullPointerException e) {
 			System.out.println("Null Pointer Exception Caught in Item Issuance Convertor.");
 			e.printStackTrace();
@@ -34,9 +34,9 @@ public class ItemIssuanceConvertor {
 	public Loan dtoToModel(ItemIssuanceDto dto) {
 		Loan loan = new Loan();
 		loan.setLoanDuration(dto.getLoanDuration());
-		loan.setIssueDate(Helper.getCurrentTime());
+		loan.setIssueDate(Helper.now());
 		loan.setTotalFine(dto.getFineAmount());
-		loan.setReturnDate("");
+		loan.setReturnDate(null);
 		return loan;
 	}
 
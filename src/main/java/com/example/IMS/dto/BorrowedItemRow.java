@@ -0,0 +1,55 @@
+package com.example.IMS.dto;
+
+import com.example.IMS.Utilities.Helper;
+
+import java.time.LocalDateTime;
+
+public class BorrowedItemRow {
+
+    private final long loanId;
+    private final String itemName;
+    private final String borrowerName;
+    private final String borrowerEmail;
+    private final LocalDateTime issueDate;
+    private final LocalDateTime dueDate;
+    private final double fine;
+
+    public BorrowedItemRow(long loanId, String itemName, String borrowerFirstName, String borrowerLastName,
+                           String borrowerEmail, LocalDateTime issueDate, LocalDateTime dueDate, double fine) {
+        this.loanId = loanId;
+        this.itemName = itemName;
+        this.borrowerName = borrowerFirstName + " " + borrowerLastName;
+        this.borrowerEmail = borrowerEmail;
+        this.issueDate = issueDate;
+        this.dueDate = dueDate;
+        this.fine = fine;
+    }
+
+    public long getLoanId() {
+        return loanId;
+    }
+
+    public String getItemName() {
+        return itemName;
+    }
+
+    public String getBorrowerName() {
+        return borrowerName;
+    }
+
+    public String getBorrowerEmail() {
+        return borrowerEmail;
+    }
+
+    public String getIssueDate() {
+        return Helper.formatDateTime(issueDate);
+    }
+
+    public String getDueDate() {
+        return Helper.formatDateTime(dueDate);
+    }
+
+    public double getFine() {
+        return fine;
+    }
+}
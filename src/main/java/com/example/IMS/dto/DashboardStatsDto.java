@@ -0,0 +1,59 @@
+package com.example.IMS.dto;
+
+import java.util.Collections;
+import java.util.Map;
+
+public class DashboardStatsDto {
+
+    public static final DashboardStatsDto EMPTY = new DashboardStatsDto(0, 0, 0, 0, Collections.emptyMap(), 0);
+
+    private final long itemsBorrowed;
+    private final long itemsReturned;
+    private final long inventoryRemaining;
+    private final long totalItems;
+    private final Map<String, Long> itemsByType;
+    private final long lowStockCount;
+
+    public DashboardStatsDto(long itemsBorrowed, long itemsReturned, long inventoryRemaining, long totalItems,
+                             Map<String, Long> itemsByType, long lowStockCount) {
+        this.itemsBorrowed = itemsBorrowed;
+        this.itemsReturned = itemsReturned;
+        this.inventoryRemaining = inventoryRemaining;
+        this.totalItems = totalItems;
+        this.itemsByType = Collections.unmodifiableMap(itemsByType);
+        this.lowStockCount = lowStockCount;
+    }
+
+    public long getItemsBorrowed() {
+        return itemsBorrowed;
+    }
+
+    public long getItemsReturned() {
+        return itemsReturned;
+    }
+
+    public long getInventoryRemaining() {
+        return inventoryRemaining;
+    }
+
+    // Every loan ever issued, whether or not it has been returned
+    public long getItemsIssued() {
+        return itemsBorrowed + itemsReturned;
+    }
+
+    public Map<String, Long> getItemsByType() {
+        return itemsByType;
+    }
+
+    public long getLowStockCount() {
+        return lowStockCount;
+    }
+
+    public long getTotalItems() {
+        return totalItems;
+    }
+
+    public long getTotalLoans() {
+        return getItemsIssued();
+    }
+}
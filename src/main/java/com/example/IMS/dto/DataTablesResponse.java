@@ -0,0 +1,35 @@
+package com.example.IMS.dto;
+
+import java.util.List;
+
+// Response body of the DataTables server-side processing protocol
+public class DataTablesResponse<T> {
+
+    private final int draw;
+    private final long recordsTotal;
+    private final long recordsFiltered;
+    private final List<T> data;
+
+    public DataTablesResponse(int draw, long recordsTotal, long recordsFiltered, List<T> data) {
+        this.draw = draw;
+        this.recordsTotal = recordsTotal;
+        this.recordsFiltered = recordsFiltered;
+        this.data = data;
+    }
+
+    public int getDraw() {
+        return draw;
+    }
+
+    public long getRecordsTotal() {
+        return recordsTotal;
+    }
+
+    public long getRecordsFiltered() {
+        return recordsFiltered;
+    }
+
+    public List<T> getData() {
+        return data;
+    }
+}
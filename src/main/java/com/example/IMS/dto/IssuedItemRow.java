@@ -0,0 +1,59 @@
+package com.example.IMS.dto;
+
+import com.example.IMS.Utilities.Helper;
+
+import java.time.LocalDateTime;
+
+public class IssuedItemRow {
+
+    private final long loanId;
+    private final String itemName;
+    private final String borrowerName;
+    private final LocalDateTime issueDate;
+    private final LocalDateTime returnDate;
+    private final double fine;
+
+    public IssuedItemRow(long loanId, String itemName, String borrowerFirstName, String borrowerLastName,
+                         LocalDateTime issueDate, LocalDateTime returnDate, double fine) {
+        this.loanId = loanId;
+        this.itemName = itemName;
+        this.borrowerName = borrowerFirstName + " " + borrowerLastName;
+        this.issueDate = issueDate;
+        this.returnDate = returnDate;
+        this.fine = fine;
+    }
+
+    public long getLoanId() {
+        return loanId;
+    }
+
+    public String getItemName() {
+        return itemName;
+    }
+
+    public String getBorrowerName() {
+        return borrowerName;
+    }
+
+    // The key the next chunk of the issued items report starts after
+    public LocalDateTime getIssuedAt() {
+        return issueDate;
+    }
+
+    public String getIssueDate() {
+        return Helper.formatDateTime(issueDate);
+    }
+
+    // Null while the item is still out
+    public String getReturnDate() {
+        return returnDate != null ? Helper.formatDateTime(returnDate) : null;
+    }
+
+    public String getStatus() {
+        return returnDate == null ? "Borrowed" : "Returned";
+    }
+
+    public double getFine() {
+        return fine;
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.IMS.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Outcome of one bulk item import; only the first errors are listed, but every failed row is counted
+public class ItemImportResult {
+
+    public static final int MAX_LISTED_ERRORS = 1000;
+
+    private long rowsRead;
+    private long imported;
+    private long failed;
+    private long elapsedMs;
+    private final List<RowError> errors = new ArrayList<>();
+
+    public void rowRead() {
+        rowsRead++;
+    }
+
+    public void imported(long count) {
+        imported += count;
+    }
+
+    public void rowFailed(long row, String message) {
+        failed++;
+        if (errors.size() < MAX_LISTED_ERRORS) {
+            errors.add(new RowError(row, message));
+        }
+    }
+
+    public long getRowsRead() {
+        return rowsRead;
+    }
+
+    public long getImported() {
+        return imported;
+    }
+
+    public long getFailed() {
+        return failed;
+    }
+
+    public long getElapsedMs() {
+        return elapsedMs;
+    }
+
+    public void setElapsedMs(long elapsedMs) {
+        this.elapsedMs = elapsedMs;
+    }
+
+    public List<RowError> getErrors() {
+        return errors;
+    }
+
+    public static class RowError {
+        private final long row;
+        private final String message;
+
+        public RowError(long row, String message) {
+            this.row = row;
+            this.message = message;
+        }
+
+        public long getRow() {
+            return row;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+    }
+}
@@ -1,9 +1,13 @@
 package com.example.IMS.dto;
 
+import java.time.LocalDateTime;
+
 import javax.validation.constraints.Max;
 import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
 
+import com.example.IMS.Utilities.Helper;
+
 public class ItemIssuanceDto {
 	private long id;
 
@@ -51,6 +55,15 @@ public class ItemIssuanceDto {
 		this.fineAmount = fineAmount;
 	}
 
+	// Used by the issuance list query; a loan whose item or borrower is gone shows id 0
+	public ItemIssuanceDto(long id, Long itemId, Long borrowerId, long loanDuration, double fineAmount,
+			LocalDateTime issueDate, LocalDateTime dueDate, LocalDateTime returnDate) {
+		this(id, itemId != null ? itemId : 0, borrowerId != null ? borrowerId : 0, loanDuration, fineAmount);
+		this.issueDate = Helper.formatDateTime(issueDate);
+		this.dueDate = Helper.formatDateTime(dueDate);
+		this.returnDate = Helper.formatDateTime(returnDate);
+	}
+
 	public long getId() {
 		return id;
 	}
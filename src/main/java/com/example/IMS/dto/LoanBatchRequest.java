@@ -0,0 +1,47 @@
+package com.example.IMS.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// One borrower's batch of issues or returns; an item id listed twice is issued or returned twice
+public class LoanBatchRequest {
+
+    private long borrowerId;
+    private List<Long> itemIds = new ArrayList<>();
+    // Only used when issuing
+    private long loanDuration;
+    // When set, any line that fails leaves the whole batch unapplied
+    private boolean allOrNothing;
+
+    public long getBorrowerId() {
+        return borrowerId;
+    }
+
+    public void setBorrowerId(long borrowerId) {
+        this.borrowerId = borrowerId;
+    }
+
+    public List<Long> getItemIds() {
+        return itemIds;
+    }
+
+    public void setItemIds(List<Long> itemIds) {
+        this.itemIds = itemIds;
+    }
+
+    public long getLoanDuration() {
+        return loanDuration;
+    }
+
+    public void setLoanDuration(long loanDuration) {
+        this.loanDuration = loanDuration;
+    }
+
+    public boolean isAllOrNothing() {
+        return allOrNothing;
+    }
+
+    public void setAllOrNothing(boolean allOrNothing) {
+        this.allOrNothing = allOrNothing;
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.IMS.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Outcome of a batch of issues or returns, with one line per requested item in request order
+public class LoanBatchResult {
+
+    private boolean applied = true;
+    private int succeeded;
+    private int failed;
+    private final List<Line> lines = new ArrayList<>();
+
+    public void lineSucceeded(long itemId, long loanId) {
+        succeeded++;
+        lines.add(new Line(lines.size() + 1, itemId, loanId, null));
+    }
+
+    public void lineFailed(long itemId, String error) {
+        failed++;
+        lines.add(new Line(lines.size() + 1, itemId, 0, error));
+    }
+
+    // An all-or-nothing batch with a failed line: nothing was applied, so no line holds a loan
+    public void notApplied() {
+        applied = false;
+        succeeded = 0;
+        for (Line line : lines) {
+            line.loanId = 0;
+        }
+    }
+
+    public boolean isApplied() {
+        return applied;
+    }
+
+    public int getSucceeded() {
+        return succeeded;
+    }
+
+    public int getFailed() {
+        return failed;
+    }
+
+    public List<Line> getLines() {
+        return lines;
+    }
+
+    public static class Line {
+        private final int line;
+        private final long itemId;
+        private long loanId;
+        private final String error;
+
+        public Line(int line, long itemId, long loanId, String error) {
+            this.line = line;
+            this.itemId = itemId;
+            this.loanId = loanId;
+            this.error = error;
+        }
+
+        public int getLine() {
+            return line;
+        }
+
+        public long getItemId() {
+            return itemId;
+        }
+
+        public long getLoanId() {
+            return loanId;
+        }
+
+        public String getError() {
+            return error;
+        }
+    }
+}
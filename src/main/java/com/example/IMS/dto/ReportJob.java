@@ -0,0 +1,133 @@
+package com.example.IMS.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// One background report export and how far it has got
+public class ReportJob {
+
+    public enum Status {
+        QUEUED, RUNNING, DONE, FAILED
+    }
+
+    private final String id;
+    private final String owner;
+    private final String report;
+    private final String format;
+    private final LocalDate startDate;
+    private final LocalDate endDate;
+    private final LocalDateTime createdAt = LocalDateTime.now();
+    private final Path file;
+    private volatile Status status = Status.QUEUED;
+    private volatile long rowsWritten;
+    private volatile long totalRows = -1;
+    private volatile LocalDateTime finishedAt;
+    private volatile String error;
+
+    public ReportJob(String id, String owner, String report, String format, LocalDate startDate, LocalDate endDate,
+                     Path file) {
+        this.id = id;
+        this.owner = owner;
+        this.report = report;
+        this.format = format;
+        this.startDate = startDate;
+        this.endDate = endDate;
+        this.file = file;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    public String getReport() {
+        return report;
+    }
+
+    public String getFormat() {
+        return format;
+    }
+
+    public LocalDate getStartDate() {
+        return startDate;
+    }
+
+    public LocalDate getEndDate() {
+        return endDate;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    @JsonIgnore
+    public Path getFile() {
+        return file;
+    }
+
+    public String getFilename() {
+        return report + "-" + createdAt.toLocalDate() + "." + format;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public long getRowsWritten() {
+        return rowsWritten;
+    }
+
+    public void setRowsWritten(long rowsWritten) {
+        this.rowsWritten = rowsWritten;
+    }
+
+    public long getTotalRows() {
+        return totalRows;
+    }
+
+    public void setTotalRows(long totalRows) {
+        this.totalRows = totalRows;
+    }
+
+    // Percentage of rows written, or -1 while the row count is not known yet
+    public int getProgress() {
+        if (status == Status.DONE) {
+            return 100;
+        }
+        if (totalRows < 0) {
+            return -1;
+        }
+        return totalRows == 0 ? 0 : (int) Math.min(99, rowsWritten * 100 / totalRows);
+    }
+
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+
+    public void setFinishedAt(LocalDateTime finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    @JsonIgnore
+    public boolean isFinished() {
+        return status == Status.DONE || status == Status.FAILED;
+    }
+}
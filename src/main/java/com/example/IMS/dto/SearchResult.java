@@ -0,0 +1,26 @@
+package com.example.IMS.dto;
+
+// One typeahead suggestion: the id the forms submit and the name shown for it
+public class SearchResult {
+
+    private final long id;
+    private final String name;
+
+    public SearchResult(long id, String name) {
+        this.id = id;
+        this.name = name;
+    }
+
+    // Borrowers are indexed by full name; either half may be missing
+    public SearchResult(long id, String firstName, String lastName) {
+        this(id, ((firstName != null ? firstName : "") + " " + (lastName != null ? lastName : "")).trim());
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+}
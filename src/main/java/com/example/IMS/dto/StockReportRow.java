@@ -0,0 +1,38 @@
+package com.example.IMS.dto;
+
+public class StockReportRow {
+
+    private final long id;
+    private final String name;
+    private final String typeName;
+    private final int quantity;
+    private final double price;
+
+    public StockReportRow(long id, String name, String typeName, int quantity, double price) {
+        this.id = id;
+        this.name = name;
+        this.typeName = typeName;
+        this.quantity = quantity;
+        this.price = price;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getTypeName() {
+        return typeName;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public double getPrice() {
+        return price;
+    }
+}
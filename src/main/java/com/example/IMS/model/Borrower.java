@@ -91,6 +91,15 @@ public class Borrower {
 		return totalFine;
 	}
 
+	// Sum of the fines already recorded on the loans, without recalculating them
+	public double outstandingFine() {
+		double outstandingFine = 0;
+		for (Loan l : loan) {
+			outstandingFine += l.getTotalFine();
+		}
+		return outstandingFine;
+	}
+
 	public void updateFine(double finePaid) {
 		double fine = 0;
 		for (Loan l : loan) {
@@ -0,0 +1,32 @@
+package com.example.IMS.model;
+
+import javax.persistence.*;
+
+// Fine still owed by one borrower, maintained by the return, fine payment and loan delete flows
+@Entity
+@Table(name = "report_borrower_fines")
+public class BorrowerFineSummary {
+
+    @Id
+    @Column(name = "borrower_id")
+    private long borrowerId;
+
+    @Column(name = "outstanding_fine")
+    private double outstandingFine;
+
+    public BorrowerFineSummary() {
+    }
+
+    public BorrowerFineSummary(long borrowerId, double outstandingFine) {
+        this.borrowerId = borrowerId;
+        this.outstandingFine = outstandingFine;
+    }
+
+    public long getBorrowerId() {
+        return borrowerId;
+    }
+
+    public double getOutstandingFine() {
+        return outstandingFine;
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.IMS.model;
+
+import javax.persistence.*;
+import java.time.LocalDate;
+
+// Loans issued and returned on one day, maintained by the issue, return and loan delete flows
+@Entity
+@Table(name = "report_daily_loans")
+public class DailyLoanSummary {
+
+    @Id
+    @Column(name = "loan_day")
+    private LocalDate day;
+
+    @Column(name = "issued_count")
+    private long issuedCount;
+
+    @Column(name = "returned_count")
+    private long returnedCount;
+
+    public DailyLoanSummary() {
+    }
+
+    public DailyLoanSummary(LocalDate day, long issuedCount, long returnedCount) {
+        this.day = day;
+        this.issuedCount = issuedCount;
+        this.returnedCount = returnedCount;
+    }
+
+    public LocalDate getDay() {
+        return day;
+    }
+
+    public long getIssuedCount() {
+        return issuedCount;
+    }
+
+    public long getReturnedCount() {
+        return returnedCount;
+    }
+}
@@ -0,0 +1,250 @@
+package com.example.IMS.model;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "dashboard_rollup",
+       uniqueConstraints = @UniqueConstraint(name = "uk_dashboard_rollup_bucket", columnNames = {"resolution", "bucket_start"}))
+public class DashboardRollup {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(name = "resolution", length = 10)
+    private RollupResolution resolution;
+    
+    @Column(name = "bucket_start")
+    private LocalDateTime bucketStart;
+    
+    // Time of the newest sample in the bucket, which is where the "last" values come from
+    @Column(name = "last_sample_at")
+    private LocalDateTime lastSampleAt;
+    
+    @Column(name = "sample_count")
+    private long sampleCount;
+    
+    @Column(name = "items_borrowed_min")
+    private long itemsBorrowedMin;
+    
+    @Column(name = "items_borrowed_max")
+    private long itemsBorrowedMax;
+    
+    @Column(name = "items_borrowed_last")
+    private long itemsBorrowedLast;
+    
+    @Column(name = "items_returned_min")
+    private long itemsReturnedMin;
+    
+    @Column(name = "items_returned_max")
+    private long itemsReturnedMax;
+    
+    @Column(name = "items_returned_last")
+    private long itemsReturnedLast;
+    
+    @Column(name = "inventory_remaining_min")
+    private long inventoryRemainingMin;
+    
+    @Column(name = "inventory_remaining_max")
+    private long inventoryRemainingMax;
+    
+    @Column(name = "inventory_remaining_last")
+    private long inventoryRemainingLast;
+    
+    @Column(name = "items_issued_min")
+    private long itemsIssuedMin;
+    
+    @Column(name = "items_issued_max")
+    private long itemsIssuedMax;
+    
+    @Column(name = "items_issued_last")
+    private long itemsIssuedLast;
+    
+    public DashboardRollup() {
+    }
+    
+    public DashboardRollup(RollupResolution resolution, LocalDateTime bucketStart) {
+        this.resolution = resolution;
+        this.bucketStart = bucketStart;
+    }
+    
+    // A raw snapshot is a bucket holding a single sample
+    public static DashboardRollup fromSnapshot(DashboardSnapshot snapshot) {
+        DashboardRollup sample = new DashboardRollup(null, snapshot.getTimestamp());
+        sample.lastSampleAt = snapshot.getTimestamp();
+        sample.sampleCount = 1;
+        sample.itemsBorrowedMin = sample.itemsBorrowedMax = sample.itemsBorrowedLast = snapshot.getItemsBorrowed();
+        sample.itemsReturnedMin = sample.itemsReturnedMax = sample.itemsReturnedLast = snapshot.getItemsReturned();
+        sample.inventoryRemainingMin = sample.inventoryRemainingMax = sample.inventoryRemainingLast = snapshot.getInventoryRemaining();
+        sample.itemsIssuedMin = sample.itemsIssuedMax = sample.itemsIssuedLast = snapshot.getItemsIssued();
+        return sample;
+    }
+    
+    // Folds a finer-grained bucket into this one; sources must be merged in time order
+    public void merge(DashboardRollup source) {
+        if (sampleCount == 0) {
+            itemsBorrowedMin = source.itemsBorrowedMin;
+            itemsBorrowedMax = source.itemsBorrowedMax;
+            itemsReturnedMin = source.itemsReturnedMin;
+            itemsReturnedMax = source.itemsReturnedMax;
+            inventoryRemainingMin = source.inventoryRemainingMin;
+            inventoryRemainingMax = source.inventoryRemainingMax;
+            itemsIssuedMin = source.itemsIssuedMin;
+            itemsIssuedMax = source.itemsIssuedMax;
+        } else {
+            itemsBorrowedMin = Math.min(itemsBorrowedMin, source.itemsBorrowedMin);
+            itemsBorrowedMax = Math.max(itemsBorrowedMax, source.itemsBorrowedMax);
+            itemsReturnedMin = Math.min(itemsReturnedMin, source.itemsReturnedMin);
+            itemsReturnedMax = Math.max(itemsReturnedMax, source.itemsReturnedMax);
+            inventoryRemainingMin = Math.min(inventoryRemainingMin, source.inventoryRemainingMin);
+            inventoryRemainingMax = Math.max(inventoryRemainingMax, source.inventoryRemainingMax);
+            itemsIssuedMin = Math.min(itemsIssuedMin, source.itemsIssuedMin);
+            itemsIssuedMax = Math.max(itemsIssuedMax, source.itemsIssuedMax);
+        }
+        itemsBorrowedLast = source.itemsBorrowedLast;
+        itemsReturnedLast = source.itemsReturnedLast;
+        inventoryRemainingLast = source.inventoryRemainingLast;
+        itemsIssuedLast = source.itemsIssuedLast;
+        lastSampleAt = source.lastSampleAt;
+        sampleCount += source.sampleCount;
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public RollupResolution getResolution() {
+        return resolution;
+    }
+
+    public void setResolution(RollupResolution resolution) {
+        this.resolution = resolution;
+    }
+
+    public LocalDateTime getBucketStart() {
+        return bucketStart;
+    }
+
+    public void setBucketStart(LocalDateTime bucketStart) {
+        this.bucketStart = bucketStart;
+    }
+
+    public LocalDateTime getLastSampleAt() {
+        return lastSampleAt;
+    }
+
+    public void setLastSampleAt(LocalDateTime lastSampleAt) {
+        this.lastSampleAt = lastSampleAt;
+    }
+
+    public long getSampleCount() {
+        return sampleCount;
+    }
+
+    public void setSampleCount(long sampleCount) {
+        this.sampleCount = sampleCount;
+    }
+
+    public long getItemsBorrowedMin() {
+        return itemsBorrowedMin;
+    }
+
+    public void setItemsBorrowedMin(long itemsBorrowedMin) {
+        this.itemsBorrowedMin = itemsBorrowedMin;
+    }
+
+    public long getItemsBorrowedMax() {
+        return itemsBorrowedMax;
+    }
+
+    public void setItemsBorrowedMax(long itemsBorrowedMax) {
+        this.itemsBorrowedMax = itemsBorrowedMax;
+    }
+
+    public long getItemsBorrowedLast() {
+        return itemsBorrowedLast;
+    }
+
+    public void setItemsBorrowedLast(long itemsBorrowedLast) {
+        this.itemsBorrowedLast = itemsBorrowedLast;
+    }
+
+    public long getItemsReturnedMin() {
+        return itemsReturnedMin;
+    }
+
+    public void setItemsReturnedMin(long itemsReturnedMin) {
+        this.itemsReturnedMin = itemsReturnedMin;
+    }
+
+    public long getItemsReturnedMax() {
+        return itemsReturnedMax;
+    }
+
+    public void setItemsReturnedMax(long itemsReturnedMax) {
+        this.itemsReturnedMax = itemsReturnedMax;
+    }
+
+    public long getItemsReturnedLast() {
+        return itemsReturnedLast;
+    }
+
+    public void setItemsReturnedLast(long itemsReturnedLast) {
+        this.itemsReturnedLast = itemsReturnedLast;
+    }
+
+    public long getInventoryRemainingMin() {
+        return inventoryRemainingMin;
+    }
+
+    public void setInventoryRemainingMin(long inventoryRemainingMin) {
+        this.inventoryRemainingMin = inventoryRemainingMin;
+    }
+
+    public long getInventoryRemainingMax() {
+        return inventoryRemainingMax;
+    }
+
+    public void setInventoryRemainingMax(long inventoryRemainingMax) {
+        this.inventoryRemainingMax = inventoryRemainingMax;
+    }
+
+    public long getInventoryRemainingLast() {
+        return inventoryRemainingLast;
+    }
+
+    public void setInventoryRemainingLast(long inventoryRemainingLast) {
+        this.inventoryRemainingLast = inventoryRemainingLast;
+    }
+
+    public long getItemsIssuedMin() {
+        return itemsIssuedMin;
+    }
+
+    public void setItemsIssuedMin(long itemsIssuedMin) {
+        this.itemsIssuedMin = itemsIssuedMin;
+    }
+
+    public long getItemsIssuedMax() {
+        return itemsIssuedMax;
+    }
+
+    public void setItemsIssuedMax(long itemsIssuedMax) {
+        this.itemsIssuedMax = itemsIssuedMax;
+    }
+
+    public long getItemsIssuedLast() {
+        return itemsIssuedLast;
+    }
+
+    public void setItemsIssuedLast(long itemsIssuedLast) {
+        this.itemsIssuedLast = itemsIssuedLast;
+    }
+}
@@ -4,7 +4,7 @@ import javax.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "dashboard_snapshot")
+@Table(name = "dashboard_snapshot", indexes = @Index(name = "idx_dashboard_snapshot_timestamp", columnList = "timestamp"))
 public class DashboardSnapshot {
     
     @Id
@@ -2,6 +2,7 @@ package com.example.IMS.model;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 
 import javax.persistence.Column;
 import javax.persistence.Entity;
@@ -9,17 +10,33 @@ import javax.persistence.FetchType;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.JoinColumn;
 import javax.persistence.OneToMany;
 import javax.persistence.OneToOne;
+import javax.persistence.PrePersist;
+import javax.persistence.PreUpdate;
 import javax.persistence.Table;
+import javax.persistence.TableGenerator;
+import javax.persistence.UniqueConstraint;
 
 @Entity
-@Table(name = "Inventory_item")
+@Table(name = "Inventory_item", indexes = {
+		@Index(name = "idx_item_name_id", columnList = "item_name, item_id"),
+		@Index(name = "idx_item_quantity_id", columnList = "item_quantity, item_id"),
+		@Index(name = "idx_item_price_id", columnList = "item_price, item_id"),
+		@Index(name = "idx_item_type", columnList = "item_type_fk") }, uniqueConstraints = @UniqueConstraint(
+				name = "uk_item_name_type", columnNames = { "normalized_name", "item_type_fk" }))
 public class Item {
 
+	// Ids handed out this many at a time from the id_generator table
+	public static final int ID_ALLOCATION_SIZE = 500;
+
+	// Pooled rather than IDENTITY ids, so that Hibernate can batch item inserts
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.TABLE, generator = "item_id")
+	@TableGenerator(name = "item_id", table = "id_generator", pkColumnName = "sequence_name",
+			valueColumnName = "next_val", pkColumnValue = "item", allocationSize = ID_ALLOCATION_SIZE)
 	@Column(name = "item_id")
 	private long id;
 
@@ -35,6 +52,10 @@ public class Item {
 	@Column(name = "item_name")
 	private String name;
 
+	// Lower-cased name with spaces collapsed; two items of one type may not share it
+	@Column(name = "normalized_name")
+	private String normalizedName;
+
 	@Column(name = "item_invoice_number")
 	private long invoiceNumber;
 
@@ -87,6 +108,21 @@ public class Item {
 
 	public void setName(String name) {
 		this.name = name;
+		this.normalizedName = normalizeName(name);
+	}
+
+	public String getNormalizedName() {
+		return normalizedName;
+	}
+
+	@PrePersist
+	@PreUpdate
+	private void updateNormalizedName() {
+		normalizedName = normalizeName(name);
+	}
+
+	public static String normalizeName(String name) {
+		return name != null ? name.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT) : null;
 	}
 
 	public long getInvoiceNumber() {
@@ -0,0 +1,32 @@
+package com.example.IMS.model;
+
+import javax.persistence.*;
+
+// Number of loans currently out for one item, maintained by the issue and return flows
+@Entity
+@Table(name = "report_item_loans")
+public class ItemLoanSummary {
+
+    @Id
+    @Column(name = "item_id")
+    private long itemId;
+
+    @Column(name = "active_loans")
+    private long activeLoans;
+
+    public ItemLoanSummary() {
+    }
+
+    public ItemLoanSummary(long itemId, long activeLoans) {
+        this.itemId = itemId;
+        this.activeLoans = activeLoans;
+    }
+
+    public long getItemId() {
+        return itemId;
+    }
+
+    public long getActiveLoans() {
+        return activeLoans;
+    }
+}
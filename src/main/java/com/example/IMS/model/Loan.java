@@ -1,7 +1,7 @@
 package com.example.IMS.model;
 
+import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
-import java.util.Date;
 
 import javax.persistence.Column;
 import javax.persistence.Entity;
@@ -9,27 +9,55 @@ import javax.persistence.FetchType;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.ManyToOne;
+import javax.persistence.PostLoad;
 import javax.persistence.Table;
+import javax.persistence.TableGenerator;
 
 import com.example.IMS.Utilities.Helper;
 
 @Entity
-@Table(name = "Loan")
+@Table(name = "Loan", indexes = {
+		@Index(name = "idx_loan_issued_at", columnList = "issued_at"),
+		@Index(name = "idx_loan_due_at", columnList = "due_at"),
+		@Index(name = "idx_loan_returned_at", columnList = "returned_at"),
+		@Index(name = "idx_loan_item", columnList = "item_item_id"),
+		@Index(name = "idx_loan_borrower", columnList = "borrower_borrower_id") })
 public class Loan {
+	// Ids handed out this many at a time from the id_generator table
+	public static final int ID_ALLOCATION_SIZE = 100;
+
+	// Pooled rather than IDENTITY ids, so that Hibernate can batch loan inserts
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.TABLE, generator = "loan_id")
+	@TableGenerator(name = "loan_id", table = "id_generator", pkColumnName = "sequence_name",
+			valueColumnName = "next_val", pkColumnValue = "loan", allocationSize = ID_ALLOCATION_SIZE)
 	@Column(name = "loan_id")
 	private long id;
 
 	@Column(name = "loan_duration")
 	private long loanDuration;
 
+	@Column(name = "issued_at")
+	private LocalDateTime issueDate;
+
+	// The issue date plus the loan duration, stored so that due dates can be filtered and sorted in SQL
+	@Column(name = "due_at")
+	private LocalDateTime dueDate;
+
+	// Null while the item is still out
+	@Column(name = "returned_at")
+	private LocalDateTime returnDate;
+
+	// The "yyyy/MM/dd HH:mm:ss" string columns the dates were kept in before. They are still
+	// written so that instances of the previous release keep working during a rolling upgrade,
+	// and can be dropped once every instance runs this one; see LoanDateMigration.
 	@Column(name = "issue_date")
-	private String issueDate;
+	private String legacyIssueDate;
 
 	@Column(name = "return_date")
-	private String returnDate;
+	private String legacyReturnDate;
 
 	@Column(name = "total_fine")
 	private double totalFine;
@@ -48,12 +76,17 @@ public class Loan {
 		this.id = id;
 	}
 
-	public String getReturnDate() {
+	public LocalDateTime getReturnDate() {
 		return returnDate;
 	}
 
-	public void setReturnDate(String returnDate) {
+	public void setReturnDate(LocalDateTime returnDate) {
 		this.returnDate = returnDate;
+		legacyReturnDate = Helper.formatDateTime(returnDate);
+	}
+
+	public boolean isReturned() {
+		return returnDate != null;
 	}
 
 	public double getTotalFine() {
@@ -72,12 +105,18 @@ public class Loan {
 		return borrower;
 	}
 
-	public String getIssueDate() {
+	public LocalDateTime getIssueDate() {
 		return issueDate;
 	}
 
-	public void setIssueDate(String issueDate) {
+	public void setIssueDate(LocalDateTime issueDate) {
 		this.issueDate = issueDate;
+		legacyIssueDate = issueDate != null ? Helper.formatDateTime(issueDate) : null;
+		updateDueDate();
+	}
+
+	public LocalDateTime getDueDate() {
+		return dueDate;
 	}
 
 	public long getLoanDuration() {
@@ -86,6 +125,7 @@ public class Loan {
 
 	public void setLoanDuration(long loanDuration) {
 		this.loanDuration = loanDuration;
+		updateDueDate();
 	}
 
 	public void setItem(Item item) {
@@ -98,21 +138,42 @@ public class Loan {
 	}
 
 	public void setReturnDate() {
-		returnDate = Helper.getCurrentTime();
+		setReturnDate(Helper.now());
+	}
+
+	private void updateDueDate() {
+		dueDate = issueDate != null ? issueDate.plusDays(loanDuration) : null;
+	}
+
+	// A loan written by the previous release and not yet reached by the migration only has the
+	// string columns; its dates are read from them, and reach the typed columns when it is next flushed
+	@PostLoad
+	private void readLegacyDates() {
+		if (issueDate == null && legacyIssueDate != null) {
+			issueDate = Helper.parseDateTime(legacyIssueDate);
+			updateDueDate();
+		}
+		if (returnDate == null && legacyReturnDate != null) {
+			returnDate = Helper.parseDateTime(legacyReturnDate);
+		}
 	}
 
 	public double calculateFine() {
+		totalFine = fineIfReturnedAt(returnDate);
+		return totalFine;
+	}
+
+	// The fine for returning the loan at returnDate, or 0 for null, without changing the loan
+	public double fineIfReturnedAt(LocalDateTime returnDate) {
 		double _totalFine = 0;
 		double fineRate = 0;
 		try {
-			if (!returnDate.isEmpty()) {
+			if (returnDate != null) {
 				if (item.getItemType().getTypeName().equalsIgnoreCase("High Precedence")) {
 					fineRate = Helper.highPrecedenceFineRate;
 				}
 				fineRate = Helper.lowPrecedenceFineRate;
-				Date _issueDate = Helper.convertStringToDate(issueDate);
-				Date _returnDate = Helper.convertStringToDate(returnDate);
-				long daysBetween = ChronoUnit.DAYS.between(_issueDate.toInstant(), _returnDate.toInstant());
+				long daysBetween = ChronoUnit.DAYS.between(issueDate, returnDate);
 				if (daysBetween > 0) {
 					_totalFine = daysBetween * fineRate;
 				} else {
@@ -122,7 +183,6 @@ public class Loan {
 		} catch (NullPointerException e) {
 			System.out.println("Null Pointer Exception Caught");
 		}
-		totalFine = _totalFine;
 		return _totalFine;
 	}
 
@@ -0,0 +1,34 @@
+package com.example.IMS.model;
+
+import javax.persistence.*;
+
+// Single row bumped on every vendor or item type write, so each instance can tell its reference data cache is stale
+@Entity
+@Table(name = "reference_data_version")
+public class ReferenceDataVersion {
+
+    public static final long ROW_ID = 1;
+
+    @Id
+    @Column(name = "id")
+    private long id;
+
+    @Column(name = "version")
+    private long version;
+
+    public ReferenceDataVersion() {
+    }
+
+    public ReferenceDataVersion(long id, long version) {
+        this.id = id;
+        this.version = version;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+}
@@ -1,8 +1,14 @@
 package com.example.IMS.model;
 
+import com.example.IMS.config.SecondLevelCacheConfig;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
 import javax.persistence.*;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = SecondLevelCacheConfig.ROLE_REGION)
 @Table(name = "roles")
 public class Role {
     
@@ -0,0 +1,30 @@
+package com.example.IMS.model;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+public enum RollupResolution {
+    MINUTE(ChronoUnit.MINUTES, "MMM d HH:mm"),
+    HOUR(ChronoUnit.HOURS, "MMM d HH:00"),
+    DAY(ChronoUnit.DAYS, "MMM d");
+
+    private final ChronoUnit unit;
+    private final String labelPattern;
+
+    RollupResolution(ChronoUnit unit, String labelPattern) {
+        this.unit = unit;
+        this.labelPattern = labelPattern;
+    }
+
+    public ChronoUnit getUnit() {
+        return unit;
+    }
+
+    public String getLabelPattern() {
+        return labelPattern;
+    }
+
+    public LocalDateTime bucketStart(LocalDateTime time) {
+        return time.truncatedTo(unit);
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.IMS.model;
+
+import javax.persistence.*;
+
+// Single row holding the last stock journal record applied to the item table, so replaying the journal after a crash never applies a record twice
+@Entity
+@Table(name = "stock_journal_checkpoint")
+public class StockJournalCheckpoint {
+
+    public static final long ROW_ID = 1;
+
+    @Id
+    @Column(name = "id")
+    private long id;
+
+    @Column(name = "last_sequence")
+    private long lastSequence;
+
+    public StockJournalCheckpoint() {
+    }
+
+    public StockJournalCheckpoint(long id, long lastSequence) {
+        this.id = id;
+        this.lastSequence = lastSequence;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public long getLastSequence() {
+        return lastSequence;
+    }
+}
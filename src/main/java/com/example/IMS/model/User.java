@@ -36,6 +36,8 @@ public class User {
     @Column(nullable = false)
     private boolean enabled = true;
     
+    // Read at every login along with the user row and never cached, so a password change or a
+    // revoked role applies at the next login on every instance
     @ManyToMany(fetch = FetchType.EAGER)
     @JoinTable(
         name = "user_roles",
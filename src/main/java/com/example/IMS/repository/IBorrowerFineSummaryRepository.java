@@ -0,0 +1,18 @@
+package com.example.IMS.repository;
+
+import com.example.IMS.model.BorrowerFineSummary;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface IBorrowerFineSummaryRepository extends JpaRepository<BorrowerFineSummary, Long> {
+
+    @Modifying
+    @Transactional
+    @Query("update BorrowerFineSummary s set s.outstandingFine = s.outstandingFine + :delta where s.borrowerId = :borrowerId")
+    int addFine(@Param("borrowerId") long borrowerId, @Param("delta") double delta);
+}
@@ -1,9 +1,19 @@
 package com.example.IMS.repository;
 
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import com.example.IMS.dto.SearchResult;
 import com.example.IMS.model.Borrower;
 
 public interface IBorrowerRepository extends JpaRepository<Borrower, Long> {
 
+	// Names for the search index, read in id order a chunk at a time
+	@Query("select new com.example.IMS.dto.SearchResult(b.id, b.firstName, b.lastName) from Borrower b "
+			+ "where b.id > :afterId order by b.id")
+	List<SearchResult> findSearchEntries(@Param("afterId") long afterId, Pageable chunk);
 }
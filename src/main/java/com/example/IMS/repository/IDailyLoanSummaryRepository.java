@@ -0,0 +1,27 @@
+package com.example.IMS.repository;
+
+import com.example.IMS.model.DailyLoanSummary;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface IDailyLoanSummaryRepository extends JpaRepository<DailyLoanSummary, LocalDate> {
+
+    @Modifying
+    @Transactional
+    @Query("update DailyLoanSummary s set s.issuedCount = s.issuedCount + :issued, "
+            + "s.returnedCount = s.returnedCount + :returned where s.day = :day")
+    int addCounts(@Param("day") LocalDate day, @Param("issued") long issued, @Param("returned") long returned);
+
+    @Query("select coalesce(sum(s.issuedCount), 0) from DailyLoanSummary s where s.day >= :from and s.day <= :to")
+    long sumIssued(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    List<DailyLoanSummary> findByDayBetweenOrderByDayAsc(LocalDate from, LocalDate to);
+}
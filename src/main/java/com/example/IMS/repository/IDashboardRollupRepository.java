@@ -0,0 +1,28 @@
+package com.example.IMS.repository;
+
+import com.example.IMS.model.DashboardRollup;
+import com.example.IMS.model.RollupResolution;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface IDashboardRollupRepository extends JpaRepository<DashboardRollup, Long> {
+    DashboardRollup findFirstByResolutionOrderByBucketStartDesc(RollupResolution resolution);
+    DashboardRollup findFirstByResolutionAndBucketStartGreaterThanEqualOrderByBucketStartAsc(
+            RollupResolution resolution, LocalDateTime from);
+    List<DashboardRollup> findByResolutionAndBucketStartGreaterThanEqualAndBucketStartLessThanOrderByBucketStartAsc(
+            RollupResolution resolution, LocalDateTime from, LocalDateTime to, Pageable pageable);
+
+    @Modifying
+    @Transactional
+    @Query("delete from DashboardRollup r where r.resolution = :resolution and r.bucketStart < :cutoff")
+    int deleteOlderThan(@Param("resolution") RollupResolution resolution, @Param("cutoff") LocalDateTime cutoff);
+}
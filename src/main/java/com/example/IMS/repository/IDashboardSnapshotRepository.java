@@ -1,8 +1,13 @@
 package com.example.IMS.repository;
 
 import com.example.IMS.model.DashboardSnapshot;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -10,5 +15,14 @@ import java.util.List;
 @Repository
 public interface IDashboardSnapshotRepository extends JpaRepository<DashboardSnapshot, Long> {
     List<DashboardSnapshot> findTop20ByOrderByTimestampDesc();
-    List<DashboardSnapshot> findByTimestampAfterOrderByTimestampAsc(LocalDateTime timestamp);
+    List<DashboardSnapshot> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+    DashboardSnapshot findTopByOrderByIdDesc();
+    List<DashboardSnapshot> findByTimestampGreaterThanEqualAndTimestampLessThanOrderByTimestampAsc(
+            LocalDateTime from, LocalDateTime to, Pageable pageable);
+    DashboardSnapshot findFirstByTimestampGreaterThanEqualOrderByTimestampAsc(LocalDateTime from);
+
+    @Modifying
+    @Transactional
+    @Query("delete from DashboardSnapshot s where s.timestamp < :cutoff")
+    int deleteOlderThan(@Param("cutoff") LocalDateTime cutoff);
 }
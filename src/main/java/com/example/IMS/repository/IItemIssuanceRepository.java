@@ -1,9 +1,44 @@
 package com.example.IMS.repository;
 
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.example.IMS.dto.ItemIssuanceDto;
 import com.example.IMS.model.Loan;
 
 public interface IItemIssuanceRepository extends JpaRepository<Loan, Long> {
 
+	// One chunk of the loans not yet returned, continuing after the loan with id afterId
+	@Query("select new com.example.IMS.dto.ItemIssuanceDto(l.id, l.item.id, l.borrower.id, l.loanDuration, "
+			+ "l.totalFine, l.issueDate, l.dueDate, l.returnDate) from Loan l "
+			+ "where l.returnDate is null and l.id > :afterId order by l.id")
+	List<ItemIssuanceDto> findIssuedItemRows(@Param("afterId") long afterId, Pageable chunk);
+
+	List<Loan> findByReturnDateIsNullOrderById();
+
+	List<Loan> findByReturnDateIsNotNullOrderById();
+
+	List<Loan> findByTotalFineGreaterThanOrderById(double totalFine);
+
+	// The borrower's oldest open loan of the item
+	Optional<Loan> findFirstByBorrowerIdAndItemIdAndReturnDateIsNullOrderById(long borrowerId, long itemId);
+
+	// Closes the loan unless it was returned meanwhile, here or by an instance still writing only
+	// the string column; 1 if this call closed it
+	@Modifying
+	@Transactional
+	@Query("update Loan l set l.returnDate = :returnDate, l.legacyReturnDate = :legacyReturnDate, "
+			+ "l.totalFine = :totalFine where l.id = :id and l.returnDate is null "
+			+ "and (l.legacyReturnDate is null or l.legacyReturnDate = '')")
+	int closeLoan(@Param("id") long id, @Param("returnDate") LocalDateTime returnDate,
+			@Param("legacyReturnDate") String legacyReturnDate, @Param("totalFine") double totalFine);
+
 }
@@ -0,0 +1,21 @@
+package com.example.IMS.repository;
+
+import com.example.IMS.model.ItemLoanSummary;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface IItemLoanSummaryRepository extends JpaRepository<ItemLoanSummary, Long> {
+
+    @Modifying
+    @Transactional
+    @Query("update ItemLoanSummary s set s.activeLoans = s.activeLoans + :delta where s.itemId = :itemId")
+    int addActiveLoans(@Param("itemId") long itemId, @Param("delta") long delta);
+
+    @Query("select coalesce(sum(s.activeLoans), 0) from ItemLoanSummary s")
+    long sumActiveLoans();
+}
@@ -1,11 +1,101 @@
 package com.example.IMS.repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import javax.persistence.QueryHint;
+
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.example.IMS.dto.ItemDto;
+import com.example.IMS.dto.SearchResult;
+import com.example.IMS.dto.StockReportRow;
 import com.example.IMS.model.Item;
 
 @Repository
 public interface IItemRepository extends JpaRepository<Item, Long> {
 
+	// Served by the (normalized_name, item_type_fk) unique index
+	@Query("select count(i) > 0 from Item i join i.itemType t "
+			+ "where i.normalizedName = :normalizedName and lower(t.typeName) = lower(:typeName)")
+	boolean existsByNormalizedNameAndType(@Param("normalizedName") String normalizedName,
+			@Param("typeName") String typeName);
+
+	// Used to fill in normalized names for items saved before they existed
+	List<Item> findByNormalizedNameIsNullOrderByIdAsc(Pageable page);
+
+	boolean existsByNormalizedNameAndItemTypeId(String normalizedName, long itemTypeId);
+
+	List<Item> findByIdGreaterThanOrderByIdAsc(long afterId, Pageable chunk);
+
+	// [quantity, item type name] of one item as stored, so the dashboard can apply edits as deltas
+	@Query("select i.quantity, t.typeName from Item i left join i.itemType t where i.id = :id")
+	List<Object[]> findStockLevel(@Param("id") long id);
+
+	// Stock changes made in place by the database, so concurrent issues and returns neither
+	// lose updates nor wait on a lock held across a read; 0 rows means the item is out of stock or gone
+	@Modifying
+	@Transactional
+	@Query("update Item i set i.quantity = i.quantity - 1 where i.id = :id and i.quantity > 0")
+	int takeOne(@Param("id") long id);
+
+	@Modifying
+	@Transactional
+	@Query("update Item i set i.quantity = i.quantity + 1 where i.id = :id")
+	int returnOne(@Param("id") long id);
+
+	// The same for several units at once, as the batch issue and return take them
+	@Modifying
+	@Transactional
+	@Query("update Item i set i.quantity = i.quantity - :count where i.id = :id and i.quantity >= :count")
+	int takeStock(@Param("id") long id, @Param("count") int count);
+
+	@Modifying
+	@Transactional
+	@Query("update Item i set i.quantity = i.quantity + :count where i.id = :id")
+	int returnStock(@Param("id") long id, @Param("count") int count);
+
+	@Query("select i.quantity from Item i where i.id = :id")
+	Optional<Integer> findQuantity(@Param("id") long id);
+
+	// Aggregates behind the dashboard and report counters, computed by the database
+	@Query("select t.typeName, count(i) from Item i left join i.itemType t group by t.id, t.typeName")
+	List<Object[]> countItemsByType();
+
+	@Query("select coalesce(sum(i.quantity), 0) from Item i")
+	long sumQuantity();
+
+	long countByQuantityLessThan(int quantity);
+
+	// Low stock items, lowest quantity first
+	@Query("select i from Item i where i.quantity < :threshold order by i.quantity, i.id")
+	List<Item> findLowStock(@Param("threshold") int threshold, Pageable limit);
+
+	// One chunk of the item list page, continuing after the item with id afterId
+	@Query("select new com.example.IMS.dto.ItemDto(i.id, i.quantity, i.price, i.fineRate, i.name, i.invoiceNumber, "
+			+ "coalesce(t.typeName, '-'), coalesce(v.name, '-')) "
+			+ "from Item i left join i.itemType t left join i.vendor v where i.id > :afterId order by i.id")
+	List<ItemDto> findItemRows(@Param("afterId") long afterId, Pageable chunk);
+
+	// Normalized name and type id of the items holding any of these names, for the bulk import duplicate check
+	@Query("select i.normalizedName, t.id from Item i left join i.itemType t where i.normalizedName in :names")
+	List<Object[]> findNameKeys(@Param("names") Collection<String> names);
+
+	// Names for the search index, read in id order a chunk at a time
+	@Query("select new com.example.IMS.dto.SearchResult(i.id, i.name) from Item i where i.id > :afterId order by i.id")
+	List<SearchResult> findSearchEntries(@Param("afterId") long afterId, Pageable chunk);
+
+	@QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "500"))
+	@Query("select new com.example.IMS.dto.StockReportRow(i.id, i.name, t.typeName, i.quantity, i.price) "
+			+ "from Item i left join i.itemType t order by i.id")
+	Stream<StockReportRow> streamStockRows();
 }
@@ -1,12 +1,88 @@
 package com.example.IMS.repository;
 
+import com.example.IMS.dto.BorrowedItemRow;
+import com.example.IMS.dto.IssuedItemRow;
 import com.example.IMS.model.Loan;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+
+import javax.persistence.QueryHint;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface ILoanRepository extends JpaRepository<Loan, Long> {
     List<Loan> findByBorrowerId(Long borrowerId);
     List<Loan> findByItemId(Long itemId);
+
+    // Read straight from the loan's foreign key columns, without loading the item or borrower
+    @Query("select l.item.id from Loan l where l.id = :loanId")
+    Optional<Long> findItemIdByLoanId(@Param("loanId") long loanId);
+
+    @Query("select l.borrower.id from Loan l where l.id = :loanId")
+    Optional<Long> findBorrowerIdByLoanId(@Param("loanId") long loanId);
+
+    @Query("select count(l) from Loan l where l.returnDate is null")
+    long countActiveLoans();
+
+    // A borrower's open loans of any of these items, oldest first, with what the fine is computed from.
+    // Read-only: they are closed with a guarded update rather than by flushing the entities
+    @QueryHints(@QueryHint(name = "org.hibernate.readOnly", value = "true"))
+    @Query("select l from Loan l join fetch l.borrower join fetch l.item i left join fetch i.itemType "
+            + "where l.borrower.id = :borrowerId and i.id in :itemIds "
+            + "and l.returnDate is null and (l.legacyReturnDate is null or l.legacyReturnDate = '') order by l.id")
+    List<Loan> findOpenLoans(@Param("borrowerId") long borrowerId, @Param("itemIds") Collection<Long> itemIds);
+
+    @Query("select count(l) from Loan l where l.issueDate >= :from and l.issueDate < :to")
+    long countIssuedBetween(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    // Report rows are read in chunks, each starting after the last row of the one before
+    @Query("select new com.example.IMS.dto.BorrowedItemRow(l.id, i.name, b.firstName, b.lastName, b.email, "
+            + "l.issueDate, l.dueDate, l.totalFine) "
+            + "from Loan l join l.item i join l.borrower b "
+            + "where l.returnDate is null and l.id > :afterId order by l.id")
+    List<BorrowedItemRow> findBorrowedItemRows(@Param("afterId") long afterId, Pageable chunk);
+
+    // Ordered by (issue date, id); the first chunk starts from the range start with afterId -1
+    @Query("select new com.example.IMS.dto.IssuedItemRow(l.id, i.name, b.firstName, b.lastName, "
+            + "l.issueDate, l.returnDate, l.totalFine) "
+            + "from Loan l join l.item i join l.borrower b "
+            + "where l.issueDate >= :afterDate and l.issueDate < :to "
+            + "and (l.issueDate > :afterDate or l.id > :afterId) order by l.issueDate, l.id")
+    List<IssuedItemRow> findIssuedItemRows(@Param("afterDate") LocalDateTime afterDate, @Param("afterId") long afterId,
+                                           @Param("to") LocalDateTime to, Pageable chunk);
+
+    // Aggregates the report summary tables are rebuilt and checked against
+    @Query("select l.item.id, count(l) from Loan l "
+            + "where l.item is not null and l.returnDate is null group by l.item.id")
+    List<Object[]> countActiveLoansByItem();
+
+    @Query("select l.borrower.id, sum(l.totalFine) from Loan l where l.borrower is not null group by l.borrower.id")
+    List<Object[]> sumFinesByBorrower();
+
+    @Query("select cast(l.issueDate as date), count(l) from Loan l "
+            + "where l.issueDate is not null group by cast(l.issueDate as date)")
+    List<Object[]> countIssuedByDay();
+
+    @Query("select cast(l.returnDate as date), count(l) from Loan l "
+            + "where l.returnDate is not null group by cast(l.returnDate as date)")
+    List<Object[]> countReturnedByDay();
+
+    // Streaming variants for report exports; they must be consumed inside a transaction
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "500"))
+    @Query("select l from Loan l join fetch l.item join fetch l.borrower "
+            + "where l.issueDate >= :from and l.issueDate < :to order by l.issueDate")
+    Stream<Loan> streamIssuedBetween(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "500"))
+    @Query("select l from Loan l join fetch l.item join fetch l.borrower "
+            + "where l.returnDate is null order by l.id")
+    Stream<Loan> streamActiveLoans();
 }
@@ -0,0 +1,22 @@
+package com.example.IMS.repository;
+
+import com.example.IMS.model.ReferenceDataVersion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+@Repository
+public interface IReferenceDataVersionRepository extends JpaRepository<ReferenceDataVersion, Long> {
+
+    @Query("select v.version from ReferenceDataVersion v where v.id = " + ReferenceDataVersion.ROW_ID)
+    Optional<Long> findVersion();
+
+    @Modifying
+    @Transactional
+    @Query("update ReferenceDataVersion v set v.version = v.version + 1 where v.id = " + ReferenceDataVersion.ROW_ID)
+    int bump();
+}
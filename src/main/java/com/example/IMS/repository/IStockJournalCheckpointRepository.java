@@ -0,0 +1,25 @@
+package com.example.IMS.repository;
+
+import com.example.IMS.model.StockJournalCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+@Repository
+public interface IStockJournalCheckpointRepository extends JpaRepository<StockJournalCheckpoint, Long> {
+
+    @Query("select c.lastSequence from StockJournalCheckpoint c where c.id = " + StockJournalCheckpoint.ROW_ID)
+    Optional<Long> findLastSequence();
+
+    // Joins the transaction that applies the records, so both commit together
+    @Modifying
+    @Transactional
+    @Query("update StockJournalCheckpoint c set c.lastSequence = :sequence "
+            + "where c.id = " + StockJournalCheckpoint.ROW_ID + " and c.lastSequence < :sequence")
+    int advance(@Param("sequence") long sequence);
+}
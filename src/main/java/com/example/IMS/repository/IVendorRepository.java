@@ -1,11 +1,20 @@
 package com.example.IMS.repository;
 
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.example.IMS.dto.SearchResult;
 import com.example.IMS.model.Vendor;
 
 @Repository
 public interface IVendorRepository extends JpaRepository<Vendor, Long> {
 
+	// Names for the search index, read in id order a chunk at a time
+	@Query("select new com.example.IMS.dto.SearchResult(v.id, v.name) from Vendor v where v.id > :afterId order by v.id")
+	List<SearchResult> findSearchEntries(@Param("afterId") long afterId, Pageable chunk);
 }
@@ -6,9 +6,10 @@ import java.util.Optional;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import com.example.IMS.dto.SearchResult;
 import com.example.IMS.model.Borrower;
-import com.example.IMS.model.Loan;
 import com.example.IMS.repository.IBorrowerRepository;
+import com.example.IMS.repository.ILoanRepository;
 
 @Service
 public class BorrowerService implements IBorrowerService {
@@ -16,6 +17,15 @@ public class BorrowerService implements IBorrowerService {
 	@Autowired
 	private IBorrowerRepository borrowerRepository;
 
+	@Autowired
+	private ILoanRepository loanRepository;
+
+	@Autowired
+	private CachingReportService cachingReportService;
+
+	@Autowired
+	private SearchIndexService searchIndexService;
+
 	@Override
 	public Borrower getBorrowerById(long id) {
 		Optional<Borrower> optional = borrowerRepository.findById(id);
@@ -35,24 +45,7 @@ public class BorrowerService implements IBorrowerService {
 
 	@Override
 	public long getBorrowerIdByLoanId(long loanId) {
-		List<Borrower> borrowerList = getAllBorrowers();
-		List<Loan> loanList;
-		boolean found = false;
-		long borrowerId = -1;
-		for (Borrower borrower : borrowerList) {
-			loanList = borrower.getLoan();
-			for (Loan loan : loanList) {
-				if (loan.getId() == loanId) {
-					borrowerId = borrower.getId();
-					found = true;
-					break;
-				}
-			}
-			if (found) {
-				break;
-			}
-		}
-		return borrowerId;
+		return loanRepository.findBorrowerIdByLoanId(loanId).orElse(-1L);
 	}
 
 	@Override
@@ -68,7 +61,10 @@ public class BorrowerService implements IBorrowerService {
 	@Override
 	public void updateBorrower(Borrower borrower) {
 		borrowerRepository.save(borrower);
-
+		searchIndexService.put(SearchIndexService.Kind.BORROWER, borrower.getId(),
+				new SearchResult(borrower.getId(), borrower.getFirstName(), borrower.getLastName()).getName());
+		// Fine payments are saved through the borrower, with the loan fines flushed alongside it
+		cachingReportService.invalidate(CachingReportService.Region.FINES);
 	}
 
 }
@@ -0,0 +1,198 @@
+package com.example.IMS.service;
+
+import com.example.IMS.Utilities.ChunkedRows;
+import com.example.IMS.dto.BorrowedItemRow;
+import com.example.IMS.dto.DataTablesResponse;
+import com.example.IMS.dto.IssuedItemRow;
+import com.example.IMS.dto.StockPageRequest;
+import com.example.IMS.dto.StockReportRow;
+import com.example.IMS.model.Item;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Serves repeat report requests from memory. Every cached result is tagged with the kinds of
+ * data it was built from, and the item, loan and fine write paths invalidate exactly the
+ * results tagged with what they changed. Results are also dropped after a fixed time to live
+ * and, least recently used first, once the cache is full.
+ */
+@Service
+@Primary
+public class CachingReportService implements IReportService {
+
+    public enum Region {
+        ITEMS, LOANS, FINES
+    }
+
+    private static final Set<Region> ITEM_REPORTS = EnumSet.of(Region.ITEMS);
+    private static final Set<Region> LOAN_COUNTS = EnumSet.of(Region.LOANS);
+    // Loan rows show the item name, the borrower and the fine, which borrower saves also change
+    private static final Set<Region> LOAN_ROWS = EnumSet.of(Region.LOANS, Region.ITEMS, Region.FINES);
+
+    @Autowired
+    private ReportService reportService;
+
+    @Value("${reports.cache.max-entries:200}")
+    private int maxEntries;
+
+    @Value("${reports.cache.ttl-ms:300000}")
+    private long ttlMs;
+
+    private final Map<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            if (size() > maxEntries) {
+                evictions++;
+                return true;
+            }
+            return false;
+        }
+    };
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long invalidations;
+    // Bumped on every invalidation, so a result computed across one is not cached
+    private long generation;
+
+    @Override
+    public List<Item> getItemStockReport() {
+        return cached("stock", ITEM_REPORTS, reportService::getItemStockReport);
+    }
+
+    @Override
+    public DataTablesResponse<StockReportRow> getItemStockPage(StockPageRequest request) {
+        String key = "stock-page:" + request.getStart() + ":" + request.getLength() + ":" + request.getSearch()
+                + ":" + request.getSortColumn() + ":" + request.isDescending()
+                + ":" + request.getAfterValue() + ":" + request.getAfterId()
+                + ":" + request.getBeforeValue() + ":" + request.getBeforeId();
+        DataTablesResponse<StockReportRow> page = cached(key, ITEM_REPORTS, () -> reportService.getItemStockPage(request));
+        // The draw counter is per request, so it is never served from the cache
+        return new DataTablesResponse<>(request.getDraw(), page.getRecordsTotal(), page.getRecordsFiltered(), page.getData());
+    }
+
+    @Override
+    public long getTotalItemsCount() {
+        return cached("total-items", ITEM_REPORTS, reportService::getTotalItemsCount);
+    }
+
+    @Override
+    public long getLowStockItemsCount() {
+        return cached("low-stock", ITEM_REPORTS, reportService::getLowStockItemsCount);
+    }
+
+    // Report rows are read chunk by chunk while the page renders; only the first chunk is cached,
+    // which holds the whole report when it is short and bounds the memory a long one takes
+    @Override
+    public ChunkedRows<IssuedItemRow> getBorrowHistoryReport(LocalDate startDate, LocalDate endDate) {
+        return firstChunkCached("issued-rows:" + startDate + ":" + endDate,
+                reportService.getBorrowHistoryReport(startDate, endDate));
+    }
+
+    @Override
+    public long getTotalLoansCount() {
+        return cached("total-loans", LOAN_COUNTS, reportService::getTotalLoansCount);
+    }
+
+    @Override
+    public ChunkedRows<BorrowedItemRow> getCurrentlyBorrowedItems() {
+        return firstChunkCached("borrowed-rows", reportService.getCurrentlyBorrowedItems());
+    }
+
+    @Override
+    public long getCurrentlyBorrowedCount() {
+        return cached("borrowed-count", LOAN_COUNTS, reportService::getCurrentlyBorrowedCount);
+    }
+
+    @Override
+    public ChunkedRows<IssuedItemRow> getIssuedItemsReport(LocalDate startDate, LocalDate endDate) {
+        return firstChunkCached("issued-rows:" + startDate + ":" + endDate,
+                reportService.getIssuedItemsReport(startDate, endDate));
+    }
+
+    @Override
+    public long getTotalIssuedCount(LocalDate startDate, LocalDate endDate) {
+        return cached("issued-count:" + startDate + ":" + endDate, LOAN_COUNTS,
+                () -> reportService.getTotalIssuedCount(startDate, endDate));
+    }
+
+    public synchronized void invalidate(Region region) {
+        generation++;
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().regions.contains(region)) {
+                iterator.remove();
+                invalidations++;
+            }
+        }
+    }
+
+    public synchronized Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("size", entries.size());
+        metrics.put("maxEntries", maxEntries);
+        metrics.put("ttlMs", ttlMs);
+        metrics.put("hits", hits);
+        metrics.put("misses", misses);
+        metrics.put("evictions", evictions);
+        metrics.put("invalidations", invalidations);
+        long lookups = hits + misses;
+        metrics.put("hitRatio", lookups > 0 ? (double) hits / lookups : 0.0);
+        return metrics;
+    }
+
+    // Later chunks are read live from the last cached row; a change to any of them invalidates the chunk
+    private <T> ChunkedRows<T> firstChunkCached(String key, ChunkedRows<T> rows) {
+        return rows.withFirstChunk(() -> cached(key, LOAN_ROWS, () -> List.copyOf(rows.readFirstChunk())));
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T cached(String key, Set<Region> regions, Supplier<T> loader) {
+        long startGeneration;
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry != null && entry.expiresAt > System.currentTimeMillis()) {
+                hits++;
+                return (T) entry.value;
+            }
+            if (entry != null) {
+                entries.remove(key);
+                evictions++;
+            }
+            misses++;
+            startGeneration = generation;
+        }
+        // Loaded outside the lock so that slow reports do not hold up cached ones
+        T value = loader.get();
+        synchronized (this) {
+            if (generation == startGeneration) {
+                entries.put(key, new Entry(value, regions, System.currentTimeMillis() + ttlMs));
+            }
+        }
+        return value;
+    }
+
+    private static final class Entry {
+        private final Object value;
+        private final Set<Region> regions;
+        private final long expiresAt;
+
+        private Entry(Object value, Set<Region> regions, long expiresAt) {
+            this.value = value;
+            this.regions = regions;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
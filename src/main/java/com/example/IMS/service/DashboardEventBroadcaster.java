@@ -0,0 +1,172 @@
+package com.example.IMS.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Pushes dashboard data points to every open dashboard over Server-Sent Events.
+ * Each client gets a small bounded buffer; when a client falls behind, its oldest
+ * pending events are dropped rather than letting the buffer grow. Every client is
+ * drained by its own task on a small pool, at most one at a time, so a connection
+ * that blocks on a send holds up only its own events and not other dashboards'.
+ * A client that drops a whole buffer's worth of events without a send getting
+ * through is disconnected; its browser reconnects and starts again from the latest point.
+ */
+@Service
+public class DashboardEventBroadcaster {
+
+    @Value("${dashboard.stream.client-buffer-size:32}")
+    private int clientBufferSize;
+
+    @Value("${dashboard.stream.timeout-ms:1800000}")
+    private long timeoutMs;
+
+    @Value("${dashboard.stream.threads:4}")
+    private int threads;
+
+    private final Set<Client> clients = ConcurrentHashMap.newKeySet();
+    private final AtomicLong droppedEvents = new AtomicLong();
+    private final AtomicLong evictedClients = new AtomicLong();
+    private ExecutorService dispatcher;
+
+    @PostConstruct
+    public void start() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        dispatcher = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "dashboard-sse-dispatcher-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public SseEmitter subscribe() {
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Client client = new Client(emitter, clientBufferSize);
+        clients.add(client);
+        emitter.onCompletion(() -> clients.remove(client));
+        emitter.onTimeout(() -> clients.remove(client));
+        emitter.onError(error -> clients.remove(client));
+        return emitter;
+    }
+
+    public void publish(long id, Map<String, Object> point) {
+        enqueue(() -> SseEmitter.event().name("snapshot").id(String.valueOf(id)).data(point));
+    }
+
+    @Scheduled(fixedRateString = "${dashboard.stream.heartbeat-interval-ms:15000}")
+    public void heartbeat() {
+        enqueue(() -> SseEmitter.event().comment("heartbeat"));
+    }
+
+    public int getClientCount() {
+        return clients.size();
+    }
+
+    public long getDroppedEvents() {
+        return droppedEvents.get();
+    }
+
+    public long getEvictedClients() {
+        return evictedClients.get();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        dispatcher.shutdownNow();
+        for (Client client : clients) {
+            client.emitter.complete();
+        }
+        clients.clear();
+    }
+
+    // Builders are single-use, so every client gets its own one from the supplier
+    private void enqueue(Supplier<SseEmitter.SseEventBuilder> event) {
+        for (Client client : clients) {
+            boolean evicted = false;
+            while (!evicted && !client.buffer.offer(event)) {
+                if (client.buffer.poll() != null) {
+                    droppedEvents.incrementAndGet();
+                    evicted = client.overflows.incrementAndGet() > clientBufferSize && evict(client);
+                }
+            }
+            if (!evicted) {
+                schedule(client);
+            }
+        }
+    }
+
+    private void schedule(Client client) {
+        if (client.draining.compareAndSet(false, true)) {
+            try {
+                dispatcher.execute(() -> drain(client));
+            } catch (RejectedExecutionException e) {
+                // Shutting down
+                client.draining.set(false);
+            }
+        }
+    }
+
+    private void drain(Client client) {
+        try {
+            Supplier<SseEmitter.SseEventBuilder> event;
+            while ((event = client.buffer.poll()) != null) {
+                client.emitter.send(event.get());
+                client.overflows.set(0);
+            }
+        } catch (IOException | IllegalStateException e) {
+            clients.remove(client);
+            client.emitter.completeWithError(e);
+            return;
+        } finally {
+            client.draining.set(false);
+        }
+        // An event buffered after the last poll but before the flag was cleared found the client draining
+        if (!client.buffer.isEmpty() && clients.contains(client)) {
+            schedule(client);
+        }
+    }
+
+    // Disconnects a client that has stopped taking events; false if another thread already did
+    private boolean evict(Client client) {
+        if (!clients.remove(client)) {
+            return false;
+        }
+        evictedClients.incrementAndGet();
+        client.buffer.clear();
+        System.out.println("Disconnected a dashboard stream that fell " + clientBufferSize + " events behind");
+        client.emitter.complete();
+        return true;
+    }
+
+    private static final class Client {
+        private final SseEmitter emitter;
+        private final BlockingQueue<Supplier<SseEmitter.SseEventBuilder>> buffer;
+        // Set while a drain task for this client is queued or running
+        private final AtomicBoolean draining = new AtomicBoolean();
+        // Events dropped since a send last got through
+        private final AtomicInteger overflows = new AtomicInteger();
+
+        private Client(SseEmitter emitter, int bufferSize) {
+            this.emitter = emitter;
+            this.buffer = new ArrayBlockingQueue<>(bufferSize);
+        }
+    }
+}
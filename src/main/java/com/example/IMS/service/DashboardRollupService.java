@@ -0,0 +1,210 @@
+package com.example.IMS.service;
+
+import com.example.IMS.model.DashboardRollup;
+import com.example.IMS.model.DashboardSnapshot;
+import com.example.IMS.model.RollupResolution;
+import com.example.IMS.repository.IDashboardRollupRepository;
+import com.example.IMS.repository.IDashboardSnapshotRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Compacts raw dashboard snapshots into minute, hour and day rollups and purges rows past
+ * their retention horizon. Each tier is built from the one below it (raw to minute, minute
+ * to hour, hour to day), only closed buckets are written, and no row is purged before the
+ * next tier up has absorbed it.
+ */
+@Service
+public class DashboardRollupService {
+
+    public static final String RAW = "raw";
+
+    // Buckets compacted per query, which bounds how many source rows are loaded at once
+    private static final int BUCKETS_PER_PASS = 1440;
+    private static final int MAX_HISTORY_POINTS = 2000;
+    private static final LocalDateTime EPOCH = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    @Autowired
+    private IDashboardSnapshotRepository snapshotRepository;
+
+    @Autowired
+    private IDashboardRollupRepository rollupRepository;
+
+    // How long to wait before treating a bucket as closed, so late snapshot writes still land in it
+    @Value("${dashboard.rollup.settle-seconds:30}")
+    private long settleSeconds;
+
+    @Value("${dashboard.retention.raw-days:7}")
+    private long rawRetentionDays;
+
+    @Value("${dashboard.retention.minute-days:30}")
+    private long minuteRetentionDays;
+
+    @Value("${dashboard.retention.hour-days:365}")
+    private long hourRetentionDays;
+
+    @Scheduled(initialDelayString = "${dashboard.rollup.interval-ms:60000}",
+            fixedDelayString = "${dashboard.rollup.interval-ms:60000}")
+    public synchronized void rollup() {
+        LocalDateTime settled = LocalDateTime.now().minusSeconds(settleSeconds);
+        for (RollupResolution resolution : RollupResolution.values()) {
+            compact(resolution, settled);
+        }
+        purge();
+    }
+
+    public List<Map<String, Object>> getHistory(String resolution, LocalDateTime from, LocalDateTime to) {
+        Pageable limit = PageRequest.of(0, MAX_HISTORY_POINTS);
+        LocalDateTime end = to != null ? to : LocalDateTime.now();
+        if (RAW.equalsIgnoreCase(resolution)) {
+            LocalDateTime start = from != null ? from : end.minusDays(1);
+            return snapshotRepository
+                    .findByTimestampGreaterThanEqualAndTimestampLessThanOrderByTimestampAsc(start, end, limit)
+                    .stream()
+                    .map(DashboardTrackingService::toHistoryPoint)
+                    .collect(Collectors.toList());
+        }
+        RollupResolution tier = RollupResolution.valueOf(resolution.toUpperCase());
+        LocalDateTime start = from != null ? from : end.minus(defaultSpan(tier), tier.getUnit());
+        DateTimeFormatter label = DateTimeFormatter.ofPattern(tier.getLabelPattern());
+        return rollupRepository
+                .findByResolutionAndBucketStartGreaterThanEqualAndBucketStartLessThanOrderByBucketStartAsc(tier, start, end, limit)
+                .stream()
+                .map(rollup -> toHistoryPoint(rollup, label))
+                .collect(Collectors.toList());
+    }
+
+    private void compact(RollupResolution resolution, LocalDateTime settled) {
+        LocalDateTime end = resolution.bucketStart(settled);
+        DashboardRollup latest = rollupRepository.findFirstByResolutionOrderByBucketStartDesc(resolution);
+        LocalDateTime from = latest != null ? latest.getBucketStart().plus(1, resolution.getUnit()) : EPOCH;
+        while (true) {
+            // Jump straight to the next source row so that idle periods cost nothing
+            LocalDateTime next = firstSourceTime(resolution, from);
+            if (next == null) {
+                return;
+            }
+            LocalDateTime sliceStart = resolution.bucketStart(next);
+            if (!sliceStart.isBefore(end)) {
+                return;
+            }
+            LocalDateTime sliceEnd = sliceStart.plus(BUCKETS_PER_PASS, resolution.getUnit());
+            if (sliceEnd.isAfter(end)) {
+                sliceEnd = end;
+            }
+            rollupRepository.saveAll(aggregate(resolution, loadSources(resolution, sliceStart, sliceEnd)));
+            from = sliceEnd;
+        }
+    }
+
+    private LocalDateTime firstSourceTime(RollupResolution resolution, LocalDateTime from) {
+        if (resolution == RollupResolution.MINUTE) {
+            DashboardSnapshot snapshot = snapshotRepository.findFirstByTimestampGreaterThanEqualOrderByTimestampAsc(from);
+            return snapshot != null ? snapshot.getTimestamp() : null;
+        }
+        DashboardRollup rollup = rollupRepository
+                .findFirstByResolutionAndBucketStartGreaterThanEqualOrderByBucketStartAsc(sourceTier(resolution), from);
+        return rollup != null ? rollup.getBucketStart() : null;
+    }
+
+    private List<DashboardRollup> loadSources(RollupResolution resolution, LocalDateTime from, LocalDateTime to) {
+        if (resolution == RollupResolution.MINUTE) {
+            return snapshotRepository
+                    .findByTimestampGreaterThanEqualAndTimestampLessThanOrderByTimestampAsc(from, to, Pageable.unpaged())
+                    .stream()
+                    .map(DashboardRollup::fromSnapshot)
+                    .collect(Collectors.toList());
+        }
+        return rollupRepository.findByResolutionAndBucketStartGreaterThanEqualAndBucketStartLessThanOrderByBucketStartAsc(
+                sourceTier(resolution), from, to, Pageable.unpaged());
+    }
+
+    private static List<DashboardRollup> aggregate(RollupResolution resolution, List<DashboardRollup> sources) {
+        Map<LocalDateTime, DashboardRollup> buckets = new LinkedHashMap<>();
+        for (DashboardRollup source : sources) {
+            LocalDateTime bucketStart = resolution.bucketStart(source.getBucketStart());
+            buckets.computeIfAbsent(bucketStart, start -> new DashboardRollup(resolution, start)).merge(source);
+        }
+        return new ArrayList<>(buckets.values());
+    }
+
+    private void purge() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime rawCutoff = retentionCutoff(now.minusDays(rawRetentionDays), RollupResolution.MINUTE);
+        if (rawCutoff != null) {
+            snapshotRepository.deleteOlderThan(rawCutoff);
+        }
+        LocalDateTime minuteCutoff = retentionCutoff(now.minusDays(minuteRetentionDays), RollupResolution.HOUR);
+        if (minuteCutoff != null) {
+            rollupRepository.deleteOlderThan(RollupResolution.MINUTE, minuteCutoff);
+        }
+        LocalDateTime hourCutoff = retentionCutoff(now.minusDays(hourRetentionDays), RollupResolution.DAY);
+        if (hourCutoff != null) {
+            rollupRepository.deleteOlderThan(RollupResolution.HOUR, hourCutoff);
+        }
+    }
+
+    // Never purge past what the next tier up has already compacted
+    private LocalDateTime retentionCutoff(LocalDateTime horizon, RollupResolution nextTier) {
+        DashboardRollup latest = rollupRepository.findFirstByResolutionOrderByBucketStartDesc(nextTier);
+        if (latest == null) {
+            return null;
+        }
+        LocalDateTime compactedUntil = latest.getBucketStart().plus(1, nextTier.getUnit());
+        return horizon.isBefore(compactedUntil) ? horizon : compactedUntil;
+    }
+
+    private static RollupResolution sourceTier(RollupResolution resolution) {
+        return resolution == RollupResolution.DAY ? RollupResolution.HOUR : RollupResolution.MINUTE;
+    }
+
+    private static long defaultSpan(RollupResolution resolution) {
+        switch (resolution) {
+            case MINUTE:
+                return 24 * 60;
+            case HOUR:
+                return 14 * 24;
+            default:
+                return 365;
+        }
+    }
+
+    private static Map<String, Object> toHistoryPoint(DashboardRollup rollup, DateTimeFormatter label) {
+        Map<String, Object> min = new HashMap<>();
+        min.put("itemsBorrowed", rollup.getItemsBorrowedMin());
+        min.put("itemsReturned", rollup.getItemsReturnedMin());
+        min.put("inventoryRemaining", rollup.getInventoryRemainingMin());
+        min.put("itemsIssued", rollup.getItemsIssuedMin());
+
+        Map<String, Object> max = new HashMap<>();
+        max.put("itemsBorrowed", rollup.getItemsBorrowedMax());
+        max.put("itemsReturned", rollup.getItemsReturnedMax());
+        max.put("inventoryRemaining", rollup.getInventoryRemainingMax());
+        max.put("itemsIssued", rollup.getItemsIssuedMax());
+
+        Map<String, Object> point = new HashMap<>();
+        point.put("date", rollup.getBucketStart().format(label));
+        point.put("timestamp", rollup.getBucketStart().toString());
+        point.put("itemsBorrowed", rollup.getItemsBorrowedLast());
+        point.put("itemsReturned", rollup.getItemsReturnedLast());
+        point.put("inventoryRemaining", rollup.getInventoryRemainingLast());
+        point.put("itemsIssued", rollup.getItemsIssuedLast());
+        point.put("samples", rollup.getSampleCount());
+        point.put("min", min);
+        point.put("max", max);
+        return point;
+    }
+}
@@ -0,0 +1,201 @@
+package com.example.IMS.service;
+
+import com.example.IMS.dto.DashboardStatsDto;
+import com.example.IMS.repository.IItemRepository;
+import com.example.IMS.repository.ILoanRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps the dashboard counters in memory so that reading them never touches the database.
+ * The counters are seeded once the application is ready from aggregate queries, adjusted by
+ * the item and loan write paths, and periodically reconciled against the database to heal
+ * any drift. Deltas applied while a reconcile reads the aggregates are logged and replayed on
+ * top of what it read, so writes made meanwhile are not lost when the counters are replaced.
+ */
+@Service
+public class DashboardStatsService {
+
+    public static final int LOW_STOCK_THRESHOLD = 10;
+
+    private static final String UNKNOWN_TYPE = "Unknown";
+
+    @Autowired
+    private IItemRepository itemRepository;
+
+    @Autowired
+    private ILoanRepository loanRepository;
+
+    private final Map<String, Long> itemsByType = new HashMap<>();
+    private long totalItems;
+    private long inventoryRemaining;
+    private long lowStockCount;
+    private long itemsBorrowed;
+    private long itemsReturned;
+
+    // Deltas applied since the running reconcile started reading, or null when none is running
+    private List<Runnable> deltasDuringReconcile;
+    private final Object reconcileLock = new Object();
+
+    private volatile DashboardStatsDto stats = DashboardStatsDto.EMPTY;
+
+    public DashboardStatsDto getStats() {
+        return stats;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void seed() {
+        reconcile();
+    }
+
+    @Scheduled(initialDelayString = "${dashboard.stats.reconcile-interval-ms:300000}",
+            fixedDelayString = "${dashboard.stats.reconcile-interval-ms:300000}")
+    public void reconcile() {
+        synchronized (reconcileLock) {
+            synchronized (this) {
+                deltasDuringReconcile = new ArrayList<>();
+            }
+            List<Object[]> typeCounts;
+            long items;
+            long quantity;
+            long lowStock;
+            long activeLoans;
+            long allLoans;
+            try {
+                typeCounts = itemRepository.countItemsByType();
+                items = itemRepository.count();
+                quantity = itemRepository.sumQuantity();
+                lowStock = itemRepository.countByQuantityLessThan(LOW_STOCK_THRESHOLD);
+                activeLoans = loanRepository.countActiveLoans();
+                allLoans = loanRepository.count();
+            } catch (RuntimeException e) {
+                synchronized (this) {
+                    deltasDuringReconcile = null;
+                }
+                throw e;
+            }
+
+            synchronized (this) {
+                itemsByType.clear();
+                for (Object[] row : typeCounts) {
+                    itemsByType.merge(typeName((String) row[0]), (Long) row[1], Long::sum);
+                }
+                totalItems = items;
+                inventoryRemaining = quantity;
+                lowStockCount = lowStock;
+                itemsBorrowed = activeLoans;
+                itemsReturned = allLoans - activeLoans;
+                // A write that committed before the read but reported after it started is counted
+                // twice; that window is short, and the next reconcile heals it
+                deltasDuringReconcile.forEach(Runnable::run);
+                deltasDuringReconcile = null;
+                publish();
+            }
+        }
+    }
+
+    // Applies one item write as a delta; a null quantity means the item did not exist on that side
+    public void itemChanged(Integer oldQuantity, String oldType, Integer newQuantity, String newType) {
+        apply(() -> {
+            if (oldQuantity != null) {
+                remove(oldQuantity, typeName(oldType));
+            }
+            if (newQuantity != null) {
+                add(newQuantity, typeName(newType));
+            }
+        });
+    }
+
+    // Applies a change to the stock of one item without a change to the item itself
+    public void stockChanged(int oldQuantity, int newQuantity) {
+        apply(() -> changeStock(oldQuantity, newQuantity));
+    }
+
+    // Applies a batch of issues or returns at once; each stock change is an {old, new} quantity pair
+    public void loansChanged(Collection<int[]> stockChanges, long issued, long returned) {
+        List<int[]> changes = new ArrayList<>(stockChanges);
+        apply(() -> {
+            for (int[] change : changes) {
+                changeStock(change[0], change[1]);
+            }
+            itemsBorrowed += issued - returned;
+            itemsReturned += returned;
+        });
+    }
+
+    public void loanIssued() {
+        apply(() -> itemsBorrowed++);
+    }
+
+    public void loanReturned() {
+        apply(() -> {
+            itemsBorrowed--;
+            itemsReturned++;
+        });
+    }
+
+    public void loanDeleted(boolean active) {
+        apply(() -> {
+            if (active) {
+                itemsBorrowed--;
+            } else {
+                itemsReturned--;
+            }
+        });
+    }
+
+    // Applies a delta to the counters, and logs it for replay if a reconcile is reading meanwhile
+    private synchronized void apply(Runnable delta) {
+        delta.run();
+        if (deltasDuringReconcile != null) {
+            deltasDuringReconcile.add(delta);
+        }
+        publish();
+    }
+
+    private void add(int quantity, String type) {
+        totalItems++;
+        itemsByType.merge(type, 1L, Long::sum);
+        inventoryRemaining += quantity;
+        if (quantity < LOW_STOCK_THRESHOLD) {
+            lowStockCount++;
+        }
+    }
+
+    private void remove(int quantity, String type) {
+        totalItems--;
+        itemsByType.computeIfPresent(type, (name, count) -> count > 1 ? count - 1 : null);
+        inventoryRemaining -= quantity;
+        if (quantity < LOW_STOCK_THRESHOLD) {
+            lowStockCount--;
+        }
+    }
+
+    private void changeStock(int oldQuantity, int newQuantity) {
+        inventoryRemaining += newQuantity - oldQuantity;
+        if (oldQuantity < LOW_STOCK_THRESHOLD) {
+            lowStockCount--;
+        }
+        if (newQuantity < LOW_STOCK_THRESHOLD) {
+            lowStockCount++;
+        }
+    }
+
+    private void publish() {
+        stats = new DashboardStatsDto(itemsBorrowed, itemsReturned, inventoryRemaining, totalItems,
+                new HashMap<>(itemsByType), lowStockCount);
+    }
+
+    private static String typeName(String typeName) {
+        return typeName != null ? typeName : UNKNOWN_TYPE;
+    }
+}
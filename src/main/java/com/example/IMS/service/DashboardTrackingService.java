@@ -1,58 +1,217 @@
 package com.example.IMS.service;
 
+import com.example.IMS.dto.DashboardStatsDto;
 import com.example.IMS.model.DashboardSnapshot;
-import com.example.IMS.model.Item;
-import com.example.IMS.model.Loan;
 import com.example.IMS.repository.IDashboardSnapshotRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Records dashboard snapshots without holding up the request that triggered them.
+ * Callers only enqueue the event type; a single background writer wakes up once per
+ * window, folds every event queued since the last run into one snapshot built from the
+ * in-memory counters, and batch-inserts it together with any snapshot a failed run left behind.
+ */
 @Service
 public class DashboardTrackingService {
-    
+
+    private static final DateTimeFormatter DATE_LABEL = DateTimeFormatter.ofPattern("MMM d");
+
+    private static final String INSERT_SQL = "insert into dashboard_snapshot "
+            + "(timestamp, items_borrowed, items_returned, inventory_remaining, items_issued, event_type) "
+            + "values (?, ?, ?, ?, ?, ?)";
+
+    // Snapshots kept for retry while the database is unavailable
+    private static final int MAX_UNSAVED_SNAPSHOTS = 1000;
+
     @Autowired
     private IDashboardSnapshotRepository snapshotRepository;
-    
+
     @Autowired
-    private ItemService itemService;
-    
+    private DashboardStatsService dashboardStatsService;
+
     @Autowired
-    private ItemIssuanceService itemIssuanceService;
-    
+    private DashboardEventBroadcaster eventBroadcaster;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${dashboard.snapshot.window-ms:2000}")
+    private long windowMs;
+
+    @Value("${dashboard.snapshot.queue-capacity:10000}")
+    private int queueCapacity;
+
+    private BlockingQueue<String> pendingEvents;
+    private final List<DashboardSnapshot> unsavedSnapshots = new ArrayList<>();
+    private final AtomicLong coalescedEvents = new AtomicLong();
+    private final AtomicLong snapshotsWritten = new AtomicLong();
+    private final AtomicLong failedWrites = new AtomicLong();
+    // Id of the newest persisted snapshot, which doubles as the delta-sync cursor
+    private final AtomicLong latestSnapshotId = new AtomicLong();
+    private ScheduledExecutorService writer;
+
+    @PostConstruct
+    public void start() {
+        DashboardSnapshot latest = snapshotRepository.findTopByOrderByIdDesc();
+        latestSnapshotId.set(latest != null ? latest.getId() : 0);
+        pendingEvents = new LinkedBlockingQueue<>(queueCapacity);
+        writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "dashboard-snapshot-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        writer.scheduleWithFixedDelay(this::flush, windowMs, windowMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        writer.shutdown();
+        writer.awaitTermination(windowMs, TimeUnit.MILLISECONDS);
+        flush();
+    }
+
     public void captureSnapshot(String eventType) {
-        List<Item> allItems = itemService.getAllItems();
-        List<Loan> allLoans = itemIssuanceService.getAllIssuedItems();
-        
-        long itemsBorrowed = allLoans.stream()
-                .filter(loan -> loan.getReturnDate() == null || loan.getReturnDate().isEmpty())
-                .count();
-        
-        long itemsReturned = allLoans.stream()
-                .filter(loan -> loan.getReturnDate() != null && !loan.getReturnDate().isEmpty())
-                .count();
-        
-        int inventoryRemaining = allItems.stream()
-                .mapToInt(Item::getQuantity)
-                .sum();
-        
-        long itemsIssued = allLoans.size();
-        
-        DashboardSnapshot snapshot = new DashboardSnapshot(
-            LocalDateTime.now(),
-            itemsBorrowed,
-            itemsReturned,
-            inventoryRemaining,
-            itemsIssued,
-            eventType
-        );
-        
-        snapshotRepository.save(snapshot);
+        // A full queue already guarantees a snapshot in the next window, so the event is simply folded in
+        if (!pendingEvents.offer(eventType)) {
+            coalescedEvents.incrementAndGet();
+        }
     }
-    
+
+    synchronized void flush() {
+        List<String> events = new ArrayList<>();
+        pendingEvents.drainTo(events);
+        if (!events.isEmpty()) {
+            coalescedEvents.addAndGet(events.size() - 1);
+            DashboardStatsDto stats = dashboardStatsService.getStats();
+            unsavedSnapshots.add(new DashboardSnapshot(
+                LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS),
+                stats.getItemsBorrowed(),
+                stats.getItemsReturned(),
+                (int) stats.getInventoryRemaining(),
+                stats.getItemsIssued(),
+                events.get(events.size() - 1)
+            ));
+            if (unsavedSnapshots.size() > MAX_UNSAVED_SNAPSHOTS) {
+                unsavedSnapshots.remove(0);
+            }
+        }
+        if (unsavedSnapshots.isEmpty()) {
+            return;
+        }
+        // Snapshots held over from a failed run are stamped when they are finally written; with their
+        // original time they could land in a minute the rollup has already compacted and never reach a tier
+        LocalDateTime insertedAt = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+        for (DashboardSnapshot snapshot : unsavedSnapshots) {
+            snapshot.setTimestamp(insertedAt);
+        }
+        try {
+            insertBatch(unsavedSnapshots);
+        } catch (RuntimeException e) {
+            failedWrites.incrementAndGet();
+            System.out.println("Could not write dashboard snapshots, will retry: " + e.getMessage());
+            return;
+        }
+        snapshotsWritten.addAndGet(unsavedSnapshots.size());
+        latestSnapshotId.set(unsavedSnapshots.get(unsavedSnapshots.size() - 1).getId());
+        for (DashboardSnapshot snapshot : unsavedSnapshots) {
+            eventBroadcaster.publish(snapshot.getId(), toHistoryPoint(snapshot));
+        }
+        unsavedSnapshots.clear();
+    }
+
+    // One transaction for the whole batch, so a failed run leaves no rows behind for the retry to duplicate
+    private void insertBatch(List<DashboardSnapshot> snapshots) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> insertRows(snapshots));
+    }
+
+    private void insertRows(List<DashboardSnapshot> snapshots) {
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+                for (DashboardSnapshot snapshot : snapshots) {
+                    statement.setTimestamp(1, Timestamp.valueOf(snapshot.getTimestamp()));
+                    statement.setLong(2, snapshot.getItemsBorrowed());
+                    statement.setLong(3, snapshot.getItemsReturned());
+                    statement.setInt(4, snapshot.getInventoryRemaining());
+                    statement.setLong(5, snapshot.getItemsIssued());
+                    statement.setString(6, snapshot.getEventType());
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+                try (ResultSet keys = statement.getGeneratedKeys()) {
+                    for (int i = 0; i < snapshots.size() && keys.next(); i++) {
+                        snapshots.get(i).setId(keys.getLong(1));
+                    }
+                }
+            }
+            return null;
+        });
+    }
+
     public List<DashboardSnapshot> getRecentSnapshots() {
         return snapshotRepository.findTop20ByOrderByTimestampDesc();
     }
+
+    public long getLatestSnapshotId() {
+        return latestSnapshotId.get();
+    }
+    
+    public List<DashboardSnapshot> getSnapshotsSince(long cursor, int limit) {
+        if (cursor >= latestSnapshotId.get()) {
+            return Collections.emptyList();
+        }
+        return snapshotRepository.findByIdGreaterThanOrderByIdAsc(cursor, PageRequest.of(0, limit));
+    }
+
+    public Map<String, Object> getWriterMetrics() {
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("queueDepth", pendingEvents.size());
+        metrics.put("coalescedEvents", coalescedEvents.get());
+        metrics.put("snapshotsWritten", snapshotsWritten.get());
+        metrics.put("failedWrites", failedWrites.get());
+        metrics.put("windowMs", windowMs);
+        return metrics;
+    }
+
+    public static Map<String, Object> toHistoryPoint(DashboardSnapshot snapshot) {
+        Map<String, Object> point = new HashMap<>();
+        point.put("date", snapshot.getTimestamp().format(DATE_LABEL));
+        point.put("timestamp", snapshot.getTimestamp().toString());
+        point.put("itemsBorrowed", snapshot.getItemsBorrowed());
+        point.put("itemsReturned", snapshot.getItemsReturned());
+        point.put("inventoryRemaining", snapshot.getInventoryRemaining());
+        point.put("itemsIssued", snapshot.getItemsIssued());
+        point.put("eventType", snapshot.getEventType());
+        return point;
+    }
 }
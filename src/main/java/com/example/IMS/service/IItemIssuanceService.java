@@ -2,13 +2,19 @@ package com.example.IMS.service;
 
 import java.util.List;
 
+import com.example.IMS.Utilities.ChunkedRows;
+import com.example.IMS.dto.ItemIssuanceDto;
 import com.example.IMS.model.Loan;
 
 public interface IItemIssuanceService {
 	void saveItemIssued(Loan loan);
 
+	boolean returnItemIssued(Loan loan);
+
 	List<Loan> getAllIssuedItems();
 
+	ChunkedRows<ItemIssuanceDto> getIssuedItemRows();
+
 	List<Loan> getAllReturnedItem();
 
 	List<Loan> getItemsWithFine();
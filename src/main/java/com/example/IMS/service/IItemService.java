@@ -2,6 +2,8 @@ package com.example.IMS.service;
 
 import java.util.List;
 
+import com.example.IMS.Utilities.ChunkedRows;
+import com.example.IMS.dto.ItemDto;
 import com.example.IMS.model.Item;
 
 public interface IItemService {
@@ -13,8 +15,14 @@ public interface IItemService {
 
 	List<Item> getAllItems();
 
+	ChunkedRows<ItemDto> getItemRows();
+
 	void saveItem(Item item);
 
+	boolean takeOne(long itemId);
+
+	boolean returnOne(long itemId);
+
 	String validateItemId(String itemName, String itemType);
 
 	void deleteItem(long itemId);
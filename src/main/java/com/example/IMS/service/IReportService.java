@@ -1,26 +1,31 @@
 package com.example.IMS.service;
 
+import com.example.IMS.Utilities.ChunkedRows;
+import com.example.IMS.dto.BorrowedItemRow;
+import com.example.IMS.dto.DataTablesResponse;
+import com.example.IMS.dto.IssuedItemRow;
+import com.example.IMS.dto.StockPageRequest;
+import com.example.IMS.dto.StockReportRow;
 import com.example.IMS.model.Item;
-import com.example.IMS.model.Loan;
 import java.time.LocalDate;
 import java.util.List;
-import java.util.Map;
 
 public interface IReportService {
     // Item Stock Report
     List<Item> getItemStockReport();
+    DataTablesResponse<StockReportRow> getItemStockPage(StockPageRequest request);
     long getTotalItemsCount();
     long getLowStockItemsCount();
     
     // Borrow History Report
-    List<Loan> getBorrowHistoryReport(LocalDate startDate, LocalDate endDate);
+    ChunkedRows<IssuedItemRow> getBorrowHistoryReport(LocalDate startDate, LocalDate endDate);
     long getTotalLoansCount();
     
     // Currently Borrowed Items Report
-    List<Map<String, Object>> getCurrentlyBorrowedItems();
+    ChunkedRows<BorrowedItemRow> getCurrentlyBorrowedItems();
     long getCurrentlyBorrowedCount();
     
     // Issued Items Report
-    List<Map<String, Object>> getIssuedItemsReport(LocalDate startDate, LocalDate endDate);
+    ChunkedRows<IssuedItemRow> getIssuedItemsReport(LocalDate startDate, LocalDate endDate);
     long getTotalIssuedCount(LocalDate startDate, LocalDate endDate);
 }
@@ -13,4 +13,8 @@ public interface IVendorService {
 	String validateVendorId(long id);
 	
 	String validateVendorName(String vendorName);
+
+	void saveVendor(Vendor vendor);
+
+	void deleteVendor(long id);
 }
@@ -0,0 +1,408 @@
+package com.example.IMS.service;
+
+import com.example.IMS.convertor.ItemConvertor;
+import com.example.IMS.dto.ItemDto;
+import com.example.IMS.dto.ItemImportResult;
+import com.example.IMS.model.Item;
+import com.example.IMS.model.ItemType;
+import com.example.IMS.model.Vendor;
+import com.example.IMS.repository.IItemRepository;
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Adds items in bulk from CSV or JSON. Rows are read a chunk at a time; each chunk is
+ * validated in parallel with the same rules as the item form, its vendor and type names are
+ * resolved from the reference data cache and its names are checked for duplicates with one
+ * query per thousand rows. The valid rows are then inserted in one transaction as batched
+ * statements, which the pooled item ids allow. Rows that fail are reported by number and the
+ * rest are still imported.
+ */
+@Service
+public class ItemImportService {
+
+    public static final List<String> COLUMNS = List.of(
+            "itemName", "itemType", "vendorName", "itemQuantity", "itemPrice", "fineRate", "invoiceNumber");
+
+    private static final int NAME_QUERY_SIZE = 1000;
+
+    @Autowired
+    private IItemRepository itemRepository;
+
+    @Autowired
+    private ItemConvertor itemConvertor;
+
+    @Autowired
+    private ReferenceDataCache referenceDataCache;
+
+    @Autowired
+    private DashboardStatsService dashboardStatsService;
+
+    @Autowired
+    private CachingReportService cachingReportService;
+
+    @Autowired
+    private SearchIndexService searchIndexService;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${items.import.threads:4}")
+    private int threads;
+
+    @Value("${items.import.chunk-size:5000}")
+    private int chunkSize;
+
+    private ExecutorService executor;
+
+    private final Gson gson = new Gson();
+
+    @PostConstruct
+    public void start() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "item-import-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    // The first line names the columns, in any order; quoted fields may hold commas and doubled quotes
+    public ItemImportResult importCsv(Reader reader) throws IOException {
+        BufferedReader lines = new BufferedReader(reader);
+        String header = lines.readLine();
+        if (header == null) {
+            throw new IllegalArgumentException("The file is empty.");
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        List<String> names = parseCsvLine(header);
+        for (int i = 0; i < names.size(); i++) {
+            columns.put(names.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        for (String column : COLUMNS) {
+            if (!columns.containsKey(column.toLowerCase(Locale.ROOT))) {
+                throw new IllegalArgumentException("Missing column: " + column);
+            }
+        }
+        long[] lineNumber = { 1 };
+        return importRows(() -> {
+            String line;
+            do {
+                line = lines.readLine();
+                lineNumber[0]++;
+            } while (line != null && line.isBlank());
+            return line != null ? csvRow(lineNumber[0], parseCsvLine(line), columns) : null;
+        });
+    }
+
+    // An array of objects with the item form's field names
+    public ItemImportResult importJson(Reader reader) throws IOException {
+        JsonReader json = new JsonReader(reader);
+        try {
+            json.beginArray();
+        } catch (IllegalStateException | IOException e) {
+            throw new IllegalArgumentException("Expected a JSON array of items.");
+        }
+        long[] index = { 0 };
+        return importRows(() -> {
+            if (!json.hasNext()) {
+                json.endArray();
+                return null;
+            }
+            ImportRow row = new ImportRow(++index[0]);
+            JsonElement element;
+            try {
+                element = JsonParser.parseReader(json);
+            } catch (JsonParseException e) {
+                throw new IllegalArgumentException("Malformed JSON at item " + row.number + ".");
+            }
+            // Each element is read whole first, so a row with a bad value does not lose the rest
+            try {
+                row.dto = gson.fromJson(element, ItemDto.class);
+            } catch (JsonParseException e) {
+                row.error = "Not a valid item: " + e.getMessage();
+            }
+            if (row.dto == null && row.error == null) {
+                row.error = "Not a valid item.";
+            }
+            return row;
+        });
+    }
+
+    private ItemImportResult importRows(RowSource source) throws IOException {
+        long start = System.nanoTime();
+        ItemImportResult result = new ItemImportResult();
+        // Names taken by earlier rows of this file, by normalized name and type id
+        Set<String> taken = new HashSet<>();
+        List<ImportRow> chunk = new ArrayList<>(chunkSize);
+        ImportRow row;
+        do {
+            row = source.next();
+            if (row != null) {
+                result.rowRead();
+                chunk.add(row);
+            }
+            if (chunk.size() == chunkSize || row == null && !chunk.isEmpty()) {
+                importChunk(chunk, taken, result);
+                chunk.clear();
+            }
+        } while (row != null);
+
+        if (result.getImported() > 0) {
+            dashboardStatsService.reconcile();
+            cachingReportService.invalidate(CachingReportService.Region.ITEMS);
+        }
+        result.setElapsedMs((System.nanoTime() - start) / 1_000_000);
+        System.out.println("Item import: " + result.getImported() + " of " + result.getRowsRead() + " rows imported in "
+                + result.getElapsedMs() + " ms");
+        return result;
+    }
+
+    private void importChunk(List<ImportRow> chunk, Set<String> taken, ItemImportResult result) {
+        validate(chunk);
+
+        // Duplicates of earlier rows, then of items already stored
+        List<ImportRow> valid = new ArrayList<>();
+        for (ImportRow row : chunk) {
+            if (row.error == null && !taken.add(nameKey(row.item.getNormalizedName(), row.item.getItemType().getId()))) {
+                row.error = "Duplicate of an earlier row with the same name and type.";
+            }
+            if (row.error == null) {
+                valid.add(row);
+            }
+        }
+        Set<String> existing = new HashSet<>();
+        List<String> names = valid.stream().map(row -> row.item.getNormalizedName()).distinct().collect(Collectors.toList());
+        for (int i = 0; i < names.size(); i += NAME_QUERY_SIZE) {
+            for (Object[] key : itemRepository.findNameKeys(names.subList(i, Math.min(i + NAME_QUERY_SIZE, names.size())))) {
+                existing.add(nameKey((String) key[0], (Long) key[1]));
+            }
+        }
+        valid.removeIf(row -> {
+            if (existing.contains(nameKey(row.item.getNormalizedName(), row.item.getItemType().getId()))) {
+                row.error = ItemService.DUPLICATE_ITEM_MESSAGE;
+                return true;
+            }
+            return false;
+        });
+
+        insert(valid);
+        for (ImportRow row : chunk) {
+            if (row.error != null) {
+                result.rowFailed(row.number, row.error);
+            } else {
+                searchIndexService.put(SearchIndexService.Kind.ITEM, row.item.getId(), row.item.getName());
+            }
+        }
+        result.imported(valid.stream().filter(row -> row.error == null).count());
+    }
+
+    // Splits the chunk between the import threads; each row ends up with either an item or an error
+    private void validate(List<ImportRow> chunk) {
+        int sliceSize = Math.max(1, (chunk.size() + threads - 1) / threads);
+        List<Callable<Void>> slices = new ArrayList<>();
+        for (int i = 0; i < chunk.size(); i += sliceSize) {
+            List<ImportRow> slice = chunk.subList(i, Math.min(i + sliceSize, chunk.size()));
+            slices.add(() -> {
+                slice.forEach(this::validate);
+                return null;
+            });
+        }
+        try {
+            for (Future<Void> future : executor.invokeAll(slices)) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("The import was interrupted.", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Validating the import failed.", e.getCause());
+        }
+    }
+
+    private void validate(ImportRow row) {
+        if (row.error != null) {
+            return;
+        }
+        ItemDto dto = row.dto;
+        Set<ConstraintViolation<ItemDto>> violations = validator.validate(dto);
+        if (!violations.isEmpty()) {
+            row.error = violations.stream().map(ConstraintViolation::getMessage).sorted()
+                    .collect(Collectors.joining(" "));
+            return;
+        }
+        Vendor vendor = referenceDataCache.getVendorByName(dto.getVendorName());
+        if (vendor == null) {
+            row.error = "Vendor with name: " + dto.getVendorName() + " does not exist.";
+            return;
+        }
+        ItemType itemType = referenceDataCache.getItemTypeByName(dto.getItemType());
+        if (itemType == null) {
+            row.error = "ItemType with name: " + dto.getItemType() + " does not exist.";
+            return;
+        }
+        Item item = itemConvertor.dtoToModel(dto);
+        item.setVendor(vendor);
+        item.setItemType(itemType);
+        row.item = item;
+    }
+
+    // One transaction of batched inserts; if another writer took one of the names since the
+    // check, the rows are inserted one by one instead to find which
+    private void insert(List<ImportRow> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        try {
+            transaction.executeWithoutResult(status -> {
+                rows.forEach(row -> entityManager.persist(row.item));
+                itemRepository.flush();
+                entityManager.clear();
+            });
+        } catch (DataIntegrityViolationException e) {
+            entityManager.clear();
+            for (ImportRow row : rows) {
+                row.item.setId(0);
+                try {
+                    transaction.executeWithoutResult(status -> {
+                        entityManager.persist(row.item);
+                        itemRepository.flush();
+                        entityManager.clear();
+                    });
+                } catch (DataIntegrityViolationException duplicate) {
+                    entityManager.clear();
+                    row.error = ItemService.DUPLICATE_ITEM_MESSAGE;
+                }
+            }
+        }
+    }
+
+    private ImportRow csvRow(long number, List<String> fields, Map<String, Integer> columns) {
+        ImportRow row = new ImportRow(number);
+        ItemDto dto = new ItemDto();
+        try {
+            dto.setItemName(field(fields, columns, "itemName"));
+            dto.setItemType(field(fields, columns, "itemType"));
+            dto.setVendorName(field(fields, columns, "vendorName"));
+            dto.setItemQuantity(Integer.parseInt(number(fields, columns, "itemQuantity")));
+            dto.setItemPrice(Double.parseDouble(number(fields, columns, "itemPrice")));
+            dto.setFineRate(Double.parseDouble(number(fields, columns, "fineRate")));
+            dto.setInvoiceNumber(Long.parseLong(number(fields, columns, "invoiceNumber")));
+            row.dto = dto;
+        } catch (IllegalArgumentException e) {
+            row.error = e.getMessage();
+        }
+        return row;
+    }
+
+    private static String field(List<String> fields, Map<String, Integer> columns, String column) {
+        int index = columns.get(column.toLowerCase(Locale.ROOT));
+        return index < fields.size() ? fields.get(index).trim() : null;
+    }
+
+    private static String number(List<String> fields, Map<String, Integer> columns, String column) {
+        String value = field(fields, columns, column);
+        if (value == null || value.isEmpty()) {
+            throw new IllegalArgumentException(column + " is mandatory.");
+        }
+        try {
+            Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(column + " is not a number: " + value);
+        }
+        return value;
+    }
+
+    static List<String> parseCsvLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private static String nameKey(String normalizedName, Long typeId) {
+        return normalizedName + "\u0000" + typeId;
+    }
+
+    private interface RowSource {
+        // Null once there are no more rows
+        ImportRow next() throws IOException;
+    }
+
+    private static final class ImportRow {
+        private final long number;
+        private ItemDto dto;
+        private Item item;
+        private String error;
+
+        private ImportRow(long number) {
+            this.number = number;
+        }
+    }
+}
@@ -1,12 +1,21 @@
 package com.example.IMS.service;
 
-import java.util.ArrayList;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
+import javax.annotation.PostConstruct;
+
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 
+import com.example.IMS.Utilities.ChunkedRows;
+import com.example.IMS.Utilities.Helper;
+import com.example.IMS.Utilities.IdGenerators;
+import com.example.IMS.dto.ItemIssuanceDto;
 import com.example.IMS.model.Loan;
 import com.example.IMS.repository.IItemIssuanceRepository;
 
@@ -16,26 +25,78 @@ public class ItemIssuanceService implements IItemIssuanceService {
 	@Autowired
 	private IItemIssuanceRepository itemIssuanceRepository;
 
+	@Autowired
+	private DashboardStatsService dashboardStatsService;
+
+	@Autowired
+	private ReportSummaryService reportSummaryService;
+
+	@Autowired
+	private CachingReportService cachingReportService;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Value("${rendering.chunk-size:200}")
+	private int chunkSize;
+
+	// Moves the loan id generator past ids taken before loans had pooled ids
+	@PostConstruct
+	public void seedIdGenerator() {
+		IdGenerators.seed(jdbcTemplate, "loan", "loan", "loan_id", Loan.ID_ALLOCATION_SIZE);
+	}
+
 	@Override
 	public void saveItemIssued(Loan loan) {
+		boolean isNew = loan.getId() == 0;
 		this.itemIssuanceRepository.save(loan);
+		cachingReportService.invalidate(CachingReportService.Region.LOANS);
+		if (isNew) {
+			dashboardStatsService.loanIssued();
+			reportSummaryService.loanIssued(loan);
+		}
 	}
 
+	// Marks the loan returned now, with its fine, in one conditional update; false if it had
+	// already been returned, such as by a second submit of the return form
 	@Override
-	public List<Loan> getAllIssuedItems() {
-		List<Loan> loanList = itemIssuanceRepository.findAll();
-		List<Loan> issuedItems = new ArrayList<>();
-		for (Loan l : loanList) {
-			if (l.getReturnDate() == null || l.getReturnDate().isEmpty()) {
-				issuedItems.add(l);
-			}
+	public boolean returnItemIssued(Loan loan) {
+		// The loan is only changed once the update succeeded, so that it is not flushed ahead of it
+		LocalDateTime returnDate = Helper.now();
+		double fine = loan.fineIfReturnedAt(returnDate);
+		int closed = itemIssuanceRepository.closeLoan(loan.getId(), returnDate, Helper.formatDateTime(returnDate), fine);
+		if (closed != 1) {
+			return false;
 		}
-		return issuedItems;
+		loan.setReturnDate(returnDate);
+		loan.setTotalFine(fine);
+		cachingReportService.invalidate(CachingReportService.Region.LOANS);
+		dashboardStatsService.loanReturned();
+		reportSummaryService.loanReturned(loan);
+		return true;
+	}
+
+	@Override
+	public List<Loan> getAllIssuedItems() {
+		return itemIssuanceRepository.findByReturnDateIsNullOrderById();
+	}
+
+	// Read a chunk at a time while the issuance list page renders
+	@Override
+	public ChunkedRows<ItemIssuanceDto> getIssuedItemRows() {
+		return new ChunkedRows<>(chunkSize, last -> itemIssuanceRepository.findIssuedItemRows(
+				last != null ? last.getId() : -1, PageRequest.of(0, chunkSize)));
 	}
 
 	@Override
 	public void deleteIssuedItemById(long id) {
+		Loan loan = findItemIssuedById(id);
 		this.itemIssuanceRepository.deleteById(id);
+		cachingReportService.invalidate(CachingReportService.Region.LOANS);
+		if (loan != null) {
+			dashboardStatsService.loanDeleted(!loan.isReturned());
+			reportSummaryService.loanDeleted(loan);
+		}
 	}
 
 	@Override
@@ -52,29 +113,13 @@ public class ItemIssuanceService implements IItemIssuanceService {
 
 	@Override
 	public Loan findItemIssued(long borrowerId, long itemId) {
-		List<Loan> loanList = getAllIssuedItems();
-		Loan loan = null;
-		for (Loan l : loanList) {
-			if (l.getReturnDate() == null | l.getReturnDate().isEmpty()) {
-				if (l.getBorrower().getId() == borrowerId & l.getItem().getId() == itemId) {
-					loan = l;
-					break;
-				}
-			}
-		}
-		return loan;
+		return itemIssuanceRepository.findFirstByBorrowerIdAndItemIdAndReturnDateIsNullOrderById(borrowerId, itemId)
+				.orElse(null);
 	}
 
 	@Override
 	public List<Loan> getAllReturnedItem() {
-		List<Loan> loanList = itemIssuanceRepository.findAll();
-		List<Loan> returnedItems = new ArrayList<>();
-		for (Loan l : loanList) {
-			if (l.getReturnDate() != null && !l.getReturnDate().isEmpty()) {
-				returnedItems.add(l);
-			}
-		}
-		return returnedItems;
+		return itemIssuanceRepository.findByReturnDateIsNotNullOrderById();
 	}
 
 	@Override
@@ -89,14 +134,7 @@ public class ItemIssuanceService implements IItemIssuanceService {
 
 	@Override
 	public List<Loan> getItemsWithFine() {
-		List<Loan> loanList = itemIssuanceRepository.findAll();
-		List<Loan> itemsWithFine = new ArrayList<>();
-		for (Loan l : loanList) {
-			if (l.getTotalFine() > 0) {
-				itemsWithFine.add(l);
-			}
-		}
-		return itemsWithFine;
+		return itemIssuanceRepository.findByTotalFineGreaterThanOrderById(0);
 	}
 
 }
@@ -1,20 +1,73 @@
 package com.example.IMS.service;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
+
+import javax.annotation.PostConstruct;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import com.example.IMS.Utilities.ChunkedRows;
+import com.example.IMS.Utilities.IdGenerators;
+import com.example.IMS.dto.ItemDto;
 import com.example.IMS.model.Item;
-import com.example.IMS.model.Loan;
 import com.example.IMS.repository.IItemRepository;
+import com.example.IMS.repository.ILoanRepository;
 
 @Service
 public class ItemService implements IItemService {
+
+	public static final String DUPLICATE_ITEM_MESSAGE = "Item already exists in the database. Cannot add.";
+
+	private static final int BACKFILL_CHUNK_SIZE = 500;
+
 	@Autowired
 	private IItemRepository itemRepository;
 
+	@Autowired
+	private ILoanRepository loanRepository;
+
+	@Autowired
+	private DashboardStatsService dashboardStatsService;
+
+	@Autowired
+	private ReportSummaryService reportSummaryService;
+
+	@Autowired
+	private CachingReportService cachingReportService;
+
+	@Autowired
+	private SearchIndexService searchIndexService;
+
+	@Autowired
+	private StockEngine stockEngine;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Value("${rendering.chunk-size:200}")
+	private int chunkSize;
+
+	// Moves the item id generator past ids taken before items had pooled ids
+	@PostConstruct
+	public void seedIdGenerator() {
+		IdGenerators.seed(jdbcTemplate, "item", "inventory_item", "item_id", Item.ID_ALLOCATION_SIZE);
+	}
+
 	@Override
 	public Item getItemById(long id) {
 		Optional<Item> optional = itemRepository.findById(id);
@@ -42,50 +95,167 @@ public class ItemService implements IItemService {
 		return itemRepository.findAll();
 	}
 
+	// Read a chunk at a time while the item list page renders
+	@Override
+	public ChunkedRows<ItemDto> getItemRows() {
+		return new ChunkedRows<>(chunkSize, last -> itemRepository.findItemRows(
+				last != null ? last.getItemId() : -1, PageRequest.of(0, chunkSize)));
+	}
+
 	@Override
 	public long findItemIdByLoanId(long loanId) {
-		List<Item> itemList = getAllItems();
-		List<Loan> loanList;
-		boolean found = false;
-		long itemId = -1;
-		for (Item item : itemList) {
-			loanList = item.getLoan();
-			for (Loan loan : loanList) {
-				if (loan.getId() == loanId) {
-					itemId = item.getId();
-					found = true;
-					break;
-				}
-			}
-			if (found) {
-				break;
-			}
-		}
-		return itemId;
+		return loanRepository.findItemIdByLoanId(loanId).orElse(-1L);
 	}
 
 	@Override
 	public void saveItem(Item item) {
+		if (item.getId() != 0) {
+			// The edit sets the stock outright, so the stock engine must not hold changes to it meanwhile
+			stockEngine.runSuspended(item.getId(), () -> save(item));
+		} else {
+			save(item);
+		}
+	}
+
+	private void save(Item item) {
+		// Read before saving: an edited item may already hold its new values
+		List<Object[]> previous = item.getId() != 0 ? itemRepository.findStockLevel(item.getId()) : List.of();
 		itemRepository.save(item);
+		dashboardStatsService.itemChanged(
+				previous.isEmpty() ? null : (Integer) previous.get(0)[0],
+				previous.isEmpty() ? null : (String) previous.get(0)[1],
+				item.getQuantity(), item.getItemType() != null ? item.getItemType().getTypeName() : null);
+		searchIndexService.put(SearchIndexService.Kind.ITEM, item.getId(), item.getName());
+		cachingReportService.invalidate(CachingReportService.Region.ITEMS);
+	}
+
+	// Takes one unit of stock for a loan, from the stock engine when it is enabled and otherwise
+	// with a single conditional update; false if none was left
+	@Override
+	public boolean takeOne(long itemId) {
+		int quantity = stockEngine.change(itemId, -1, () -> changeInDatabase(itemId, -1));
+		if (quantity == StockEngine.OUT_OF_STOCK) {
+			return false;
+		}
+		dashboardStatsService.stockChanged(quantity + 1, quantity);
+		return true;
+	}
+
+	// Puts back one unit of stock when a loan is returned; false if the item no longer exists
+	@Override
+	public boolean returnOne(long itemId) {
+		int quantity = stockEngine.change(itemId, 1, () -> changeInDatabase(itemId, 1));
+		if (quantity == StockEngine.OUT_OF_STOCK) {
+			return false;
+		}
+		dashboardStatsService.stockChanged(quantity - 1, quantity);
+		return true;
+	}
+
+	// The conditional update, with the new quantity read back under the same row lock to keep the
+	// dashboard exact; OUT_OF_STOCK if it was refused
+	private int changeInDatabase(long itemId, int delta) {
+		Integer quantity = new TransactionTemplate(transactionManager).execute(status ->
+				(delta < 0 ? itemRepository.takeOne(itemId) : itemRepository.returnOne(itemId)) == 1
+						? itemRepository.findQuantity(itemId).orElse(null) : null);
+		if (quantity == null) {
+			return StockEngine.OUT_OF_STOCK;
+		}
+		// Changes granted by the engine invalidate the item report cache when its journal is applied
+		cachingReportService.invalidate(CachingReportService.Region.ITEMS);
+		return quantity;
 	}
 
 	@Override
 	public String validateItemId(String itemName, String itemType) {
 		String errorMessage = "";
-		List<Item> itemList = itemRepository.findAll();
-		for (Item item : itemList) {
-			if (item.getName().equalsIgnoreCase(itemName)
-					& item.getItemType().getTypeName().equalsIgnoreCase(itemType)) {
-				errorMessage = "Item already exists in the database. Cannot add.";
-			}
+		if (itemRepository.existsByNormalizedNameAndType(Item.normalizeName(itemName), itemType)) {
+			errorMessage = DUPLICATE_ITEM_MESSAGE;
 		}
 		return errorMessage;
 	}
 
+	// Items stored before the normalized name column existed get it filled in on first start.
+	// An item whose name and type another item already holds is left without one and reported
+	// on every start, for an operator to merge or rename; the items are not changed here
+	@EventListener(ApplicationReadyEvent.class)
+	public void backfillNormalizedNames() {
+		List<Item> missing = itemRepository.findByNormalizedNameIsNullOrderByIdAsc(PageRequest.of(0, BACKFILL_CHUNK_SIZE + 1));
+		if (missing.isEmpty()) {
+			return;
+		}
+		// Once only such duplicates are left there is nothing to fill in, so the table is not walked again
+		if (missing.size() <= BACKFILL_CHUNK_SIZE && missing.stream().allMatch(this::isDuplicate)) {
+			reportDuplicates(missing);
+			return;
+		}
+		TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+		long afterId = -1;
+		int filled = 0;
+		List<Item> duplicates = new ArrayList<>();
+		List<Item> chunk;
+		do {
+			// Walked by id rather than filtered on the empty name, which the unique index serves poorly
+			chunk = itemRepository.findByIdGreaterThanOrderByIdAsc(afterId, PageRequest.of(0, BACKFILL_CHUNK_SIZE));
+			if (chunk.isEmpty()) {
+				break;
+			}
+			afterId = chunk.get(chunk.size() - 1).getId();
+			List<Item> items = chunk.stream()
+					.filter(item -> item.getNormalizedName() == null)
+					.collect(Collectors.toList());
+			// setName also sets the normalized name
+			items.forEach(item -> item.setName(item.getName()));
+			try {
+				transaction.executeWithoutResult(status -> itemRepository.saveAll(items));
+				filled += items.size();
+			} catch (DataIntegrityViolationException e) {
+				// Some of these items duplicate each other or an item already filled in; save them one
+				// by one in id order, so the lowest id keeps the name whichever instance runs this
+				for (Item item : items) {
+					try {
+						itemRepository.save(item);
+						filled++;
+					} catch (DataIntegrityViolationException duplicate) {
+						duplicates.add(item);
+					}
+				}
+			}
+		} while (chunk.size() == BACKFILL_CHUNK_SIZE);
+		if (filled > 0) {
+			System.out.println("Normalized names filled in for " + filled + " items");
+		}
+		if (!duplicates.isEmpty()) {
+			reportDuplicates(duplicates);
+		}
+	}
+
+	// Whether another item holds this item's name and type, so it cannot be given a normalized name
+	private boolean isDuplicate(Item item) {
+		return item.getItemType() != null && itemRepository.existsByNormalizedNameAndItemTypeId(
+				Item.normalizeName(item.getName()), item.getItemType().getId());
+	}
+
+	private static void reportDuplicates(List<Item> items) {
+		System.out.println(items.size() + " items have the same name and type as another item and were left without "
+				+ "a normalized name. They are missed by the duplicate check and cannot be saved until they are "
+				+ "merged or renamed:");
+		for (Item item : items) {
+			System.out.println("  item " + item.getId() + " \"" + item.getName() + "\"");
+		}
+	}
+
 	@Override
 	public void deleteItem(long itemId) {
 		Item item = getItemById(itemId);
-		itemRepository.delete(item);
+		List<Object[]> previous = itemRepository.findStockLevel(itemId);
+		stockEngine.runSuspended(itemId, () -> itemRepository.delete(item));
+		if (!previous.isEmpty()) {
+			dashboardStatsService.itemChanged((Integer) previous.get(0)[0], (String) previous.get(0)[1], null, null);
+		}
+		reportSummaryService.itemDeleted(itemId);
+		searchIndexService.remove(SearchIndexService.Kind.ITEM, itemId);
+		cachingReportService.invalidate(CachingReportService.Region.ITEMS);
 	}
 
 }
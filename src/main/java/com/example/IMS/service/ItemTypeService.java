@@ -14,27 +14,22 @@ public class ItemTypeService implements IItemTypeService {
 	@Autowired
 	private IItemTypeRepository itemTypeRepository;
 
+	@Autowired
+	private ReferenceDataCache referenceDataCache;
+
 	@Override
 	public void saveItemType(ItemType itemType) {
-		itemTypeRepository.save(itemType);
+		referenceDataCache.itemTypeSaved(itemTypeRepository.save(itemType));
 	}
 
 	@Override
 	public List<ItemType> getAllItemTypes() {
-		return itemTypeRepository.findAll();
+		return referenceDataCache.getAllItemTypes();
 	}
 
 	@Override
 	public ItemType getItemTypeByName(String name) {
-		List<ItemType> itemTypeList = getAllItemTypes();
-		ItemType itemType = null;
-		for (ItemType it : itemTypeList) {
-			if (it.getTypeName().equalsIgnoreCase(name)) {
-				itemType = it;
-				break;
-			}
-		}
-		return itemType;
+		return referenceDataCache.getItemTypeByName(name);
 	}
 
 	@Override
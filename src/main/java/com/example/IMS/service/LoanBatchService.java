@@ -0,0 +1,349 @@
+package com.example.IMS.service;
+
+import com.example.IMS.Utilities.Helper;
+import com.example.IMS.dto.LoanBatchRequest;
+import com.example.IMS.dto.LoanBatchResult;
+import com.example.IMS.model.Borrower;
+import com.example.IMS.model.Item;
+import com.example.IMS.model.Loan;
+import com.example.IMS.repository.IBorrowerRepository;
+import com.example.IMS.repository.IItemRepository;
+import com.example.IMS.repository.ILoanRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+
+/**
+ * Issues or returns several items for one borrower in a single transaction, such as a class
+ * checking out a set of laptops. Stock is taken or put back with one conditional update per
+ * distinct item, the loans are inserted or closed as batched statements, and the dashboard,
+ * report summaries, report caches and snapshot are updated once for the whole batch.
+ *
+ * Each requested item is a line of the result. By default the lines that can be applied are,
+ * and the rest report why not; an all-or-nothing batch applies nothing if any line fails.
+ *
+ * Stock rows are changed in ascending item id order whatever order the request lists them in,
+ * so concurrent batches over the same items wait for each other rather than deadlock. A batch
+ * that still loses a lock conflict is retried a few times before the conflict is reported.
+ */
+@Service
+public class LoanBatchService {
+
+    public static final int MAX_LINES = 1000;
+
+    private static final int LOCK_CONFLICT_ATTEMPTS = 3;
+
+    private static final String NO_STOCK_MESSAGE = "Item is out of stock.";
+    private static final String NO_ITEM_MESSAGE = "Item id does not exist";
+    private static final String NO_LOAN_MESSAGE = "The borrower has no open loan of this item.";
+    private static final String RETURNED_MESSAGE = "This loan has already been returned.";
+
+    // Closes a loan unless another request or an instance writing only the string column has
+    // meanwhile, as IItemIssuanceRepository.closeLoan does for a single return
+    private static final String CLOSE_LOAN_SQL = "update loan set returned_at = ?, return_date = ?, total_fine = ? "
+            + "where loan_id = ? and returned_at is null and (return_date is null or return_date = '')";
+
+    @Autowired
+    private IItemRepository itemRepository;
+
+    @Autowired
+    private IBorrowerRepository borrowerRepository;
+
+    @Autowired
+    private ILoanRepository loanRepository;
+
+    @Autowired
+    private StockEngine stockEngine;
+
+    @Autowired
+    private DashboardStatsService dashboardStatsService;
+
+    @Autowired
+    private DashboardTrackingService dashboardTrackingService;
+
+    @Autowired
+    private ReportSummaryService reportSummaryService;
+
+    @Autowired
+    private CachingReportService cachingReportService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    public LoanBatchResult issue(LoanBatchRequest request) {
+        checkLines(request);
+        if (request.getLoanDuration() < 1) {
+            throw new IllegalArgumentException("Loan Duration must be greater than 0");
+        }
+        return retryLockConflicts(() -> issueOnce(request));
+    }
+
+    public LoanBatchResult returnItems(LoanBatchRequest request) {
+        checkLines(request);
+        return retryLockConflicts(() -> returnOnce(request));
+    }
+
+    private LoanBatchResult issueOnce(LoanBatchRequest request) {
+        LoanBatchResult result = new LoanBatchResult();
+        List<Loan> loans = new ArrayList<>();
+        StockChanges stock = new StockChanges();
+        try {
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                Borrower borrower = borrowerRepository.findById(request.getBorrowerId())
+                        .orElseThrow(() -> new IllegalArgumentException("Borrower id does not exist"));
+                Map<Long, Item> items = new HashMap<>();
+                itemRepository.findAllById(new HashSet<>(request.getItemIds())).forEach(item -> items.put(item.getId(), item));
+
+                // Units left to hand out per item, taken with one update for all of its lines
+                Map<Long, Integer> units = new HashMap<>();
+                countLines(request.getItemIds()).forEach((itemId, lines) -> {
+                    if (items.containsKey(itemId)) {
+                        units.put(itemId, stock.take(itemId, lines, !request.isAllOrNothing()));
+                    }
+                });
+                LocalDateTime issueDate = Helper.now();
+                for (Long itemId : request.getItemIds()) {
+                    Item item = items.get(itemId);
+                    if (item == null) {
+                        result.lineFailed(itemId, NO_ITEM_MESSAGE);
+                    } else if (units.merge(itemId, -1, Integer::sum) < 0) {
+                        result.lineFailed(itemId, NO_STOCK_MESSAGE);
+                    } else {
+                        Loan loan = new Loan();
+                        loan.setLoanDuration(request.getLoanDuration());
+                        loan.setIssueDate(issueDate);
+                        loan.setReturnDate(null);
+                        loan.setItem(item);
+                        loan.setBorrower(borrower);
+                        // Pooled ids are assigned here; the inserts are sent as a batch at commit
+                        loanRepository.save(loan);
+                        loans.add(loan);
+                        result.lineSucceeded(itemId, loan.getId());
+                    }
+                }
+                if (request.isAllOrNothing() && result.getFailed() > 0) {
+                    status.setRollbackOnly();
+                }
+            });
+        } catch (RuntimeException e) {
+            try {
+                stock.undo();
+            } catch (IllegalStateException undoFailed) {
+                e.addSuppressed(undoFailed);
+            }
+            throw e;
+        }
+        if (request.isAllOrNothing() && result.getFailed() > 0) {
+            stock.undo();
+            result.notApplied();
+        } else if (!loans.isEmpty()) {
+            dashboardStatsService.loansChanged(stock.quantities.values(), loans.size(), 0);
+            reportSummaryService.loansIssued(loans);
+            batchApplied("ITEM_ISSUED");
+        }
+        return result;
+    }
+
+    private LoanBatchResult returnOnce(LoanBatchRequest request) {
+        LoanBatchResult result = new LoanBatchResult();
+        List<Loan> loans = new ArrayList<>();
+        StockChanges stock = new StockChanges();
+        try {
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                if (!borrowerRepository.existsById(request.getBorrowerId())) {
+                    throw new IllegalArgumentException("Borrower id does not exist");
+                }
+                Map<Long, Deque<Loan>> openLoans = new HashMap<>();
+                for (Loan loan : loanRepository.findOpenLoans(request.getBorrowerId(), new HashSet<>(request.getItemIds()))) {
+                    openLoans.computeIfAbsent(loan.getItem().getId(), itemId -> new ArrayDeque<>()).add(loan);
+                }
+                // Oldest loan first per line; the loans were loaded read-only, so only the updates below change them
+                LocalDateTime returnDate = Helper.now();
+                List<Loan> closing = new ArrayList<>();
+                for (Long itemId : request.getItemIds()) {
+                    Deque<Loan> open = openLoans.get(itemId);
+                    closing.add(open != null ? open.poll() : null);
+                }
+                // Loan rows are locked in id order too, so concurrent returns do not deadlock on them
+                List<Loan> byId = new ArrayList<>();
+                closing.stream().filter(Objects::nonNull).sorted(Comparator.comparingLong(Loan::getId)).forEach(byId::add);
+                List<Object[]> updates = new ArrayList<>();
+                for (Loan loan : byId) {
+                    updates.add(new Object[] { Timestamp.valueOf(returnDate), Helper.formatDateTime(returnDate),
+                            loan.fineIfReturnedAt(returnDate), loan.getId() });
+                }
+                int[] counts = jdbcTemplate.batchUpdate(CLOSE_LOAN_SQL, updates);
+                Set<Long> closed = new HashSet<>();
+                for (int i = 0; i < counts.length; i++) {
+                    if (counts[i] == 1) {
+                        closed.add(byId.get(i).getId());
+                    }
+                }
+                Map<Long, Integer> units = new TreeMap<>();
+                for (int i = 0; i < closing.size(); i++) {
+                    Long itemId = request.getItemIds().get(i);
+                    Loan loan = closing.get(i);
+                    if (loan == null) {
+                        result.lineFailed(itemId, NO_LOAN_MESSAGE);
+                    } else if (!closed.contains(loan.getId())) {
+                        // Returned by another request since it was read; its unit was put back there
+                        result.lineFailed(itemId, RETURNED_MESSAGE);
+                    } else {
+                        loan.setReturnDate(returnDate);
+                        loan.calculateFine();
+                        loans.add(loan);
+                        units.merge(itemId, 1, Integer::sum);
+                        result.lineSucceeded(itemId, loan.getId());
+                    }
+                }
+                if (request.isAllOrNothing() && result.getFailed() > 0) {
+                    status.setRollbackOnly();
+                    return;
+                }
+                units.forEach(stock::give);
+            });
+        } catch (RuntimeException e) {
+            try {
+                stock.undo();
+            } catch (IllegalStateException undoFailed) {
+                e.addSuppressed(undoFailed);
+            }
+            throw e;
+        }
+        if (request.isAllOrNothing() && result.getFailed() > 0) {
+            result.notApplied();
+        } else if (!loans.isEmpty()) {
+            dashboardStatsService.loansChanged(stock.quantities.values(), 0, loans.size());
+            reportSummaryService.loansReturned(loans);
+            batchApplied("ITEM_RETURNED");
+        }
+        return result;
+    }
+
+    // Each attempt runs in a transaction of its own and undoes its stock changes when it fails
+    private static LoanBatchResult retryLockConflicts(Supplier<LoanBatchResult> attempt) {
+        for (int i = 1; ; i++) {
+            try {
+                return attempt.get();
+            } catch (PessimisticLockingFailureException e) {
+                if (i == LOCK_CONFLICT_ATTEMPTS) {
+                    throw e;
+                }
+                System.out.println("Loan batch lost a lock conflict, retrying: " + e.getMessage());
+            }
+        }
+    }
+
+    private void batchApplied(String eventType) {
+        cachingReportService.invalidate(CachingReportService.Region.LOANS);
+        cachingReportService.invalidate(CachingReportService.Region.ITEMS);
+        dashboardTrackingService.captureSnapshot(eventType);
+    }
+
+    private static void checkLines(LoanBatchRequest request) {
+        if (request.getItemIds() == null || request.getItemIds().isEmpty()) {
+            throw new IllegalArgumentException("No item ids were given.");
+        }
+        if (request.getItemIds().size() > MAX_LINES) {
+            throw new IllegalArgumentException("At most " + MAX_LINES + " items can be given at once.");
+        }
+        if (request.getItemIds().contains(null)) {
+            throw new IllegalArgumentException("Item ids must not be empty.");
+        }
+    }
+
+    // Lines per item, in ascending item id order
+    private static Map<Long, Integer> countLines(Collection<Long> itemIds) {
+        Map<Long, Integer> lines = new TreeMap<>();
+        itemIds.forEach(itemId -> lines.merge(itemId, 1, Integer::sum));
+        return lines;
+    }
+
+    // Stock changed by one batch: the {old, new} quantity of each item for the dashboard, and
+    // what the stock engine granted, which is not transactional and is given back on rollback
+    private final class StockChanges {
+        private final Map<Long, int[]> quantities = new HashMap<>();
+        private final Map<Long, Integer> granted = new HashMap<>();
+
+        // Takes count units, or when partial is set as many as are left; returns how many were taken
+        int take(long itemId, int count, boolean partial) {
+            if (change(itemId, -count)) {
+                return count;
+            }
+            int taken = 0;
+            while (partial && count > 1 && taken < count && change(itemId, -1)) {
+                taken++;
+            }
+            return taken;
+        }
+
+        void give(long itemId, int count) {
+            change(itemId, count);
+        }
+
+        // Gives back what the stock engine granted. Where the engine refuses, such as when issues
+        // took returned units meanwhile, the item is suspended and its database stock changed
+        // instead; if that is refused too the stock is wrong, and that is not kept quiet.
+        void undo() {
+            List<Long> failed = new ArrayList<>();
+            granted.forEach((itemId, delta) -> {
+                int quantity = stockEngine.change(itemId, -delta, () -> changeInDatabase(itemId, -delta));
+                if (quantity == StockEngine.OUT_OF_STOCK) {
+                    boolean[] changed = { false };
+                    stockEngine.runSuspended(itemId, () -> changed[0] = changeInDatabase(itemId, -delta) != StockEngine.OUT_OF_STOCK);
+                    if (!changed[0]) {
+                        failed.add(itemId);
+                    }
+                }
+            });
+            granted.clear();
+            if (!failed.isEmpty()) {
+                throw new IllegalStateException("The stock of items " + failed + " could not be restored after a failed loan batch.");
+            }
+        }
+
+        private int changeInDatabase(long itemId, int delta) {
+            int updated = delta < 0 ? itemRepository.takeStock(itemId, -delta) : itemRepository.returnStock(itemId, delta);
+            return updated == 0 ? StockEngine.OUT_OF_STOCK : itemRepository.findQuantity(itemId).orElse(0);
+        }
+
+        private boolean change(long itemId, int delta) {
+            boolean[] inDatabase = { false };
+            int quantity = stockEngine.change(itemId, delta, () -> {
+                inDatabase[0] = true;
+                return changeInDatabase(itemId, delta);
+            });
+            if (quantity == StockEngine.OUT_OF_STOCK) {
+                return false;
+            }
+            if (!inDatabase[0]) {
+                granted.merge(itemId, delta, Integer::sum);
+            }
+            int newQuantity = quantity;
+            quantities.computeIfAbsent(itemId, id -> new int[] { newQuantity - delta, newQuantity })[1] = newQuantity;
+            return true;
+        }
+    }
+}
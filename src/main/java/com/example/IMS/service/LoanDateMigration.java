@@ -0,0 +1,141 @@
+package com.example.IMS.service;
+
+import com.example.IMS.Utilities.Helper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Copies the loan dates kept as "yyyy/MM/dd HH:mm:ss" strings into the typed issued_at, due_at
+ * and returned_at columns, a batch of rows per transaction so that the table stays available
+ * while it runs. A full pass runs at startup, and while loans.date-migration.sweep-enabled is set
+ * the sweep repeats it for rows written by instances of the previous release during a rolling
+ * upgrade. Typed columns that are already set are never overwritten, so the pass can run on
+ * several instances at once.
+ *
+ * Each pass looks for the rows through the indexes on issued_at and returned_at, whose null
+ * entries are only the rows not yet copied and the open loans, so a sweep that finds nothing
+ * reads little. Until a row has been copied, {@link com.example.IMS.model.Loan} reads its dates
+ * from the strings when it is loaded; queries that filter on the typed columns only see it afterwards.
+ */
+@Service
+@DependsOn("entityManagerFactory")
+public class LoanDateMigration {
+
+    private static final String SELECT_COLUMNS = "select loan_id, issue_date, return_date, loan_duration from loan ";
+
+    private static final String UNCOPIED_ISSUES_SQL = SELECT_COLUMNS
+            + "where issued_at is null and loan_id > ? and issue_date is not null and issue_date <> '' "
+            + "order by loan_id limit ?";
+
+    private static final String UNCOPIED_RETURNS_SQL = SELECT_COLUMNS
+            + "where returned_at is null and loan_id > ? and return_date is not null and return_date <> '' "
+            + "order by loan_id limit ?";
+
+    private static final String UPDATE_SQL = "update loan set issued_at = coalesce(issued_at, ?), "
+            + "due_at = coalesce(due_at, ?), returned_at = coalesce(returned_at, ?) where loan_id = ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${loans.date-migration.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${loans.date-migration.sweep-enabled:true}")
+    private boolean sweepEnabled;
+
+    // Loans with a date no format reads; reported once and then passed over, as they cannot be copied
+    private final Set<Long> unreadable = ConcurrentHashMap.newKeySet();
+
+    @PostConstruct
+    public void start() {
+        migrate();
+    }
+
+    @Scheduled(initialDelayString = "${loans.date-migration.sweep-interval-ms:10000}",
+            fixedDelayString = "${loans.date-migration.sweep-interval-ms:10000}")
+    public void sweep() {
+        if (sweepEnabled) {
+            migrate();
+        }
+    }
+
+    // Copies every row not yet copied; returns how many rows were updated
+    public synchronized int migrate() {
+        long startTime = System.currentTimeMillis();
+        int migrated = migrate(UNCOPIED_ISSUES_SQL) + migrate(UNCOPIED_RETURNS_SQL);
+        if (migrated > 0) {
+            System.out.println("Copied the dates of " + migrated + " loans to typed columns in "
+                    + (System.currentTimeMillis() - startTime) + " ms");
+        }
+        return migrated;
+    }
+
+    private int migrate(String selectSql) {
+        int migrated = 0;
+        long afterId = 0;
+        while (true) {
+            List<Map<String, Object>> rows = jdbcTemplate.queryForList(selectSql, afterId, batchSize);
+            if (rows.isEmpty()) {
+                break;
+            }
+            List<Object[]> updates = new ArrayList<>();
+            for (Map<String, Object> row : rows) {
+                long loanId = ((Number) row.get("loan_id")).longValue();
+                if (unreadable.contains(loanId)) {
+                    continue;
+                }
+                String legacyIssueDate = (String) row.get("issue_date");
+                String legacyReturnDate = (String) row.get("return_date");
+                LocalDateTime issueDate = Helper.parseDateTime(legacyIssueDate);
+                LocalDateTime returnDate = Helper.parseDateTime(legacyReturnDate);
+                if (issueDate == null && isSet(legacyIssueDate) || returnDate == null && isSet(legacyReturnDate)) {
+                    System.out.println("Loan " + loanId + " has a date that cannot be read; "
+                            + "its readable dates are copied and it is not looked at again.");
+                    unreadable.add(loanId);
+                    if (issueDate == null && returnDate == null) {
+                        continue;
+                    }
+                }
+                LocalDateTime dueDate = issueDate != null
+                        ? issueDate.plusDays(((Number) row.get("loan_duration")).longValue()) : null;
+                updates.add(new Object[] { timestamp(issueDate), timestamp(dueDate), timestamp(returnDate), loanId });
+            }
+            if (!updates.isEmpty()) {
+                new TransactionTemplate(transactionManager).executeWithoutResult(
+                        status -> jdbcTemplate.batchUpdate(UPDATE_SQL, updates));
+            }
+            migrated += updates.size();
+            afterId = ((Number) rows.get(rows.size() - 1).get("loan_id")).longValue();
+            if (rows.size() < batchSize) {
+                break;
+            }
+        }
+        return migrated;
+    }
+
+    private static boolean isSet(String legacyDate) {
+        return legacyDate != null && !legacyDate.isEmpty();
+    }
+
+    private static Timestamp timestamp(LocalDateTime dateTime) {
+        return dateTime != null ? Timestamp.valueOf(dateTime) : null;
+    }
+}
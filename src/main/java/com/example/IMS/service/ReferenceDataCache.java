@@ -0,0 +1,192 @@
+package com.example.IMS.service;
+
+import com.example.IMS.model.Item;
+import com.example.IMS.model.ItemType;
+import com.example.IMS.model.ReferenceDataVersion;
+import com.example.IMS.model.Vendor;
+import com.example.IMS.repository.IItemTypeRepository;
+import com.example.IMS.repository.IReferenceDataVersionRepository;
+import com.example.IMS.repository.IVendorRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Holds every vendor and item type in memory, keyed by id and by normalized name, so the item
+ * forms look them up without touching the database. The data is loaded once the application
+ * is ready and updated in place by the vendor and item type write paths. Each write also bumps
+ * a shared version row; a periodic check compares it with the loaded version and reloads when
+ * another instance has written since.
+ *
+ * The cached entities are detached and shared between requests, so callers must not modify them.
+ */
+@Service
+public class ReferenceDataCache {
+
+    @Autowired
+    private IVendorRepository vendorRepository;
+
+    @Autowired
+    private IItemTypeRepository itemTypeRepository;
+
+    @Autowired
+    private IReferenceDataVersionRepository versionRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private volatile Snapshot snapshot = new Snapshot(-1, new TreeMap<>(), new TreeMap<>());
+
+    public Vendor getVendorById(long id) {
+        return snapshot.vendorsById.get(id);
+    }
+
+    public Vendor getVendorByName(String name) {
+        return snapshot.vendorsByName.get(Item.normalizeName(name));
+    }
+
+    public List<Vendor> getAllVendors() {
+        return snapshot.vendors;
+    }
+
+    public ItemType getItemTypeByName(String name) {
+        return snapshot.itemTypesByName.get(Item.normalizeName(name));
+    }
+
+    public List<ItemType> getAllItemTypes() {
+        return snapshot.itemTypes;
+    }
+
+    public long getVersion() {
+        return snapshot.version;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        if (!versionRepository.existsById(ReferenceDataVersion.ROW_ID)) {
+            try {
+                versionRepository.save(new ReferenceDataVersion(ReferenceDataVersion.ROW_ID, 0));
+            } catch (DataIntegrityViolationException e) {
+                // Another instance created the row first
+            }
+        }
+        reload();
+    }
+
+    @Scheduled(initialDelayString = "${reference-data.version-check-interval-ms:10000}",
+            fixedDelayString = "${reference-data.version-check-interval-ms:10000}")
+    public void checkVersion() {
+        long version = versionRepository.findVersion().orElse(0L);
+        if (version != snapshot.version) {
+            reload();
+        }
+    }
+
+    public void vendorSaved(Vendor vendor) {
+        long version = bump();
+        synchronized (this) {
+            if (!upToDate(version)) {
+                return;
+            }
+            Map<Long, Vendor> vendors = new TreeMap<>(snapshot.vendorsById);
+            vendors.put(vendor.getId(), vendor);
+            snapshot = new Snapshot(version, vendors, snapshot.itemTypesById);
+        }
+    }
+
+    public void vendorDeleted(long id) {
+        long version = bump();
+        synchronized (this) {
+            if (!upToDate(version)) {
+                return;
+            }
+            Map<Long, Vendor> vendors = new TreeMap<>(snapshot.vendorsById);
+            vendors.remove(id);
+            snapshot = new Snapshot(version, vendors, snapshot.itemTypesById);
+        }
+    }
+
+    public void itemTypeSaved(ItemType itemType) {
+        long version = bump();
+        synchronized (this) {
+            if (!upToDate(version)) {
+                return;
+            }
+            Map<Long, ItemType> itemTypes = new TreeMap<>(snapshot.itemTypesById);
+            itemTypes.put(itemType.getId(), itemType);
+            snapshot = new Snapshot(version, snapshot.vendorsById, itemTypes);
+        }
+    }
+
+    private long bump() {
+        versionRepository.bump();
+        return versionRepository.findVersion().orElse(0L);
+    }
+
+    // A write applies in place only when it is the one write since the loaded version;
+    // anything else means another instance wrote in between, so the whole set is read again
+    private boolean upToDate(long version) {
+        if (version == snapshot.version + 1) {
+            return true;
+        }
+        reload();
+        return false;
+    }
+
+    private synchronized void reload() {
+        // Read before the data, so a write that lands during the load is picked up by the next check
+        long version = versionRepository.findVersion().orElse(0L);
+        // Writes made by another instance are not in this instance's second-level cache either
+        entityManagerFactory.getCache().evict(Vendor.class);
+        entityManagerFactory.getCache().evict(ItemType.class);
+        Map<Long, Vendor> vendors = new TreeMap<>();
+        for (Vendor vendor : vendorRepository.findAll()) {
+            vendors.put(vendor.getId(), vendor);
+        }
+        Map<Long, ItemType> itemTypes = new TreeMap<>();
+        for (ItemType itemType : itemTypeRepository.findAll()) {
+            itemTypes.put(itemType.getId(), itemType);
+        }
+        snapshot = new Snapshot(version, vendors, itemTypes);
+    }
+
+    private static final class Snapshot {
+        private final long version;
+        private final Map<Long, Vendor> vendorsById;
+        private final Map<String, Vendor> vendorsByName = new HashMap<>();
+        private final List<Vendor> vendors;
+        private final Map<Long, ItemType> itemTypesById;
+        private final Map<String, ItemType> itemTypesByName = new HashMap<>();
+        private final List<ItemType> itemTypes;
+
+        private Snapshot(long version, Map<Long, Vendor> vendorsById, Map<Long, ItemType> itemTypesById) {
+            this.version = version;
+            this.vendorsById = vendorsById;
+            this.itemTypesById = itemTypesById;
+            // By id, so the first of two names that normalize alike wins, as the old scan did
+            for (Vendor vendor : vendorsById.values()) {
+                if (vendor.getName() != null) {
+                    vendorsByName.putIfAbsent(Item.normalizeName(vendor.getName()), vendor);
+                }
+            }
+            for (ItemType itemType : itemTypesById.values()) {
+                if (itemType.getTypeName() != null) {
+                    itemTypesByName.putIfAbsent(Item.normalizeName(itemType.getTypeName()), itemType);
+                }
+            }
+            this.vendors = Collections.unmodifiableList(new ArrayList<>(vendorsById.values()));
+            this.itemTypes = Collections.unmodifiableList(new ArrayList<>(itemTypesById.values()));
+        }
+    }
+}
@@ -0,0 +1,358 @@
+package com.example.IMS.service;
+
+import com.example.IMS.dto.StockReportRow;
+import com.example.IMS.Utilities.Helper;
+import com.example.IMS.model.Loan;
+import com.example.IMS.repository.IItemRepository;
+import com.example.IMS.repository.ILoanRepository;
+import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.LongConsumer;
+import java.util.stream.Stream;
+
+/**
+ * Writes the reports as CSV or XLSX straight from a database cursor. Rows are written as
+ * they are read and loaded entities are cleared from the persistence context every few
+ * hundred rows, so memory use does not grow with the size of the report.
+ */
+@Service
+public class ReportExportService {
+
+    public static final Set<String> REPORTS = Set.of("stock", "borrow-history", "borrowed-items", "issued-items");
+
+    // Loans loaded before the persistence context is cleared
+    private static final int CLEAR_INTERVAL = 500;
+    // Rows an XLSX export keeps in memory; older rows are flushed to a temporary file
+    private static final int XLSX_ROW_WINDOW = 100;
+
+    // Leading characters a spreadsheet program may read as the start of a formula; a tab or
+    // carriage return can hide one of the others from a check on the first character alone
+    private static final String FORMULA_PREFIXES = "=+-@\t\r";
+
+    private static final List<String> STOCK_HEADERS =
+            List.of("Item ID", "Item Name", "Type", "Quantity", "Price", "Status");
+    private static final List<String> ISSUED_HEADERS =
+            List.of("Loan ID", "Item", "Borrower", "Issue Date", "Return Date", "Status", "Fine");
+    private static final List<String> BORROWED_HEADERS =
+            List.of("Loan ID", "Item", "Borrower", "Email", "Issue Date", "Fine");
+
+    public enum Format {
+        CSV("text/csv", "csv"),
+        XLSX("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet", "xlsx");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        // Returns null for anything other than csv or xlsx
+        public static Format parse(String format) {
+            for (Format value : values()) {
+                if (value.extension.equalsIgnoreCase(format)) {
+                    return value;
+                }
+            }
+            return null;
+        }
+    }
+
+    @Autowired
+    private IItemRepository itemRepository;
+
+    @Autowired
+    private ILoanRepository loanRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // Repository streams hold a database cursor, which only lives as long as the transaction
+    private TransactionTemplate readOnlyTransaction;
+
+    @PostConstruct
+    public void init() {
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+    }
+
+    public void export(String report, LocalDate startDate, LocalDate endDate, Format format, OutputStream out)
+            throws IOException {
+        export(report, startDate, endDate, format, out, rows -> { });
+    }
+
+    // Same as export, reporting the number of data rows written so far as it goes
+    public void export(String report, LocalDate startDate, LocalDate endDate, Format format, OutputStream out,
+                       LongConsumer progress) throws IOException {
+        try (RowWriter writer = new ProgressRowWriter(
+                format == Format.XLSX ? new XlsxRowWriter(out) : new CsvRowWriter(out), progress)) {
+            try {
+                readOnlyTransaction.executeWithoutResult(status -> writeReport(report, startDate, endDate, writer));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            writer.finish();
+        }
+    }
+
+    // Number of data rows the report will contain, for progress reporting
+    public long countRows(String report, LocalDate startDate, LocalDate endDate) {
+        switch (report) {
+            case "stock":
+                return itemRepository.count();
+            case "borrowed-items":
+                return loanRepository.countActiveLoans();
+            default:
+                return loanRepository.countIssuedBetween(ReportService.rangeStart(startDate), ReportService.rangeEnd(endDate));
+        }
+    }
+
+    private void writeReport(String report, LocalDate startDate, LocalDate endDate, RowWriter writer) {
+        switch (report) {
+            case "stock":
+                writeRow(writer, STOCK_HEADERS);
+                try (Stream<StockReportRow> rows = itemRepository.streamStockRows()) {
+                    rows.forEach(row -> writeRow(writer, stockRow(row)));
+                }
+                break;
+            case "borrowed-items":
+                writeRow(writer, BORROWED_HEADERS);
+                writeLoans(loanRepository.streamActiveLoans(), writer, ReportExportService::borrowedRow);
+                break;
+            case "borrow-history":
+            case "issued-items":
+                writeRow(writer, ISSUED_HEADERS);
+                writeLoans(loanRepository.streamIssuedBetween(ReportService.rangeStart(startDate),
+                        ReportService.rangeEnd(endDate)), writer, ReportExportService::issuedRow);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown report: " + report);
+        }
+    }
+
+    private void writeLoans(Stream<Loan> loans, RowWriter writer, Function<Loan, List<?>> toRow) {
+        try (loans) {
+            Iterator<Loan> iterator = loans.iterator();
+            int loaded = 0;
+            while (iterator.hasNext()) {
+                writeRow(writer, toRow.apply(iterator.next()));
+                if (++loaded % CLEAR_INTERVAL == 0) {
+                    entityManager.clear();
+                }
+            }
+        }
+    }
+
+    private static void writeRow(RowWriter writer, List<?> values) {
+        try {
+            writer.writeRow(values);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static List<?> stockRow(StockReportRow row) {
+        String status = row.getQuantity() == 0 ? "Out of Stock"
+                : row.getQuantity() < DashboardStatsService.LOW_STOCK_THRESHOLD ? "Low Stock" : "In Stock";
+        return Arrays.asList(row.getId(), row.getName(), row.getTypeName() != null ? row.getTypeName() : "N/A",
+                row.getQuantity(), row.getPrice(), status);
+    }
+
+    private static List<?> issuedRow(Loan loan) {
+        boolean returned = loan.isReturned();
+        return Arrays.asList(loan.getId(), loan.getItem().getName(), borrowerName(loan),
+                Helper.formatDateTime(loan.getIssueDate()),
+                returned ? Helper.formatDateTime(loan.getReturnDate()) : "Not Returned", returned ? "Returned" : "Borrowed",
+                loan.getTotalFine());
+    }
+
+    private static List<?> borrowedRow(Loan loan) {
+        return Arrays.asList(loan.getId(), loan.getItem().getName(), borrowerName(loan),
+                loan.getBorrower().getEmail(), Helper.formatDateTime(loan.getIssueDate()), loan.getTotalFine());
+    }
+
+    private static String borrowerName(Loan loan) {
+        return loan.getBorrower().getFirstName() + " " + loan.getBorrower().getLastName();
+    }
+
+    // One CSV field: text that looks like a formula is prefixed with a quote, and a field holding a
+    // separator, quote or line break is quoted
+    static String csvField(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value.toString();
+        if (value instanceof String && !text.isEmpty() && FORMULA_PREFIXES.indexOf(text.charAt(0)) >= 0) {
+            // Keep spreadsheet programs from evaluating user-entered text as a formula
+            text = "'" + text;
+        }
+        if (text.indexOf(',') >= 0 || text.indexOf('"') >= 0 || text.indexOf('\n') >= 0 || text.indexOf('\r') >= 0) {
+            return '"' + text.replace("\"", "\"\"") + '"';
+        }
+        return text;
+    }
+
+    private interface RowWriter extends Closeable {
+        void writeRow(List<?> values) throws IOException;
+
+        void finish() throws IOException;
+    }
+
+    // Counts data rows, that is every row after the header
+    private static final class ProgressRowWriter implements RowWriter {
+        private static final int REPORT_INTERVAL = 100;
+
+        private final RowWriter delegate;
+        private final LongConsumer progress;
+        private long rows = -1;
+
+        private ProgressRowWriter(RowWriter delegate, LongConsumer progress) {
+            this.delegate = delegate;
+            this.progress = progress;
+        }
+
+        @Override
+        public void writeRow(List<?> values) throws IOException {
+            delegate.writeRow(values);
+            if (++rows > 0 && rows % REPORT_INTERVAL == 0) {
+                progress.accept(rows);
+            }
+        }
+
+        @Override
+        public void finish() throws IOException {
+            delegate.finish();
+            progress.accept(Math.max(rows, 0));
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+    }
+
+    private static final class CsvRowWriter implements RowWriter {
+        private final Writer writer;
+
+        private CsvRowWriter(OutputStream out) throws IOException {
+            writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            // Byte order mark, so spreadsheet programs read the file as UTF-8
+            writer.write('\uFEFF');
+        }
+
+        @Override
+        public void writeRow(List<?> values) throws IOException {
+            for (int i = 0; i < values.size(); i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                writer.write(csvField(values.get(i)));
+            }
+            writer.write("\r\n");
+        }
+
+        @Override
+        public void finish() throws IOException {
+            writer.flush();
+        }
+
+        // The output stream belongs to the caller, so closing only flushes what is buffered
+        @Override
+        public void close() throws IOException {
+            writer.flush();
+        }
+    }
+
+    private static final class XlsxRowWriter implements RowWriter {
+        private static final int MAX_ROWS = SpreadsheetVersion.EXCEL2007.getMaxRows();
+
+        private final OutputStream out;
+        private final SXSSFWorkbook workbook = new SXSSFWorkbook(XLSX_ROW_WINDOW);
+        private List<?> headers;
+        private Sheet sheet;
+        private int rowIndex;
+
+        private XlsxRowWriter(OutputStream out) {
+            this.out = out;
+            workbook.setCompressTempFiles(true);
+        }
+
+        @Override
+        public void writeRow(List<?> values) {
+            if (headers == null) {
+                headers = values;
+            }
+            // Reports longer than one sheet continue on a new sheet with the same header row
+            if (sheet == null || rowIndex == MAX_ROWS) {
+                sheet = workbook.createSheet("Report " + (workbook.getNumberOfSheets() + 1));
+                rowIndex = 0;
+                if (values != headers) {
+                    addRow(headers);
+                }
+            }
+            addRow(values);
+        }
+
+        private void addRow(List<?> values) {
+            Row row = sheet.createRow(rowIndex++);
+            for (int i = 0; i < values.size(); i++) {
+                Object value = values.get(i);
+                Cell cell = row.createCell(i);
+                if (value instanceof Number) {
+                    cell.setCellValue(((Number) value).doubleValue());
+                } else if (value != null) {
+                    cell.setCellValue(value.toString());
+                }
+            }
+        }
+
+        @Override
+        public void finish() throws IOException {
+            workbook.write(out);
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            workbook.dispose();
+            workbook.close();
+        }
+    }
+}
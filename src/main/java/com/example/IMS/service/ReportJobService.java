@@ -0,0 +1,161 @@
+package com.example.IMS.service;
+
+import com.example.IMS.dto.ReportJob;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Runs report exports in the background so long reports do not hold a request thread.
+ * Jobs run on a small dedicated pool with a bounded queue, each user may only have a few
+ * jobs queued or running at once, and finished files are kept on local disk until they
+ * pass the retention period.
+ */
+@Service
+public class ReportJobService {
+
+    @Autowired
+    private ReportExportService reportExportService;
+
+    @Value("${reports.jobs.directory:${java.io.tmpdir}/ims-report-jobs}")
+    private String directory;
+
+    @Value("${reports.jobs.threads:2}")
+    private int threads;
+
+    @Value("${reports.jobs.queue-capacity:20}")
+    private int queueCapacity;
+
+    @Value("${reports.jobs.max-per-user:2}")
+    private int maxPerUser;
+
+    @Value("${reports.jobs.retention-ms:86400000}")
+    private long retentionMs;
+
+    private final Map<String, ReportJob> jobs = new ConcurrentHashMap<>();
+    private Path jobDirectory;
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    public void start() throws IOException {
+        jobDirectory = Paths.get(directory);
+        Files.createDirectories(jobDirectory);
+        // Jobs only live in memory, so files left by a previous run can never be downloaded
+        try (Stream<Path> files = Files.list(jobDirectory)) {
+            for (Path file : files.collect(Collectors.toList())) {
+                Files.deleteIfExists(file);
+            }
+        }
+        AtomicInteger threadNumber = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "report-job-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    // Throws IllegalStateException when the user or the whole pool already has too many jobs
+    public synchronized ReportJob submit(String owner, String report, ReportExportService.Format format,
+                                         LocalDate startDate, LocalDate endDate) {
+        long active = jobs.values().stream()
+                .filter(job -> job.getOwner().equals(owner) && !job.isFinished())
+                .count();
+        if (active >= maxPerUser) {
+            throw new IllegalStateException("You already have " + active + " reports running. Try again when one finishes.");
+        }
+        String id = UUID.randomUUID().toString();
+        ReportJob job = new ReportJob(id, owner, report, format.getExtension(), startDate, endDate,
+                jobDirectory.resolve(id + "." + format.getExtension()));
+        try {
+            executor.execute(() -> run(job, format));
+        } catch (RejectedExecutionException e) {
+            throw new IllegalStateException("Too many reports are queued. Try again later.");
+        }
+        jobs.put(id, job);
+        return job;
+    }
+
+    // Returns null unless the job exists and belongs to the user
+    public ReportJob getJob(String id, String owner) {
+        ReportJob job = jobs.get(id);
+        return job != null && job.getOwner().equals(owner) ? job : null;
+    }
+
+    public List<ReportJob> getJobs(String owner) {
+        return jobs.values().stream()
+                .filter(job -> job.getOwner().equals(owner))
+                .sorted(Comparator.comparing(ReportJob::getCreatedAt).reversed())
+                .collect(Collectors.toList());
+    }
+
+    @Scheduled(fixedDelayString = "${reports.jobs.purge-interval-ms:600000}")
+    public void purge() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(retentionMs, ChronoUnit.MILLIS);
+        for (ReportJob job : jobs.values()) {
+            if (job.isFinished() && job.getFinishedAt().isBefore(cutoff)) {
+                jobs.remove(job.getId());
+                deleteQuietly(job.getFile());
+            }
+        }
+    }
+
+    private void run(ReportJob job, ReportExportService.Format format) {
+        job.setStatus(ReportJob.Status.RUNNING);
+        Path partial = job.getFile().resolveSibling(job.getFile().getFileName() + ".part");
+        try {
+            job.setTotalRows(reportExportService.countRows(job.getReport(), job.getStartDate(), job.getEndDate()));
+            try (OutputStream out = Files.newOutputStream(partial)) {
+                reportExportService.export(job.getReport(), job.getStartDate(), job.getEndDate(), format, out,
+                        job::setRowsWritten);
+            }
+            Files.move(partial, job.getFile(), StandardCopyOption.REPLACE_EXISTING);
+            job.setFinishedAt(LocalDateTime.now());
+            job.setStatus(ReportJob.Status.DONE);
+        } catch (Exception e) {
+            System.out.println("Report job " + job.getId() + " failed: " + e.getMessage());
+            deleteQuietly(partial);
+            job.setError("The report could not be generated.");
+            job.setFinishedAt(LocalDateTime.now());
+            job.setStatus(ReportJob.Status.FAILED);
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            System.out.println("Could not delete report file " + file + ": " + e.getMessage());
+        }
+    }
+}
@@ -1,48 +1,156 @@
 package com.example.IMS.service;
 
+import com.example.IMS.dto.BorrowedItemRow;
+import com.example.IMS.dto.DataTablesResponse;
+import com.example.IMS.dto.IssuedItemRow;
+import com.example.IMS.dto.StockPageRequest;
+import com.example.IMS.dto.StockReportRow;
+import com.example.IMS.Utilities.ChunkedRows;
 import com.example.IMS.model.Item;
-import com.example.IMS.model.Loan;
 import com.example.IMS.repository.IItemRepository;
 import com.example.IMS.repository.ILoanRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.*;
-import java.util.stream.Collectors;
 
 @Service
 public class ReportService implements IReportService {
 
+    private static final int MAX_PAGE_SIZE = 500;
+
+    // Sortable stock report columns and the expressions they sort on; anything else sorts by id
+    private static final Map<String, String> STOCK_SORT_EXPRESSIONS = Map.of(
+            "id", "i.id",
+            "name", "i.name",
+            "typeName", "coalesce(t.typeName, '')",
+            "quantity", "i.quantity",
+            "price", "i.price");
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
     @Autowired
     private IItemRepository itemRepository;
 
     @Autowired
     private ILoanRepository loanRepository;
 
+    @Autowired
+    private ReportSummaryService reportSummaryService;
+
+    @Value("${rendering.chunk-size:200}")
+    private int chunkSize;
+
     @Override
     public List<Item> getItemStockReport() {
         return itemRepository.findAll();
     }
 
+    @Override
+    public DataTablesResponse<StockReportRow> getItemStockPage(StockPageRequest request) {
+        String sortColumn = STOCK_SORT_EXPRESSIONS.containsKey(request.getSortColumn()) ? request.getSortColumn() : "id";
+        String sortExpression = STOCK_SORT_EXPRESSIONS.get(sortColumn);
+        String search = request.getSearch() != null ? request.getSearch().trim().toLowerCase() : "";
+        int length = request.getLength() > 0 ? Math.min(request.getLength(), MAX_PAGE_SIZE) : MAX_PAGE_SIZE;
+
+        String searchWhere = search.isEmpty() ? " where 1 = 1"
+                : " where (lower(i.name) like :search or lower(t.typeName) like :search)";
+        StringBuilder where = new StringBuilder(searchWhere);
+
+        // Seek past the edge row of the current page; a previous-page seek walks the order backwards
+        Object keyValue = null;
+        Long keyId = null;
+        boolean backwards = false;
+        if (request.getAfterId() != null) {
+            keyValue = parseSortValue(sortColumn, request.getAfterValue());
+            keyId = request.getAfterId();
+        } else if (request.getBeforeId() != null) {
+            keyValue = parseSortValue(sortColumn, request.getBeforeValue());
+            keyId = request.getBeforeId();
+            backwards = true;
+        }
+        boolean seek = keyValue != null;
+        boolean descending = request.isDescending() != backwards;
+        String comparison = descending ? "<" : ">";
+        if (seek) {
+            where.append(" and (").append(sortExpression).append(' ').append(comparison).append(" :keyValue or (")
+                    .append(sortExpression).append(" = :keyValue and i.id ").append(comparison).append(" :keyId))");
+        }
+        String direction = descending ? " desc" : " asc";
+        String orderBy = " order by " + sortExpression + direction + ", i.id" + direction;
+
+        TypedQuery<StockReportRow> query = entityManager.createQuery(
+                "select new com.example.IMS.dto.StockReportRow(i.id, i.name, t.typeName, i.quantity, i.price)"
+                        + " from Item i left join i.itemType t" + where + orderBy, StockReportRow.class);
+        if (!search.isEmpty()) {
+            query.setParameter("search", "%" + search + "%");
+        }
+        if (seek) {
+            query.setParameter("keyValue", keyValue);
+            query.setParameter("keyId", keyId);
+        } else {
+            query.setFirstResult(Math.max(request.getStart(), 0));
+        }
+        query.setMaxResults(length);
+        List<StockReportRow> rows = new ArrayList<>(query.getResultList());
+        if (backwards) {
+            Collections.reverse(rows);
+        }
+
+        long total = itemRepository.count();
+        long filtered = total;
+        if (!search.isEmpty()) {
+            filtered = entityManager.createQuery(
+                    "select count(i) from Item i left join i.itemType t" + searchWhere, Long.class)
+                    .setParameter("search", "%" + search + "%")
+                    .getSingleResult();
+        }
+        return new DataTablesResponse<>(request.getDraw(), total, filtered, rows);
+    }
+
+    // Returns null when the value does not fit the column, which falls back to offset paging
+    private static Object parseSortValue(String sortColumn, String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            switch (sortColumn) {
+                case "id":
+                    return Long.valueOf(value);
+                case "quantity":
+                    return Integer.valueOf(value);
+                case "price":
+                    return Double.valueOf(value);
+                default:
+                    return value;
+            }
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
     @Override
     public long getTotalItemsCount() {
         return itemRepository.count();
     }
 
+    // A range read on idx_item_quantity_id, so it reads the low stock items rather than all of them
     @Override
     public long getLowStockItemsCount() {
-        return itemRepository.findAll().stream()
-                .filter(item -> item.getQuantity() < 10)
-                .count();
+        return itemRepository.countByQuantityLessThan(DashboardStatsService.LOW_STOCK_THRESHOLD);
     }
 
     @Override
-    public List<Loan> getBorrowHistoryReport(LocalDate startDate, LocalDate endDate) {
-        // Get all loans - dates are stored as strings in the model
-        return loanRepository.findAll().stream()
-                .filter(loan -> loan.getIssueDate() != null && !loan.getIssueDate().isEmpty())
-                .collect(Collectors.toList());
+    public ChunkedRows<IssuedItemRow> getBorrowHistoryReport(LocalDate startDate, LocalDate endDate) {
+        return getIssuedItemsReport(startDate, endDate);
     }
 
     @Override
@@ -51,58 +159,36 @@ public class ReportService implements IReportService {
     }
 
     @Override
-    public List<Map<String, Object>> getCurrentlyBorrowedItems() {
-        List<Map<String, Object>> borrowedItems = new ArrayList<>();
-        
-        List<Loan> activeLoans = loanRepository.findAll().stream()
-                .filter(loan -> loan.getReturnDate() == null || loan.getReturnDate().isEmpty())
-                .collect(Collectors.toList());
-        
-        for (Loan loan : activeLoans) {
-            Map<String, Object> itemInfo = new HashMap<>();
-            itemInfo.put("loanId", loan.getId());
-            itemInfo.put("itemName", loan.getItem().getName());
-            itemInfo.put("borrowerName", loan.getBorrower().getFirstName() + " " + loan.getBorrower().getLastName());
-            itemInfo.put("borrowerEmail", loan.getBorrower().getEmail());
-            itemInfo.put("issueDate", loan.getIssueDate());
-            itemInfo.put("dueDate", "N/A"); // Calculate based on loan duration if needed
-            itemInfo.put("fine", loan.getTotalFine());
-            borrowedItems.add(itemInfo);
-        }
-        
-        return borrowedItems;
+    public ChunkedRows<BorrowedItemRow> getCurrentlyBorrowedItems() {
+        return new ChunkedRows<>(chunkSize, last -> loanRepository.findBorrowedItemRows(
+                last != null ? last.getLoanId() : -1, PageRequest.of(0, chunkSize)));
     }
 
     @Override
     public long getCurrentlyBorrowedCount() {
-        return loanRepository.findAll().stream()
-                .filter(loan -> loan.getReturnDate() == null || loan.getReturnDate().isEmpty())
-                .count();
+        return reportSummaryService.getActiveLoanCount();
     }
 
     @Override
-    public List<Map<String, Object>> getIssuedItemsReport(LocalDate startDate, LocalDate endDate) {
-        List<Map<String, Object>> issuedItems = new ArrayList<>();
-        
-        List<Loan> loans = loanRepository.findAll();
-        
-        for (Loan loan : loans) {
-            Map<String, Object> itemInfo = new HashMap<>();
-            itemInfo.put("loanId", loan.getId());
-            itemInfo.put("itemName", loan.getItem().getName());
-            itemInfo.put("borrowerName", loan.getBorrower().getFirstName() + " " + loan.getBorrower().getLastName());
-            itemInfo.put("issueDate", loan.getIssueDate());
-            itemInfo.put("returnDate", loan.getReturnDate() != null && !loan.getReturnDate().isEmpty() ? loan.getReturnDate() : null);
-            itemInfo.put("status", loan.getReturnDate() == null || loan.getReturnDate().isEmpty() ? "Borrowed" : "Returned");
-            itemInfo.put("fine", loan.getTotalFine());
-            issuedItems.add(itemInfo);
-        }
-        
-        return issuedItems;
+    public ChunkedRows<IssuedItemRow> getIssuedItemsReport(LocalDate startDate, LocalDate endDate) {
+        LocalDateTime from = rangeStart(startDate);
+        LocalDateTime to = rangeEnd(endDate);
+        return new ChunkedRows<>(chunkSize, last -> loanRepository.findIssuedItemRows(
+                last != null ? last.getIssuedAt() : from, last != null ? last.getLoanId() : -1, to,
+                PageRequest.of(0, chunkSize)));
     }
 
     @Override
     public long getTotalIssuedCount(LocalDate startDate, LocalDate endDate) {
-        return loanRepository.count();
+        return reportSummaryService.getIssuedCount(startDate, endDate);
+    }
+
+    static LocalDateTime rangeStart(LocalDate startDate) {
+        return startDate.atStartOfDay();
+    }
+
+    // Exclusive upper bound, so every time on the end date is still inside the range
+    static LocalDateTime rangeEnd(LocalDate endDate) {
+        return endDate.plusDays(1).atStartOfDay();
     }
 }
@@ -0,0 +1,303 @@
+package com.example.IMS.service;
+
+import com.example.IMS.model.BorrowerFineSummary;
+import com.example.IMS.model.DailyLoanSummary;
+import com.example.IMS.model.ItemLoanSummary;
+import com.example.IMS.model.Loan;
+import com.example.IMS.repository.IBorrowerFineSummaryRepository;
+import com.example.IMS.repository.IDailyLoanSummaryRepository;
+import com.example.IMS.repository.IItemLoanSummaryRepository;
+import com.example.IMS.repository.ILoanRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Keeps the report summary tables (active loans per item, outstanding fine per borrower and
+ * loans issued and returned per day) in step with the loan and fine write paths, so report
+ * reads are a lookup instead of a scan over every loan. The tables can be rebuilt from the
+ * loan table at any time, and a periodic check logs any drift between the two.
+ */
+@Service
+public class ReportSummaryService {
+
+    // Fine totals are sums of doubles, so tiny differences are rounding rather than drift
+    private static final double FINE_TOLERANCE = 0.005;
+
+    @Autowired
+    private ILoanRepository loanRepository;
+
+    @Autowired
+    private IItemLoanSummaryRepository itemLoanSummaryRepository;
+
+    @Autowired
+    private IBorrowerFineSummaryRepository borrowerFineSummaryRepository;
+
+    @Autowired
+    private IDailyLoanSummaryRepository dailyLoanSummaryRepository;
+
+    // First start after the summary tables were introduced: fill them from the existing loans
+    @EventListener(ApplicationReadyEvent.class)
+    public void seed() {
+        if (itemLoanSummaryRepository.count() == 0 && dailyLoanSummaryRepository.count() == 0 && loanRepository.count() > 0) {
+            rebuild();
+        }
+    }
+
+    public void loanIssued(Loan loan) {
+        loansIssued(List.of(loan));
+    }
+
+    public void loanReturned(Loan loan) {
+        loansReturned(List.of(loan));
+    }
+
+    // Loans of a batch are summed first, so each summary row is written once per batch
+    public synchronized void loansIssued(Collection<Loan> loans) {
+        Map<Long, Long> activeLoans = new HashMap<>();
+        Map<LocalDate, Long> issued = new HashMap<>();
+        for (Loan loan : loans) {
+            if (loan.getItem() != null) {
+                activeLoans.merge(loan.getItem().getId(), 1L, Long::sum);
+            }
+            LocalDate day = loanDay(loan.getIssueDate());
+            if (day != null) {
+                issued.merge(day, 1L, Long::sum);
+            }
+        }
+        activeLoans.forEach(this::addActiveLoans);
+        issued.forEach((day, count) -> addDailyCounts(day, count, 0));
+    }
+
+    public synchronized void loansReturned(Collection<Loan> loans) {
+        Map<Long, Long> activeLoans = new HashMap<>();
+        Map<Long, Double> fines = new HashMap<>();
+        Map<LocalDate, Long> returned = new HashMap<>();
+        for (Loan loan : loans) {
+            if (loan.getItem() != null) {
+                activeLoans.merge(loan.getItem().getId(), -1L, Long::sum);
+            }
+            if (loan.getBorrower() != null) {
+                fines.merge(loan.getBorrower().getId(), loan.getTotalFine(), Double::sum);
+            }
+            LocalDate day = loanDay(loan.getReturnDate());
+            if (day != null) {
+                returned.merge(day, 1L, Long::sum);
+            }
+        }
+        activeLoans.forEach(this::addActiveLoans);
+        fines.forEach(this::addFine);
+        returned.forEach((day, count) -> addDailyCounts(day, 0, count));
+    }
+
+    public synchronized void loanDeleted(Loan loan) {
+        boolean returned = loan.isReturned();
+        if (loan.getItem() != null && !returned) {
+            addActiveLoans(loan.getItem().getId(), -1);
+        }
+        if (loan.getBorrower() != null) {
+            addFine(loan.getBorrower().getId(), -loan.getTotalFine());
+        }
+        addDailyCounts(loanDay(loan.getIssueDate()), -1, 0);
+        if (returned) {
+            addDailyCounts(loanDay(loan.getReturnDate()), 0, -1);
+        }
+    }
+
+    public synchronized void fineChanged(long borrowerId, double delta) {
+        addFine(borrowerId, delta);
+    }
+
+    public synchronized void itemDeleted(long itemId) {
+        if (itemLoanSummaryRepository.existsById(itemId)) {
+            itemLoanSummaryRepository.deleteById(itemId);
+        }
+    }
+
+    public long getActiveLoanCount() {
+        return itemLoanSummaryRepository.sumActiveLoans();
+    }
+
+    public long getIssuedCount(LocalDate startDate, LocalDate endDate) {
+        return dailyLoanSummaryRepository.sumIssued(startDate, endDate);
+    }
+
+    public List<DailyLoanSummary> getDailyCounts(LocalDate startDate, LocalDate endDate) {
+        return dailyLoanSummaryRepository.findByDayBetweenOrderByDayAsc(startDate, endDate);
+    }
+
+    public double getOutstandingFine(long borrowerId) {
+        return borrowerFineSummaryRepository.findById(borrowerId)
+                .map(BorrowerFineSummary::getOutstandingFine)
+                .orElse(0.0);
+    }
+
+    // Replaces the summary tables with totals computed from the loan table
+    @Transactional
+    public synchronized Map<String, Object> rebuild() {
+        Expected expected = computeExpected();
+        itemLoanSummaryRepository.deleteAllInBatch();
+        borrowerFineSummaryRepository.deleteAllInBatch();
+        dailyLoanSummaryRepository.deleteAllInBatch();
+
+        List<ItemLoanSummary> items = new ArrayList<>();
+        expected.activeLoans.forEach((itemId, count) -> items.add(new ItemLoanSummary(itemId, count)));
+        itemLoanSummaryRepository.saveAll(items);
+
+        List<BorrowerFineSummary> fines = new ArrayList<>();
+        expected.fines.forEach((borrowerId, fine) -> fines.add(new BorrowerFineSummary(borrowerId, fine)));
+        borrowerFineSummaryRepository.saveAll(fines);
+
+        List<DailyLoanSummary> days = new ArrayList<>();
+        Set<LocalDate> allDays = new HashSet<>(expected.issued.keySet());
+        allDays.addAll(expected.returned.keySet());
+        for (LocalDate day : allDays) {
+            days.add(new DailyLoanSummary(day, expected.issued.getOrDefault(day, 0L), expected.returned.getOrDefault(day, 0L)));
+        }
+        dailyLoanSummaryRepository.saveAll(days);
+
+        System.out.println("Report summaries rebuilt: " + items.size() + " items, " + fines.size()
+                + " borrowers, " + days.size() + " days");
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("items", items.size());
+        result.put("borrowers", fines.size());
+        result.put("days", days.size());
+        return result;
+    }
+
+    // Compares the summary tables with the loan table and lists every row that disagrees
+    public synchronized List<String> check() {
+        Expected expected = computeExpected();
+        List<String> discrepancies = new ArrayList<>();
+
+        Map<Long, Long> storedLoans = new HashMap<>();
+        itemLoanSummaryRepository.findAll().forEach(s -> storedLoans.put(s.getItemId(), s.getActiveLoans()));
+        for (Long itemId : union(expected.activeLoans.keySet(), storedLoans.keySet())) {
+            long want = expected.activeLoans.getOrDefault(itemId, 0L);
+            long have = storedLoans.getOrDefault(itemId, 0L);
+            if (want != have) {
+                discrepancies.add("item " + itemId + ": active loans " + have + ", expected " + want);
+            }
+        }
+
+        Map<Long, Double> storedFines = new HashMap<>();
+        borrowerFineSummaryRepository.findAll().forEach(s -> storedFines.put(s.getBorrowerId(), s.getOutstandingFine()));
+        for (Long borrowerId : union(expected.fines.keySet(), storedFines.keySet())) {
+            double want = expected.fines.getOrDefault(borrowerId, 0.0);
+            double have = storedFines.getOrDefault(borrowerId, 0.0);
+            if (Math.abs(want - have) > FINE_TOLERANCE) {
+                discrepancies.add("borrower " + borrowerId + ": outstanding fine " + have + ", expected " + want);
+            }
+        }
+
+        Map<LocalDate, DailyLoanSummary> storedDays = new HashMap<>();
+        dailyLoanSummaryRepository.findAll().forEach(s -> storedDays.put(s.getDay(), s));
+        Set<LocalDate> days = union(expected.issued.keySet(), expected.returned.keySet());
+        days.addAll(storedDays.keySet());
+        for (LocalDate day : days) {
+            DailyLoanSummary stored = storedDays.get(day);
+            long issued = stored != null ? stored.getIssuedCount() : 0;
+            long returned = stored != null ? stored.getReturnedCount() : 0;
+            if (issued != expected.issued.getOrDefault(day, 0L) || returned != expected.returned.getOrDefault(day, 0L)) {
+                discrepancies.add("day " + day + ": issued/returned " + issued + "/" + returned + ", expected "
+                        + expected.issued.getOrDefault(day, 0L) + "/" + expected.returned.getOrDefault(day, 0L));
+            }
+        }
+        return discrepancies;
+    }
+
+    @Scheduled(initialDelayString = "${reports.summary.check-interval-ms:3600000}",
+            fixedDelayString = "${reports.summary.check-interval-ms:3600000}")
+    public void scheduledCheck() {
+        List<String> discrepancies = check();
+        if (!discrepancies.isEmpty()) {
+            System.out.println("Report summaries disagree with the loan table in " + discrepancies.size()
+                    + " rows, first: " + discrepancies.get(0));
+        }
+    }
+
+    private void addActiveLoans(long itemId, long delta) {
+        if (itemLoanSummaryRepository.addActiveLoans(itemId, delta) == 0) {
+            itemLoanSummaryRepository.save(new ItemLoanSummary(itemId, delta));
+        }
+    }
+
+    private void addFine(long borrowerId, double delta) {
+        if (delta == 0) {
+            return;
+        }
+        if (borrowerFineSummaryRepository.addFine(borrowerId, delta) == 0) {
+            borrowerFineSummaryRepository.save(new BorrowerFineSummary(borrowerId, delta));
+        }
+    }
+
+    private void addDailyCounts(LocalDate day, long issued, long returned) {
+        if (day == null) {
+            return;
+        }
+        if (dailyLoanSummaryRepository.addCounts(day, issued, returned) == 0) {
+            dailyLoanSummaryRepository.save(new DailyLoanSummary(day, issued, returned));
+        }
+    }
+
+    private Expected computeExpected() {
+        Expected expected = new Expected();
+        for (Object[] row : loanRepository.countActiveLoansByItem()) {
+            expected.activeLoans.put((Long) row[0], (Long) row[1]);
+        }
+        for (Object[] row : loanRepository.sumFinesByBorrower()) {
+            expected.fines.put((Long) row[0], row[1] != null ? (Double) row[1] : 0.0);
+        }
+        for (Object[] row : loanRepository.countIssuedByDay()) {
+            LocalDate day = loanDay((Date) row[0]);
+            if (day != null) {
+                expected.issued.merge(day, (Long) row[1], Long::sum);
+            }
+        }
+        for (Object[] row : loanRepository.countReturnedByDay()) {
+            LocalDate day = loanDay((Date) row[0]);
+            if (day != null) {
+                expected.returned.merge(day, (Long) row[1], Long::sum);
+            }
+        }
+        return expected;
+    }
+
+    // Loans without the date are left out of the daily counts
+    private static LocalDate loanDay(LocalDateTime date) {
+        return date != null ? date.toLocalDate() : null;
+    }
+
+    // The days the loan table is grouped by come back as java.sql.Date
+    private static LocalDate loanDay(Date day) {
+        return day != null ? day.toLocalDate() : null;
+    }
+
+    private static <T> Set<T> union(Set<T> first, Set<T> second) {
+        Set<T> union = new HashSet<>(first);
+        union.addAll(second);
+        return union;
+    }
+
+    private static final class Expected {
+        private final Map<Long, Long> activeLoans = new HashMap<>();
+        private final Map<Long, Double> fines = new HashMap<>();
+        private final Map<LocalDate, Long> issued = new HashMap<>();
+        private final Map<LocalDate, Long> returned = new HashMap<>();
+    }
+}
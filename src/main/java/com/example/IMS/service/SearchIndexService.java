@@ -0,0 +1,146 @@
+package com.example.IMS.service;
+
+import com.example.IMS.Utilities.TrigramIndex;
+import com.example.IMS.dto.SearchResult;
+import com.example.IMS.repository.IBorrowerRepository;
+import com.example.IMS.repository.IItemRepository;
+import com.example.IMS.repository.IVendorRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Name search behind the typeahead on the issue, return and repair forms. Item, borrower and
+ * vendor names are each held in a {@link TrigramIndex}, built once the application is ready and
+ * kept in step by the write paths. The indexes are periodically rebuilt from the database to
+ * pick up writes made by other instances; writes made while a rebuild is reading are replayed
+ * onto the new index before it replaces the old one.
+ */
+@Service
+public class SearchIndexService {
+
+    public enum Kind {
+        ITEM, BORROWER, VENDOR;
+
+        // Returns null for anything other than item, borrower or vendor
+        public static Kind parse(String kind) {
+            for (Kind value : values()) {
+                if (value.name().equalsIgnoreCase(kind)) {
+                    return value;
+                }
+            }
+            return null;
+        }
+    }
+
+    public static final int MAX_RESULTS = 50;
+
+    private static final int LOAD_CHUNK_SIZE = 5000;
+
+    @Autowired
+    private IItemRepository itemRepository;
+
+    @Autowired
+    private IBorrowerRepository borrowerRepository;
+
+    @Autowired
+    private IVendorRepository vendorRepository;
+
+    private final Map<Kind, TrigramIndex> indexes = new ConcurrentHashMap<>();
+    // Writes seen while a kind is being rebuilt, guarded by this
+    private final Map<Kind, List<Consumer<TrigramIndex>>> pending = new EnumMap<>(Kind.class);
+
+    public SearchIndexService() {
+        for (Kind kind : Kind.values()) {
+            indexes.put(kind, new TrigramIndex());
+        }
+    }
+
+    public List<SearchResult> search(Kind kind, String query, int limit) {
+        return indexes.get(kind).search(query, Math.min(limit, MAX_RESULTS));
+    }
+
+    public int size(Kind kind) {
+        return indexes.get(kind).size();
+    }
+
+    public void put(Kind kind, long id, String name) {
+        apply(kind, index -> index.put(id, name));
+    }
+
+    public void remove(Kind kind, long id) {
+        apply(kind, index -> index.remove(id));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        rebuild();
+    }
+
+    @Scheduled(initialDelayString = "${search.index.rebuild-interval-ms:3600000}",
+            fixedDelayString = "${search.index.rebuild-interval-ms:3600000}")
+    public void rebuild() {
+        for (Kind kind : Kind.values()) {
+            rebuild(kind);
+        }
+    }
+
+    private void rebuild(Kind kind) {
+        synchronized (this) {
+            pending.put(kind, new ArrayList<>());
+        }
+        TrigramIndex index = new TrigramIndex();
+        try {
+            long afterId = -1;
+            List<SearchResult> chunk;
+            do {
+                chunk = entries(kind, afterId, PageRequest.of(0, LOAD_CHUNK_SIZE));
+                for (SearchResult entry : chunk) {
+                    index.put(entry.getId(), entry.getName());
+                }
+                if (!chunk.isEmpty()) {
+                    afterId = chunk.get(chunk.size() - 1).getId();
+                }
+            } while (chunk.size() == LOAD_CHUNK_SIZE);
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                pending.remove(kind);
+            }
+            throw e;
+        }
+        synchronized (this) {
+            pending.remove(kind).forEach(write -> write.accept(index));
+            indexes.put(kind, index);
+        }
+    }
+
+    private synchronized void apply(Kind kind, Consumer<TrigramIndex> write) {
+        write.accept(indexes.get(kind));
+        List<Consumer<TrigramIndex>> writes = pending.get(kind);
+        if (writes != null) {
+            writes.add(write);
+        }
+    }
+
+    private List<SearchResult> entries(Kind kind, long afterId, Pageable chunk) {
+        switch (kind) {
+            case ITEM:
+                return itemRepository.findSearchEntries(afterId, chunk);
+            case BORROWER:
+                return borrowerRepository.findSearchEntries(afterId, chunk);
+            default:
+                return vendorRepository.findSearchEntries(afterId, chunk);
+        }
+    }
+}
@@ -0,0 +1,359 @@
+package com.example.IMS.service;
+
+import com.example.IMS.Utilities.StockJournal;
+import com.example.IMS.model.StockJournalCheckpoint;
+import com.example.IMS.repository.IItemRepository;
+import com.example.IMS.repository.IStockJournalCheckpointRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntSupplier;
+
+/**
+ * Optional in-memory stock for issues and returns, for when a popular item's row becomes a lock
+ * hotspot. Each item that has been issued or returned gets a slot in an array of counters, and
+ * a change is granted by a compare-and-set on its slot without touching the database. Every
+ * change is appended to a {@link StockJournal} and only returned once its record is on disk,
+ * with concurrent changes sharing one disk write. The journal is applied to the item table in
+ * batches every flush interval, together with a checkpoint of the last record applied, and any
+ * records left by a crash are applied on the next start.
+ *
+ * Other writes to an item's stock, such as the edit form, run with the item suspended: its
+ * changes go to the database directly until the write is done and the slot is reloaded, and the
+ * reload waits for those changes to commit. The counters belong to one process, so the engine
+ * must only be enabled when a single instance serves the application. When it is disabled
+ * callers use the conditional updates instead.
+ */
+@Service
+public class StockEngine {
+
+    // Returned by change when the caller should use the database instead
+    public static final int UNAVAILABLE = Integer.MIN_VALUE;
+    public static final int OUT_OF_STOCK = -1;
+
+    private static final int BUSY = Integer.MIN_VALUE;
+    // Each slot has a 64-byte cache line to itself, holding its quantity and the number of
+    // changes in progress, so that hot items next to each other do not slow each other down
+    private static final int SLOT_WIDTH = 16;
+    private static final int IN_FLIGHT = 1;
+    private static final int SLOTS_PER_STRIPE = 256;
+
+    // Refused rather than applied if it would take the stored stock below zero
+    private static final String APPLY_SQL = "update inventory_item set item_quantity = item_quantity + ? "
+            + "where item_id = ? and item_quantity + ? >= 0";
+    // Waits for uncommitted changes made to the row while the item was suspended
+    private static final String RELOAD_SQL = "select item_quantity from inventory_item where item_id = ? for update";
+
+    @Autowired
+    private IItemRepository itemRepository;
+
+    @Autowired
+    private IStockJournalCheckpointRepository checkpointRepository;
+
+    @Autowired
+    private CachingReportService cachingReportService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${stock.engine.enabled:false}")
+    private boolean enabled;
+
+    @Value("${stock.engine.journal-dir:stock-journal}")
+    private String journalDir;
+
+    // Null while the engine is disabled
+    private volatile StockJournal journal;
+
+    private final Map<Long, Integer> slotsById = new ConcurrentHashMap<>();
+    private volatile AtomicIntegerArray[] stripes = new AtomicIntegerArray[0];
+    private int slotCount;
+    private final Object slotLock = new Object();
+    private final Object[] suspendLocks = new Object[64];
+    // Per item: database changes made while it is suspended hold the read lock, the reload the write lock
+    private final Map<Long, ReadWriteLock> fallbackLocks = new ConcurrentHashMap<>();
+    private final Set<Long> refusedItems = ConcurrentHashMap.newKeySet();
+
+    public StockEngine() {
+        for (int i = 0; i < suspendLocks.length; i++) {
+            suspendLocks[i] = new Object();
+        }
+    }
+
+    // Records left by a previous run are applied even when the engine has since been disabled
+    @PostConstruct
+    public void start() throws IOException {
+        if (!checkpointRepository.existsById(StockJournalCheckpoint.ROW_ID)) {
+            try {
+                checkpointRepository.save(new StockJournalCheckpoint(StockJournalCheckpoint.ROW_ID, 0));
+            } catch (DataIntegrityViolationException e) {
+                // Another instance created the row first
+            }
+        }
+        Path directory = Paths.get(journalDir);
+        long lastSequence = apply(StockJournal.segments(directory));
+        if (enabled) {
+            journal = new StockJournal(directory, lastSequence);
+            System.out.println("Stock engine enabled, journal in " + directory.toAbsolutePath());
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws IOException {
+        if (journal != null) {
+            flush();
+            journal.close();
+            journal = null;
+        }
+    }
+
+    public boolean isEnabled() {
+        return journal != null;
+    }
+
+    // Adds delta to the item's stock and returns the new quantity, OUT_OF_STOCK if it would fall
+    // below zero, or UNAVAILABLE if the engine is disabled, the item is suspended or does not exist
+    public int change(long itemId, int delta) {
+        StockJournal journal = this.journal;
+        if (journal == null) {
+            return UNAVAILABLE;
+        }
+        Integer slot = slotsById.computeIfAbsent(itemId, this::allocate);
+        if (slot == null) {
+            return UNAVAILABLE;
+        }
+        AtomicIntegerArray stripe = stripes[slot / SLOTS_PER_STRIPE];
+        int cell = slot % SLOTS_PER_STRIPE * SLOT_WIDTH;
+        // Counted before the quantity is read, so suspend can wait for this change to be journaled
+        stripe.incrementAndGet(cell + IN_FLIGHT);
+        try {
+            int quantity;
+            do {
+                quantity = stripe.get(cell);
+                if (quantity == BUSY) {
+                    return UNAVAILABLE;
+                }
+                if (quantity + delta < 0) {
+                    return OUT_OF_STOCK;
+                }
+            } while (!stripe.compareAndSet(cell, quantity, quantity + delta));
+            try {
+                journal.append(itemId, delta);
+            } catch (IOException e) {
+                undo(stripe, cell, delta);
+                throw new UncheckedIOException("The stock change could not be journaled.", e);
+            }
+            return quantity + delta;
+        } finally {
+            stripe.decrementAndGet(cell + IN_FLIGHT);
+        }
+    }
+
+    // Adds delta to the item's stock as change does, but where change would return UNAVAILABLE
+    // runs the database change instead and returns its result: the new quantity, or OUT_OF_STOCK
+    // if it was refused. While the item is suspended, its slot is only reloaded once the database
+    // change is done, and after the transaction it runs in has committed.
+    public int change(long itemId, int delta, IntSupplier databaseChange) {
+        while (true) {
+            int quantity = change(itemId, delta);
+            if (quantity != UNAVAILABLE) {
+                return quantity;
+            }
+            Lock lock = fallbackLock(itemId).readLock();
+            lock.lock();
+            try {
+                // Under the lock the item cannot be reloaded; if it already was, the slot takes the change
+                if (!isLive(itemId)) {
+                    return databaseChange.getAsInt();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    // Runs a write that sets the item's stock in the database. Changes granted so far are applied
+    // first, changes made during the write go to the database, and the slot is reloaded after it.
+    public void runSuspended(long itemId, Runnable write) {
+        if (journal == null) {
+            write.run();
+            return;
+        }
+        synchronized (suspendLocks[(int) Math.floorMod(itemId, (long) suspendLocks.length)]) {
+            Integer slot = slotsById.computeIfAbsent(itemId, this::allocate);
+            if (slot == null) {
+                write.run();
+                return;
+            }
+            AtomicIntegerArray stripe = stripes[slot / SLOTS_PER_STRIPE];
+            int cell = slot % SLOTS_PER_STRIPE * SLOT_WIDTH;
+            stripe.set(cell, BUSY);
+            while (stripe.get(cell + IN_FLIGHT) != 0) {
+                Thread.onSpinWait();
+            }
+            try {
+                applyJournal();
+                write.run();
+            } finally {
+                reload(itemId, stripe, cell);
+            }
+        }
+    }
+
+    private void reload(long itemId, AtomicIntegerArray stripe, int cell) {
+        Lock lock = fallbackLock(itemId).writeLock();
+        lock.lock();
+        try {
+            Integer quantity = new TransactionTemplate(transactionManager).execute(status ->
+                    jdbcTemplate.query(RELOAD_SQL, rs -> rs.next() ? rs.getInt(1) : null, itemId));
+            if (quantity != null) {
+                stripe.set(cell, quantity);
+            } else {
+                // Deleted; the slot stays busy and is not reused
+                slotsById.remove(itemId);
+                fallbackLocks.remove(itemId);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Whether changes to the item are granted from its slot
+    private boolean isLive(long itemId) {
+        Integer slot = journal != null ? slotsById.get(itemId) : null;
+        return slot != null && stripes[slot / SLOTS_PER_STRIPE].get(slot % SLOTS_PER_STRIPE * SLOT_WIDTH) != BUSY;
+    }
+
+    private ReadWriteLock fallbackLock(long itemId) {
+        return fallbackLocks.computeIfAbsent(itemId, id -> new ReentrantReadWriteLock());
+    }
+
+    @Scheduled(initialDelayString = "${stock.engine.flush-interval-ms:500}",
+            fixedDelayString = "${stock.engine.flush-interval-ms:500}")
+    public void flush() {
+        applyJournal();
+        // The slots of items whose changes were refused are ahead of the database; they are loaded from it again
+        for (Iterator<Long> refused = refusedItems.iterator(); refused.hasNext(); ) {
+            long itemId = refused.next();
+            refused.remove();
+            runSuspended(itemId, () -> { });
+        }
+    }
+
+    private synchronized void applyJournal() {
+        StockJournal journal = this.journal;
+        if (journal == null) {
+            return;
+        }
+        try {
+            apply(journal.rotate());
+        } catch (IOException e) {
+            // The segments stay in place and are applied by the next flush
+            throw new UncheckedIOException("The stock journal could not be applied.", e);
+        }
+    }
+
+    // Applies the records of the given segments not yet applied, in one transaction with the
+    // checkpoint, then deletes the segments; returns the last sequence number applied
+    private long apply(List<Path> segments) throws IOException {
+        long checkpoint = checkpointRepository.findLastSequence().orElse(0L);
+        if (segments.isEmpty()) {
+            return checkpoint;
+        }
+        Map<Long, Integer> deltas = new HashMap<>();
+        long[] lastSequence = { checkpoint };
+        for (Path segment : segments) {
+            StockJournal.read(segment, (sequence, itemId, delta) -> {
+                if (sequence > checkpoint) {
+                    deltas.merge(itemId, delta, Integer::sum);
+                    lastSequence[0] = Math.max(lastSequence[0], sequence);
+                }
+            });
+        }
+        if (lastSequence[0] > checkpoint) {
+            List<Object[]> updates = new ArrayList<>();
+            deltas.forEach((itemId, delta) -> {
+                if (delta != 0) {
+                    updates.add(new Object[] { delta, itemId, delta });
+                }
+            });
+            int[] counts = new TransactionTemplate(transactionManager).execute(status -> {
+                int[] updated = jdbcTemplate.batchUpdate(APPLY_SQL, updates);
+                checkpointRepository.advance(lastSequence[0]);
+                return updated;
+            });
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] == 0) {
+                    Object[] update = updates.get(i);
+                    System.out.println("Stock change of " + update[0] + " for item " + update[1]
+                            + " was refused: the item is gone or has less stock stored than the change takes.");
+                    refusedItems.add((Long) update[1]);
+                }
+            }
+            cachingReportService.invalidate(CachingReportService.Region.ITEMS);
+        }
+        for (Path segment : segments) {
+            Files.delete(segment);
+        }
+        return lastSequence[0];
+    }
+
+    // Gives a newly seen item a slot loaded from the database; null if it does not exist
+    private Integer allocate(long itemId) {
+        Integer quantity = itemRepository.findQuantity(itemId).orElse(null);
+        if (quantity == null) {
+            return null;
+        }
+        synchronized (slotLock) {
+            int slot = slotCount++;
+            if (slot / SLOTS_PER_STRIPE == stripes.length) {
+                // The stripes themselves are shared with the old array, so no change made through it is lost
+                AtomicIntegerArray[] grown = Arrays.copyOf(stripes, Math.max(16, stripes.length * 2));
+                for (int i = stripes.length; i < grown.length; i++) {
+                    grown[i] = new AtomicIntegerArray(SLOTS_PER_STRIPE * SLOT_WIDTH);
+                }
+                stripes = grown;
+            }
+            stripes[slot / SLOTS_PER_STRIPE].set(slot % SLOTS_PER_STRIPE * SLOT_WIDTH, quantity);
+            return slot;
+        }
+    }
+
+    private static void undo(AtomicIntegerArray stripe, int cell, int delta) {
+        int quantity;
+        do {
+            quantity = stripe.get(cell);
+            if (quantity == BUSY) {
+                return;
+            }
+        } while (!stripe.compareAndSet(cell, quantity, quantity - delta));
+    }
+}
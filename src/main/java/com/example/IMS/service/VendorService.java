@@ -1,7 +1,6 @@
 package com.example.IMS.service;
 
 import java.util.List;
-import java.util.Optional;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import com.example.IMS.model.Vendor;
@@ -13,16 +12,15 @@ public class VendorService implements IVendorService {
 	@Autowired
 	private IVendorRepository vendorRepository;
 
+	@Autowired
+	private ReferenceDataCache referenceDataCache;
+
+	@Autowired
+	private SearchIndexService searchIndexService;
+
 	@Override
 	public Vendor getVendorById(long id) {
-		Optional<Vendor> optional = vendorRepository.findById(id);
-		Vendor vendor = null;
-		if (optional.isPresent()) {
-			vendor = optional.get();
-		} else {
-			// Exception
-		}
-		return vendor;
+		return referenceDataCache.getVendorById(id);
 	}
 
 	@Override
@@ -38,15 +36,7 @@ public class VendorService implements IVendorService {
 
 	@Override
 	public Vendor getVendorByName(String name) {
-		List<Vendor> vendorList = vendorRepository.findAll();
-		Vendor vendor = null;
-		for (Vendor v : vendorList) {
-			if (v.getName().equalsIgnoreCase(name)) {
-				vendor = v;
-				break;
-			}
-		}
-		return vendor;
+		return referenceDataCache.getVendorByName(name);
 	}
 
 	@Override
@@ -61,6 +51,20 @@ public class VendorService implements IVendorService {
 
 	@Override
 	public List<Vendor> getAllVendors() {
-		return vendorRepository.findAll();
+		return referenceDataCache.getAllVendors();
+	}
+
+	@Override
+	public void saveVendor(Vendor vendor) {
+		Vendor saved = vendorRepository.save(vendor);
+		referenceDataCache.vendorSaved(saved);
+		searchIndexService.put(SearchIndexService.Kind.VENDOR, saved.getId(), saved.getName());
+	}
+
+	@Override
+	public void deleteVendor(long id) {
+		vendorRepository.deleteById(id);
+		referenceDataCache.vendorDeleted(id);
+		searchIndexService.remove(SearchIndexService.Kind.VENDOR, id);
 	}
 }
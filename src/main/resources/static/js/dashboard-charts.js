@@ -2,9 +2,10 @@
 let charts = {};
 let lastUpdateTime = null;
 
-// Fetch dashboard history
-function fetchDashboardHistory() {
-    return fetch('/api/dashboard/history')
+// Fetch dashboard history, optionally from a rollup tier (minute, hour or day)
+function fetchDashboardHistory(resolution) {
+    const url = resolution ? '/api/dashboard/history?resolution=' + resolution : '/api/dashboard/history';
+    return fetch(url)
         .then(response => response.json())
         .catch(error => {
             console.error('Error fetching dashboard history:', error);
@@ -22,21 +23,30 @@ function fetchCurrentStats() {
         });
 }
 
-// Initialize charts with historical data
+// Initialize charts with daily history plus today's live values
 function initializeCharts() {
-    fetchDashboardHistory().then(history => {
+    Promise.all([fetchDashboardHistory('day'), fetchCurrentStats()]).then(([history, stats]) => {
         console.log('Dashboard history:', history);
         
         if (history.length === 0) {
             // No history, create initial snapshot
-            fetchCurrentStats().then(stats => {
-                if (stats) {
-                    createChartsWithSinglePoint(stats);
-                }
-            });
+            if (stats) {
+                createChartsWithSinglePoint(stats);
+            }
             return;
         }
         
+        // Day buckets only cover closed days, so today comes from the live counters
+        if (stats) {
+            history.push({
+                date: new Date().toLocaleDateString('en-US', { month: 'short', day: 'numeric' }),
+                itemsBorrowed: stats.itemsBorrowed,
+                itemsReturned: stats.itemsReturned,
+                inventoryRemaining: stats.inventoryRemaining,
+                itemsIssued: stats.itemsIssued
+            });
+        }
+        
         // Extract data from history - use date labels
         const labels = history.map(h => h.date || 'Today');
         
@@ -45,11 +55,6 @@ function initializeCharts() {
         const inventoryData = history.map(h => h.inventoryRemaining);
         const issuedData = history.map(h => h.itemsIssued);
         
-        // Store last update time
-        if (history.length > 0) {
-            lastUpdateTime = history[history.length - 1].timestamp;
-        }
-        
         // Create charts with historical data
         createChart('myAreaChart', 'Items Borrowed', labels, borrowedData, 'rgba(255, 206, 86, 0.2)', 'rgba(255, 206, 86, 1)', 'borrowed');
         createChart('myDuplicateChart', 'Items Returned', labels, returnedData, 'rgba(54, 162, 235, 0.2)', 'rgba(54, 162, 235, 1)', 'returned');
@@ -109,40 +114,84 @@ function createChartsWithSinglePoint(stats) {
     createChart('myAreaChart3', 'Items Issued', [label], [stats.itemsIssued], 'rgba(153, 102, 255, 0.2)', 'rgba(153, 102, 255, 1)', 'issued');
 }
 
-// Check for new updates
+// Apply a single new data point to the charts
+function applyDataPoint(latest) {
+    if (!charts.borrowed || latest.timestamp === lastUpdateTime) return;
+    
+    console.log('New update detected!');
+    lastUpdateTime = latest.timestamp;
+    
+    const label = latest.date || new Date(latest.timestamp).toLocaleDateString('en-US', { month: 'short', day: 'numeric' });
+    
+    // Check if this date already exists in the chart
+    const existingIndex = charts.borrowed.data.labels.indexOf(label);
+    
+    if (existingIndex >= 0) {
+        // Update existing point for this date
+        updateExistingPoint(charts.borrowed, existingIndex, latest.itemsBorrowed);
+        updateExistingPoint(charts.returned, existingIndex, latest.itemsReturned);
+        updateExistingPoint(charts.inventory, existingIndex, latest.inventoryRemaining);
+        updateExistingPoint(charts.issued, existingIndex, latest.itemsIssued);
+    } else {
+        // Add new point for new date
+        updateChart(charts.borrowed, label, latest.itemsBorrowed);
+        updateChart(charts.returned, label, latest.itemsReturned);
+        updateChart(charts.inventory, label, latest.inventoryRemaining);
+        updateChart(charts.issued, label, latest.itemsIssued);
+    }
+}
+
+// Delta-sync position: the id of the newest data point this page has applied
+let historyCursor = -1;
+let historyEtag = null;
+
+// Check for new updates (polling fallback when the event stream is unavailable)
 function checkForUpdates() {
-    fetchDashboardHistory().then(history => {
-        if (history.length === 0) return;
-        
-        const latestTimestamp = history[history.length - 1].timestamp;
-        
-        // Check if there's a new update
-        if (lastUpdateTime && latestTimestamp !== lastUpdateTime) {
-            console.log('New update detected!');
-            lastUpdateTime = latestTimestamp;
-            
-            // Get the new data point
-            const latest = history[history.length - 1];
-            const label = latest.date || new Date(latest.timestamp).toLocaleDateString('en-US', { month: 'short', day: 'numeric' });
-            
-            // Check if this date already exists in the chart
-            const existingIndex = charts.borrowed.data.labels.indexOf(label);
-            
-            if (existingIndex >= 0) {
-                // Update existing point for this date
-                updateExistingPoint(charts.borrowed, existingIndex, latest.itemsBorrowed);
-                updateExistingPoint(charts.returned, existingIndex, latest.itemsReturned);
-                updateExistingPoint(charts.inventory, existingIndex, latest.inventoryRemaining);
-                updateExistingPoint(charts.issued, existingIndex, latest.itemsIssued);
-            } else {
-                // Add new point for new date
-                updateChart(charts.borrowed, label, latest.itemsBorrowed);
-                updateChart(charts.returned, label, latest.itemsReturned);
-                updateChart(charts.inventory, label, latest.inventoryRemaining);
-                updateChart(charts.issued, label, latest.itemsIssued);
+    const headers = historyEtag ? { 'If-None-Match': historyEtag } : {};
+    fetch('/api/dashboard/history?since=' + historyCursor, { headers: headers, cache: 'no-store' })
+        .then(response => {
+            // 304 means nothing happened since the last poll
+            if (!response.ok) return null;
+            historyEtag = response.headers.get('ETag');
+            return response.json();
+        })
+        .then(delta => {
+            if (!delta) return;
+            // The first poll (cursor -1) only learns the current position
+            if (historyCursor >= 0) {
+                delta.points.forEach(applyDataPoint);
             }
-        }
+            historyCursor = delta.cursor;
+        })
+        .catch(error => console.error('Error fetching dashboard updates:', error));
+}
+
+let pollingTimer = null;
+
+function startPolling() {
+    if (pollingTimer) return;
+    console.log('Falling back to polling for dashboard updates');
+    pollingTimer = setInterval(checkForUpdates, 3000);
+}
+
+// Subscribe to pushed updates; the server only sends new data points
+function subscribeToUpdates() {
+    if (!window.EventSource) {
+        startPolling();
+        return;
+    }
+    
+    const source = new EventSource('/api/dashboard/stream');
+    source.addEventListener('snapshot', function(event) {
+        applyDataPoint(JSON.parse(event.data));
+        historyCursor = Number(event.lastEventId);
     });
+    source.onerror = function() {
+        // The browser reconnects by itself unless the stream was closed for good
+        if (source.readyState === EventSource.CLOSED) {
+            startPolling();
+        }
+    };
 }
 
 // Update existing point in chart
@@ -161,8 +210,8 @@ function updateChart(chart, label, value) {
     chart.data.labels.push(label);
     chart.data.datasets[0].data.push(value);
     
-    // Keep only last 20 points
-    if (chart.data.labels.length > 20) {
+    // Keep about a year of daily points
+    if (chart.data.labels.length > 366) {
         chart.data.labels.shift();
         chart.data.datasets[0].data.shift();
     }
@@ -177,8 +226,6 @@ window.addEventListener('load', function() {
     
     setTimeout(function() {
         initializeCharts();
-        
-        // Check for updates every 3 seconds (only updates when data changes)
-        setInterval(checkForUpdates, 3000);
+        subscribeToUpdates();
     }, 500);
 });
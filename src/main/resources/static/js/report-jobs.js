@@ -0,0 +1,51 @@
+// Background report exports: queue a job, poll its progress, then download the file
+function startReportJob(button) {
+    const params = new URLSearchParams({
+        report: button.dataset.report,
+        format: button.dataset.format || 'csv'
+    });
+    if (button.dataset.startDate) {
+        params.append('startDate', button.dataset.startDate);
+    }
+    if (button.dataset.endDate) {
+        params.append('endDate', button.dataset.endDate);
+    }
+    const label = button.innerHTML;
+    button.disabled = true;
+    button.textContent = 'Queued...';
+
+    fetch('/reports/jobs', { method: 'POST', body: params })
+        .then(response => response.json().then(body => ({ ok: response.ok, body: body })))
+        .then(result => {
+            if (!result.ok) {
+                throw new Error(result.body.message || 'The report could not be queued.');
+            }
+            pollReportJob(result.body.id, button, label);
+        })
+        .catch(error => finishReportJob(button, label, error.message));
+}
+
+function pollReportJob(id, button, label) {
+    fetch('/reports/jobs/' + id)
+        .then(response => response.json())
+        .then(job => {
+            if (job.status === 'DONE') {
+                finishReportJob(button, label);
+                window.location = '/reports/jobs/' + id + '/download';
+            } else if (job.status === 'FAILED') {
+                finishReportJob(button, label, job.error);
+            } else {
+                button.textContent = job.progress >= 0 ? 'Exporting ' + job.progress + '%' : 'Queued...';
+                setTimeout(() => pollReportJob(id, button, label), 1000);
+            }
+        })
+        .catch(() => finishReportJob(button, label, 'Lost track of the report job.'));
+}
+
+function finishReportJob(button, label, error) {
+    button.disabled = false;
+    button.innerHTML = label;
+    if (error) {
+        alert(error);
+    }
+}
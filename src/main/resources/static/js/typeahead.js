@@ -0,0 +1,52 @@
+// Name search for id fields: suggestions come from /api/search and picking one fills in the id
+document.querySelectorAll('input[data-typeahead]').forEach(input => {
+    const target = document.getElementById(input.dataset.typeaheadTarget);
+    const menu = document.createElement('div');
+    menu.className = 'dropdown-menu';
+    input.parentNode.style.position = 'relative';
+    input.after(menu);
+    let timer;
+    let latest = 0;
+
+    input.addEventListener('input', () => {
+        clearTimeout(timer);
+        timer = setTimeout(() => suggest(input.value.trim()), 150);
+    });
+    input.addEventListener('blur', () => setTimeout(() => menu.classList.remove('show'), 200));
+
+    function suggest(query) {
+        if (!query) {
+            menu.classList.remove('show');
+            return;
+        }
+        // Only the newest request may fill the menu, however the responses arrive
+        const request = ++latest;
+        const params = new URLSearchParams({ type: input.dataset.typeahead, q: query, limit: 10 });
+        fetch('/api/search?' + params)
+            .then(response => response.json())
+            .then(results => {
+                if (request !== latest) {
+                    return;
+                }
+                menu.innerHTML = '';
+                results.forEach(result => {
+                    const option = document.createElement('a');
+                    option.className = 'dropdown-item';
+                    option.href = '#';
+                    option.textContent = result.name + ' (#' + result.id + ')';
+                    option.addEventListener('mousedown', event => {
+                        event.preventDefault();
+                        target.value = result.id;
+                        input.value = result.name;
+                        menu.classList.remove('show');
+                    });
+                    menu.appendChild(option);
+                });
+                // Just under the search box, over the id field it fills in
+                menu.style.top = input.offsetTop + input.offsetHeight + 'px';
+                menu.style.left = input.offsetLeft + 'px';
+                menu.classList.toggle('show', results.length > 0);
+            })
+            .catch(() => menu.classList.remove('show'));
+    }
+});
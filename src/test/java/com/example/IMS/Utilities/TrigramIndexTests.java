@@ -0,0 +1,113 @@
+package com.example.IMS.Utilities;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import com.example.IMS.dto.SearchResult;
+
+class TrigramIndexTests {
+
+	private TrigramIndex index;
+
+	@BeforeEach
+	void setUp() {
+		index = new TrigramIndex();
+		index.put(1, "Claw Hammer");
+		index.put(2, "Sledge  hammer");
+		index.put(3, "Hammer Drill");
+		index.put(4, "Office Chair");
+		index.put(5, "Desk Lamp");
+	}
+
+	@Test
+	void prefixMatchesRankBeforeWordAndSubstringMatches() {
+		assertEquals(List.of(3L, 1L, 2L), ids(index.search("hammer", 10)));
+		assertEquals(List.of(3L, 1L, 2L), ids(index.search("HAM", 10)));
+		assertEquals(List.of(3L, 1L), ids(index.search("h", 2)));
+		assertEquals(List.of(4L), ids(index.search("ice ch", 10)));
+		// Whitespace is collapsed in stored names, so queries match across it
+		assertEquals("Sledge hammer", index.search("sledge ham", 1).get(0).getName());
+	}
+
+	@Test
+	void typosFallBackToSharedTrigrams() {
+		assertEquals(List.of(4L), ids(index.search("ofice chiar", 10)));
+		assertEquals(List.of(5L), ids(index.search("desk lmap", 10)));
+		assertTrue(index.search("xylophone", 10).isEmpty());
+		assertTrue(index.search("  ", 10).isEmpty());
+	}
+
+	@Test
+	void renamesAndRemovalsReplaceTheOldName() {
+		index.put(4, "Office Desk");
+		index.remove(5);
+		index.put(1, " ");
+
+		assertTrue(index.search("chair", 10).isEmpty());
+		assertEquals(List.of(4L), ids(index.search("desk", 10)));
+		assertEquals(List.of(3L, 2L), ids(index.search("hammer", 10)));
+		assertEquals(3, index.size());
+	}
+
+	@Test
+	void removedSlotsAreCompactedAway() {
+		for (int round = 0; round < 3; round++) {
+			for (long id = 100; id < 3100; id++) {
+				index.put(id, "Bulk item " + id + " v" + round);
+			}
+		}
+		for (long id = 100; id < 3000; id++) {
+			index.remove(id);
+		}
+		assertEquals(105, index.size());
+		assertEquals(3099L, index.search("item 3099 v2", 10).get(0).getId());
+		assertTrue(index.search("v1", 10).isEmpty());
+	}
+
+	// Run with -Dbenchmarks=true; builds a million names, which takes a few seconds and ~300 MB
+	@Test
+	@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+	void queriesStaySubMillisecondAtAMillionEntries() {
+		String[] words = { "steel", "hammer", "drill", "office", "chair", "desk", "lamp", "cable", "monitor",
+				"paper", "stapler", "marker", "laptop", "bracket", "socket", "wrench", "folder", "printer" };
+		Random random = new Random(7);
+		TrigramIndex large = new TrigramIndex();
+		long start = System.nanoTime();
+		for (long id = 1; id <= 1_000_000; id++) {
+			large.put(id, words[random.nextInt(words.length)] + " " + words[random.nextInt(words.length)] + " "
+					+ Long.toString(id * 7919, 36));
+		}
+		long buildMillis = (System.nanoTime() - start) / 1_000_000;
+
+		String[] queries = { "s", "ha", "dri", "hammer", "office ch", "offce chiar", "monitr", "lamp 1", "wrench soc",
+				"zzzz", "printer folder", "stapler k" };
+		long[] nanos = new long[20_000];
+		for (int i = 0; i < nanos.length; i++) {
+			String query = queries[i % queries.length];
+			long t = System.nanoTime();
+			large.search(query, 10);
+			nanos[i] = System.nanoTime() - t;
+		}
+		// The first half warms up the JIT
+		long[] measured = Arrays.copyOfRange(nanos, nanos.length / 2, nanos.length);
+		Arrays.sort(measured);
+		long p50 = measured[measured.length / 2];
+		long p99 = measured[measured.length * 99 / 100];
+		System.out.println("Trigram index over 1M names: built in " + buildMillis + " ms; search p50 " + p50 / 1_000
+				+ " us, p99 " + p99 / 1_000 + " us");
+		assertTrue(p99 < 1_000_000, "p99 was " + p99 / 1_000 + " us");
+	}
+
+	private static List<Long> ids(List<SearchResult> results) {
+		return results.stream().map(SearchResult::getId).collect(Collectors.toList());
+	}
+}
@@ -0,0 +1,68 @@
+package com.example.IMS.repository;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import com.example.IMS.model.Item;
+import com.example.IMS.model.ItemType;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+class ItemRepositoryTests {
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	@Autowired
+	private IItemRepository itemRepository;
+
+	private ItemType tools;
+
+	private ItemType books;
+
+	@BeforeEach
+	void setUp() {
+		tools = new ItemType();
+		tools.setTypeName("Tools");
+		entityManager.persist(tools);
+		books = new ItemType();
+		books.setTypeName("Books");
+		entityManager.persist(books);
+
+		Item hammer = new Item();
+		hammer.setName("Claw Hammer");
+		hammer.setItemType(tools);
+		entityManager.persist(hammer);
+		entityManager.flush();
+	}
+
+	@Test
+	void duplicateCheckIgnoresCaseAndSpacing() {
+		assertTrue(itemRepository.existsByNormalizedNameAndType(Item.normalizeName("  claw   HAMMER "), "tools"));
+		assertFalse(itemRepository.existsByNormalizedNameAndType(Item.normalizeName("Claw Hammer"), "Books"));
+		assertFalse(itemRepository.existsByNormalizedNameAndType(Item.normalizeName("Sledge Hammer"), "Tools"));
+	}
+
+	@Test
+	void sameNameIsAllowedForAnotherType() {
+		Item book = new Item();
+		book.setName("Claw Hammer");
+		book.setItemType(books);
+		itemRepository.saveAndFlush(book);
+	}
+
+	@Test
+	void uniqueIndexRejectsDuplicatesThatSkipTheCheck() {
+		Item duplicate = new Item();
+		duplicate.setName("CLAW  hammer");
+		duplicate.setItemType(tools);
+		assertThrows(DataIntegrityViolationException.class, () -> itemRepository.saveAndFlush(duplicate));
+	}
+}
@@ -0,0 +1,133 @@
+package com.example.IMS.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.example.IMS.model.Item;
+import com.example.IMS.model.Loan;
+
+/**
+ * Compares resolving a loan's item by walking every item's loans, as the item service used to,
+ * with the single foreign key query that replaced it, on 100k seeded loans. The walk alone takes
+ * tens of seconds, so this only runs when asked for with -Dbenchmarks=true.
+ */
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+@DataJpaTest(properties = {
+		"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+		"spring.jpa.properties.hibernate.generate_statistics=true" })
+class LoanLookupBenchmarkTests {
+
+	private static final int ITEMS = 1_000;
+	private static final int BORROWERS = 1_000;
+	private static final int LOANS = 100_000;
+	private static final int LOOKUPS = 1_000;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private IItemRepository itemRepository;
+
+	@Autowired
+	private ILoanRepository loanRepository;
+
+	private Statistics statistics;
+
+	@BeforeEach
+	void seed() {
+		List<Object[]> items = new ArrayList<>();
+		for (int i = 1; i <= ITEMS; i++) {
+			items.add(new Object[] { i, "Item " + i, 5 });
+		}
+		jdbcTemplate.batchUpdate("insert into inventory_item (item_id, item_name, item_quantity, item_price, "
+				+ "item_fine_rate, item_invoice_number) values (?, ?, ?, 1, 1, 1)", items);
+
+		List<Object[]> borrowers = new ArrayList<>();
+		for (int i = 1; i <= BORROWERS; i++) {
+			borrowers.add(new Object[] { i, "First" + i, "Last" + i });
+		}
+		jdbcTemplate.batchUpdate("insert into borrower (borrower_id, first_name, last_name) values (?, ?, ?)", borrowers);
+
+		List<Object[]> loans = new ArrayList<>();
+		for (int i = 1; i <= LOANS; i++) {
+			loans.add(new Object[] { i, itemOf(i), borrowerOf(i), "2024/11/01 10:00:00", 7 });
+		}
+		jdbcTemplate.batchUpdate("insert into loan (loan_id, item_item_id, borrower_borrower_id, issue_date, loan_duration, "
+				+ "total_fine) values (?, ?, ?, ?, ?, 0)", loans);
+
+		statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+	}
+
+	@Test
+	void foreignKeyLookupsUseOneStatementEach() {
+		// The old way, once: load every item, then each item's loans, until the loan turns up.
+		// The loan belongs to the last item, so the walk goes through them all
+		long loanId = ITEMS - 1;
+		long start = System.nanoTime();
+		long walkedItemId = -1;
+		for (Item item : itemRepository.findAll()) {
+			for (Loan loan : item.getLoan()) {
+				if (loan.getId() == loanId) {
+					walkedItemId = item.getId();
+				}
+			}
+			if (walkedItemId != -1) {
+				break;
+			}
+		}
+		long walkNanos = System.nanoTime() - start;
+		long walkStatements = statistics.getPrepareStatementCount();
+		assertEquals(itemOf(loanId), walkedItemId);
+
+		// Drop the walked loans, or every later query would first dirty-check all of them
+		entityManager.clear();
+		statistics.clear();
+		Random random = new Random(42);
+		start = System.nanoTime();
+		for (int i = 0; i < LOOKUPS; i++) {
+			long id = 1 + random.nextInt(LOANS);
+			assertEquals(itemOf(id), loanRepository.findItemIdByLoanId(id).orElse(-1L));
+			assertEquals(borrowerOf(id), loanRepository.findBorrowerIdByLoanId(id).orElse(-1L));
+		}
+		long queryNanos = (System.nanoTime() - start) / (2 * LOOKUPS);
+
+		System.out.println("Loan lookup over " + LOANS + " loans: walking items took " + walkNanos / 1_000_000
+				+ " ms and " + walkStatements + " statements; the foreign key query takes " + queryNanos / 1_000
+				+ " us and 1 statement");
+		assertEquals(2 * LOOKUPS, statistics.getPrepareStatementCount());
+		assertEquals(0, statistics.getEntityLoadCount());
+		assertTrue(walkStatements > ITEMS);
+		assertEquals(-1L, loanRepository.findItemIdByLoanId(LOANS + 1).orElse(-1L));
+	}
+
+	private static long itemOf(long loanId) {
+		return 1 + loanId % ITEMS;
+	}
+
+	private static long borrowerOf(long loanId) {
+		return 1 + (loanId * 7) % BORROWERS;
+	}
+}
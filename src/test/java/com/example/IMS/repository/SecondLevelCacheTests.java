@@ -0,0 +1,170 @@
+package com.example.IMS.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.function.Supplier;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.IMS.config.SecondLevelCacheConfig;
+import com.example.IMS.convertor.ItemConvertor;
+import com.example.IMS.dto.ItemDto;
+import com.example.IMS.model.Item;
+import com.example.IMS.model.ItemType;
+import com.example.IMS.model.Role;
+import com.example.IMS.model.User;
+import com.example.IMS.model.Vendor;
+import com.example.IMS.service.UserDetailsServiceImpl;
+
+// Every read runs in a session of its own, so only the second-level cache can save its statements
+@DataJpaTest(properties = {
+		"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+		"second-level-cache.enabled=true" })
+@Import({ SecondLevelCacheConfig.class, ItemConvertor.class, UserDetailsServiceImpl.class })
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class SecondLevelCacheTests {
+
+	@Autowired
+	private IItemRepository itemRepository;
+
+	@Autowired
+	private IItemTypeRepository itemTypeRepository;
+
+	@Autowired
+	private IVendorRepository vendorRepository;
+
+	@Autowired
+	private IRoleRepository roleRepository;
+
+	@Autowired
+	private IUserRepository userRepository;
+
+	@Autowired
+	private ItemConvertor itemConvertor;
+
+	@Autowired
+	private UserDetailsServiceImpl userDetailsService;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	private Statistics statistics;
+
+	private long itemId;
+
+	@BeforeEach
+	void setUp() {
+		ItemType itemType = new ItemType();
+		itemType.setTypeName("Electronics");
+		itemTypeRepository.save(itemType);
+
+		Vendor vendor = new Vendor();
+		vendor.setName("Acme");
+		vendor.setEmail("sales@acme.example");
+		vendorRepository.save(vendor);
+
+		Item item = new Item();
+		item.setName("Projector");
+		item.setQuantity(5);
+		item.setItemType(itemType);
+		item.setVendor(vendor);
+		itemId = itemRepository.save(item).getId();
+
+		Role role = roleRepository.save(new Role("ROLE_MANAGER"));
+		User user = new User("grace", "grace@example.com", "secret");
+		user.addRole(role);
+		userRepository.save(user);
+
+		statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+	}
+
+	@AfterEach
+	void tearDown() {
+		userRepository.deleteAll();
+		roleRepository.deleteAll();
+		itemRepository.deleteAll();
+		vendorRepository.deleteAll();
+		itemTypeRepository.deleteAll();
+	}
+
+	@Test
+	void itemTypeAndVendorOfAnItemComeFromTheCache() {
+		convertItem();
+		statistics.clear();
+
+		ItemDto item = convertItem();
+
+		assertEquals("Electronics", item.getItemType());
+		assertEquals("Acme", item.getVendorName());
+		// The item row only
+		assertEquals(1, statistics.getPrepareStatementCount());
+		assertEquals(1, statistics.getCacheRegionStatistics(SecondLevelCacheConfig.ITEM_TYPE_REGION).getHitCount());
+		assertEquals(1, statistics.getCacheRegionStatistics(SecondLevelCacheConfig.VENDOR_REGION).getHitCount());
+	}
+
+	@Test
+	void revokedRolesApplyAtTheNextLogin() {
+		UserDetails user = userDetailsService.loadUserByUsername("grace");
+		assertEquals("ROLE_MANAGER", user.getAuthorities().iterator().next().getAuthority());
+
+		inTransaction(() -> {
+			userRepository.findByUsername("grace").get().getRoles().clear();
+			return null;
+		});
+
+		assertTrue(userDetailsService.loadUserByUsername("grace").getAuthorities().isEmpty());
+	}
+
+	@Test
+	void repeatedRoleLookupsIssueNoStatements() {
+		roleRepository.findByName("ROLE_MANAGER");
+		statistics.clear();
+
+		for (int i = 0; i < 3; i++) {
+			assertTrue(roleRepository.findByName("ROLE_MANAGER").isPresent());
+		}
+
+		assertEquals(0, statistics.getPrepareStatementCount());
+		assertEquals(3, statistics.getQueryCacheHitCount());
+	}
+
+	@Test
+	void writesAreSeenThroughTheCache() {
+		roleRepository.findByName("ROLE_ADMIN");
+		roleRepository.save(new Role("ROLE_ADMIN"));
+		// The insert into roles made the cached empty result stale
+		assertTrue(roleRepository.findByName("ROLE_ADMIN").isPresent());
+
+		Vendor vendor = vendorRepository.findAll().get(0);
+		vendor.setName("Acme Supplies");
+		vendorRepository.save(vendor);
+
+		assertEquals("Acme Supplies", convertItem().getVendorName());
+	}
+
+	private ItemDto convertItem() {
+		return inTransaction(() -> itemConvertor.modelToDto(itemRepository.findById(itemId).get()));
+	}
+
+	private <T> T inTransaction(Supplier<T> work) {
+		return new TransactionTemplate(transactionManager).execute(status -> work.get());
+	}
+}
@@ -0,0 +1,130 @@
+package com.example.IMS.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.IMS.model.Item;
+import com.example.IMS.repository.IItemRepository;
+
+/**
+ * Grows the item table to 10k, 100k and 1M rows and measures, at each size, the report's total
+ * item and low stock count queries, an item edit, and a dashboard reconcile. The low stock count
+ * is a range read on idx_item_quantity_id, so with the same number of low stock items it stays
+ * flat. H2 answers the total count from its row count, so it stays flat here too, while MySQL
+ * scans the smallest index of the table for it; reconcile's sum and group by read the whole table.
+ * Edits apply deltas to the dashboard counters, so they take the same statements at every size.
+ * Seeding a million rows takes a while, so this only runs when asked for with -Dbenchmarks=true.
+ */
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+@DataJpaTest(properties = {
+		"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+		"spring.jpa.properties.hibernate.generate_statistics=true" })
+@Import({ ItemService.class, StockEngine.class, DashboardStatsService.class, CachingReportService.class,
+		ReportService.class, ReportSummaryService.class, SearchIndexService.class })
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class DashboardStatsBenchmarkTests {
+
+	private static final int[] SIZES = { 10_000, 100_000, 1_000_000 };
+	private static final int BATCH = 10_000;
+	private static final int LOW_STOCK_ITEMS = 100;
+	private static final int EDITS = 100;
+	private static final int QUERIES = 100;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private IItemRepository itemRepository;
+
+	@Autowired
+	private ItemService itemService;
+
+	@Autowired
+	private ReportService reportService;
+
+	@Autowired
+	private DashboardStatsService dashboardStatsService;
+
+	@AfterEach
+	void tearDown() {
+		jdbcTemplate.update("delete from inventory_item");
+	}
+
+	@Test
+	void reportCountsAsItemsGrow() {
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		long editStatements = -1;
+		int seeded = 0;
+		for (int size : SIZES) {
+			seed(seeded, size);
+			seeded = size;
+			long start = System.nanoTime();
+			dashboardStatsService.reconcile();
+			long reconcileNanos = System.nanoTime() - start;
+
+			statistics.clear();
+			start = System.nanoTime();
+			for (int i = 0; i < QUERIES; i++) {
+				assertEquals(size, reportService.getTotalItemsCount());
+			}
+			long totalNanos = (System.nanoTime() - start) / QUERIES;
+			start = System.nanoTime();
+			for (int i = 0; i < QUERIES; i++) {
+				assertEquals(LOW_STOCK_ITEMS, reportService.getLowStockItemsCount());
+			}
+			long lowStockNanos = (System.nanoTime() - start) / QUERIES;
+			assertEquals(2 * QUERIES, statistics.getPrepareStatementCount());
+
+			// Edits keep every item's stock above the threshold, so the low stock count does not move
+			statistics.clear();
+			start = System.nanoTime();
+			for (int i = 0; i < EDITS; i++) {
+				Item item = itemRepository.findById((long) size - i).get();
+				item.setQuantity(item.getQuantity() + 1);
+				itemService.saveItem(item);
+			}
+			long editNanos = (System.nanoTime() - start) / EDITS;
+			long statements = statistics.getPrepareStatementCount();
+
+			System.out.println("Item report counts over " + size + " items: the total count takes " + totalNanos / 1_000
+					+ " us, the low stock count " + lowStockNanos / 1_000 + " us, an edit " + editNanos / 1_000 + " us and "
+					+ statements / EDITS + " statements, a reconcile " + reconcileNanos / 1_000_000 + " ms");
+			if (editStatements != -1) {
+				assertEquals(editStatements, statements);
+			}
+			editStatements = statements;
+		}
+		assertEquals(LOW_STOCK_ITEMS, dashboardStatsService.getStats().getLowStockCount());
+	}
+
+	// Items from+1 to size; the first LOW_STOCK_ITEMS of them are low on stock
+	private void seed(int from, int size) {
+		for (int start = from + 1; start <= size; start += BATCH) {
+			List<Object[]> items = new ArrayList<>();
+			for (int i = start; i < start + BATCH && i <= size; i++) {
+				items.add(new Object[] { i, "Item " + i, "item " + i, i <= LOW_STOCK_ITEMS ? 5 : 50 });
+			}
+			jdbcTemplate.batchUpdate("insert into inventory_item (item_id, item_name, normalized_name, item_quantity, "
+					+ "item_price, item_fine_rate, item_invoice_number) values (?, ?, ?, ?, 1, 1, 1)", items);
+		}
+	}
+}
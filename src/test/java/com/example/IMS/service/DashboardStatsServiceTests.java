@@ -0,0 +1,130 @@
+package com.example.IMS.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.doAnswer;
+
+import java.util.Map;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.context.annotation.Import;
+
+import com.example.IMS.dto.DashboardStatsDto;
+import com.example.IMS.model.Item;
+import com.example.IMS.model.ItemType;
+import com.example.IMS.repository.ILoanRepository;
+
+@DataJpaTest(properties = {
+		"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+		"spring.jpa.properties.hibernate.generate_statistics=true" })
+@Import(DashboardStatsService.class)
+class DashboardStatsServiceTests {
+
+	private static final int ITEMS_PER_TYPE = 30;
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private DashboardStatsService dashboardStatsService;
+
+	@SpyBean
+	private ILoanRepository loanRepository;
+
+	private Statistics statistics;
+
+	@BeforeEach
+	void setUp() {
+		ItemType tools = new ItemType();
+		tools.setTypeName("Tools");
+		entityManager.persist(tools);
+		ItemType books = new ItemType();
+		books.setTypeName("Books");
+		entityManager.persist(books);
+
+		// Quantities 0..29 per type, so ten of each type are below the low stock threshold
+		for (int i = 0; i < ITEMS_PER_TYPE; i++) {
+			persistItem("Tool " + i, i, tools);
+			persistItem("Book " + i, i, books);
+		}
+		persistItem("Loose item", 100, null);
+		entityManager.flush();
+		entityManager.clear();
+
+		statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+	}
+
+	@Test
+	void itemTotalsAreComputedByTheDatabase() {
+		dashboardStatsService.reconcile();
+		DashboardStatsDto stats = dashboardStatsService.getStats();
+
+		int quantityPerType = ITEMS_PER_TYPE * (ITEMS_PER_TYPE - 1) / 2;
+		assertEquals(2 * ITEMS_PER_TYPE + 1, stats.getTotalItems());
+		assertEquals(2 * quantityPerType + 100, stats.getInventoryRemaining());
+		assertEquals(2 * DashboardStatsService.LOW_STOCK_THRESHOLD, stats.getLowStockCount());
+		assertEquals(Map.of("Tools", (long) ITEMS_PER_TYPE, "Books", (long) ITEMS_PER_TYPE, "Unknown", 1L),
+				stats.getItemsByType());
+		// Aggregates only: no item is ever loaded, however many there are
+		assertEquals(0, statistics.getEntityLoadCount());
+	}
+
+	@Test
+	void itemWritesAreAppliedAsDeltas() {
+		dashboardStatsService.reconcile();
+		long before = statistics.getPrepareStatementCount();
+
+		// A tool restocked from 3 to 40 and moved to books, then a new loose item with 2 in stock
+		dashboardStatsService.itemChanged(3, "Tools", 40, "Books");
+		dashboardStatsService.itemChanged(null, null, 2, null);
+		DashboardStatsDto stats = dashboardStatsService.getStats();
+
+		int quantityPerType = ITEMS_PER_TYPE * (ITEMS_PER_TYPE - 1) / 2;
+		assertEquals(2 * ITEMS_PER_TYPE + 2, stats.getTotalItems());
+		assertEquals(2 * quantityPerType + 100 + 37 + 2, stats.getInventoryRemaining());
+		assertEquals(2 * DashboardStatsService.LOW_STOCK_THRESHOLD, stats.getLowStockCount());
+		assertEquals(Map.of("Tools", ITEMS_PER_TYPE - 1L, "Books", ITEMS_PER_TYPE + 1L, "Unknown", 2L),
+				stats.getItemsByType());
+		assertEquals(before, statistics.getPrepareStatementCount());
+	}
+
+	@Test
+	void deltasAppliedWhileReconcilingAreKept() {
+		dashboardStatsService.reconcile();
+		DashboardStatsDto before = dashboardStatsService.getStats();
+
+		// An item added and a loan issued after the item aggregates were read; there are no loans in the table
+		doAnswer(invocation -> {
+			dashboardStatsService.itemChanged(null, null, 50, "Tools");
+			dashboardStatsService.loanIssued();
+			return 0L;
+		}).when(loanRepository).countActiveLoans();
+		dashboardStatsService.reconcile();
+		DashboardStatsDto stats = dashboardStatsService.getStats();
+
+		assertEquals(before.getTotalItems() + 1, stats.getTotalItems());
+		assertEquals(before.getInventoryRemaining() + 50, stats.getInventoryRemaining());
+		assertEquals(ITEMS_PER_TYPE + 1L, stats.getItemsByType().get("Tools"));
+		assertEquals(before.getItemsBorrowed() + 1, stats.getItemsBorrowed());
+	}
+
+	private void persistItem(String name, int quantity, ItemType type) {
+		Item item = new Item();
+		item.setName(name);
+		item.setQuantity(quantity);
+		item.setItemType(type);
+		entityManager.persist(item);
+	}
+}
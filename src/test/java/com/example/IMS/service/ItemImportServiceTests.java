@@ -0,0 +1,140 @@
+package com.example.IMS.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.StringReader;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.validation.beanvalidation.LocalValidatorFactoryBean;
+
+import com.example.IMS.convertor.ItemConvertor;
+import com.example.IMS.dto.ItemImportResult;
+import com.example.IMS.model.Item;
+import com.example.IMS.model.ItemType;
+import com.example.IMS.model.Vendor;
+import com.example.IMS.repository.IItemRepository;
+import com.example.IMS.repository.IItemTypeRepository;
+import com.example.IMS.repository.IVendorRepository;
+
+// The import commits its own transactions, so these tests run outside one and clean up after
+@DataJpaTest(properties = {
+		"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+		"items.import.threads=2",
+		"items.import.chunk-size=3" })
+@Import({ ItemImportService.class, ItemConvertor.class, ReferenceDataCache.class, DashboardStatsService.class,
+		CachingReportService.class, ReportService.class, ReportSummaryService.class, SearchIndexService.class,
+		LocalValidatorFactoryBean.class })
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ItemImportServiceTests {
+
+	private static final String HEADER = "itemName,itemType,vendorName,itemQuantity,itemPrice,fineRate,invoiceNumber\n";
+
+	@Autowired
+	private ItemImportService itemImportService;
+
+	@Autowired
+	private ReferenceDataCache referenceDataCache;
+
+	@Autowired
+	private SearchIndexService searchIndexService;
+
+	@Autowired
+	private IItemRepository itemRepository;
+
+	@Autowired
+	private IItemTypeRepository itemTypeRepository;
+
+	@Autowired
+	private IVendorRepository vendorRepository;
+
+	@BeforeEach
+	void setUp() {
+		Vendor vendor = new Vendor();
+		vendor.setName("Acme Supplies");
+		vendorRepository.save(vendor);
+		ItemType tools = new ItemType();
+		tools.setTypeName("Tools");
+		itemTypeRepository.save(tools);
+		referenceDataCache.load();
+	}
+
+	@AfterEach
+	void tearDown() {
+		itemRepository.deleteAll();
+		itemTypeRepository.deleteAll();
+		vendorRepository.deleteAll();
+	}
+
+	@Test
+	void validRowsAreImportedAndEachBadRowIsReported() throws Exception {
+		String csv = HEADER
+				+ "Claw Hammer,Tools,Acme Supplies,5,10,1,100\n"
+				+ "\"Drill, Cordless\",Tools,Acme Supplies,2,80,2,101\n"
+				+ "Hammer Drill,Tools,Acme Supplies,3,60,2,102\n"
+				+ "claw  hammer,tools,acme supplies,1,10,1,103\n"
+				+ "Wrench,Tools,Globex,4,15,1,104\n"
+				+ "\n"
+				+ "Saw,Tools,Acme Supplies,many,15,1,105\n"
+				+ "Tape Measure,Tools,Acme Supplies,7,5,1,106\n";
+
+		ItemImportResult result = itemImportService.importCsv(new StringReader(csv));
+
+		assertEquals(7, result.getRowsRead());
+		assertEquals(3, result.getImported());
+		assertEquals(4, result.getFailed());
+		// Rows are numbered by line, counting the header
+		assertEquals(List.of(3L, 5L, 6L, 8L),
+				result.getErrors().stream().map(ItemImportResult.RowError::getRow).collect(Collectors.toList()));
+		assertEquals("Duplicate of an earlier row with the same name and type.", result.getErrors().get(1).getMessage());
+		assertEquals("Vendor with name: Globex does not exist.", result.getErrors().get(2).getMessage());
+		assertEquals("itemQuantity is not a number: many", result.getErrors().get(3).getMessage());
+
+		assertEquals(3, itemRepository.count());
+		Item hammer = itemRepository.findAll().stream().filter(item -> item.getName().equals("Claw Hammer"))
+				.findFirst().get();
+		assertEquals(5, hammer.getQuantity());
+		assertEquals(hammer.getId(), searchIndexService.search(SearchIndexService.Kind.ITEM, "claw", 10).get(0).getId());
+	}
+
+	@Test
+	void namesAlreadyStoredAreReportedAsDuplicates() throws Exception {
+		itemImportService.importCsv(new StringReader(HEADER + "Claw Hammer,Tools,Acme Supplies,5,10,1,100\n"));
+
+		String json = "[{\"itemName\":\"Claw Hammer\",\"itemType\":\"Tools\",\"vendorName\":\"Acme Supplies\","
+				+ "\"itemQuantity\":1,\"itemPrice\":10,\"fineRate\":1,\"invoiceNumber\":200},"
+				+ "{\"itemName\":\"Office Chair\",\"itemType\":\"Tools\",\"vendorName\":\"Acme Supplies\","
+				+ "\"itemQuantity\":0,\"itemPrice\":90,\"fineRate\":3,\"invoiceNumber\":201},"
+				+ "{\"itemName\":\"Desk Lamp\",\"itemType\":\"Tools\",\"vendorName\":\"Acme Supplies\","
+				+ "\"itemQuantity\":2,\"itemPrice\":20,\"fineRate\":1,\"invoiceNumber\":202}]";
+		ItemImportResult result = itemImportService.importJson(new StringReader(json));
+
+		assertEquals(1, result.getImported());
+		assertEquals(ItemService.DUPLICATE_ITEM_MESSAGE, result.getErrors().get(0).getMessage());
+		assertEquals(2, result.getErrors().get(1).getRow());
+		assertTrue(result.getErrors().get(1).getMessage().startsWith("Item quantity must be greater than 0."));
+		assertEquals(2, itemRepository.count());
+	}
+
+	@Test
+	void filesWithoutTheColumnsAreRejected() {
+		assertThrows(IllegalArgumentException.class,
+				() -> itemImportService.importCsv(new StringReader("itemName,itemType\nHammer,Tools\n")));
+		assertThrows(IllegalArgumentException.class, () -> itemImportService.importJson(new StringReader("{}")));
+	}
+
+	@Test
+	void quotedCsvFieldsKeepCommasAndQuotes() {
+		assertEquals(List.of("a", "b, c", "say \"hi\"", ""), ItemImportService.parseCsvLine("a,\"b, c\",\"say \"\"hi\"\"\","));
+	}
+}
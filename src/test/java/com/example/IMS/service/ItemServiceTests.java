@@ -0,0 +1,71 @@
+package com.example.IMS.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.IMS.repository.IItemRepository;
+
+// The backfill commits each chunk itself, so these tests run outside a test transaction
+@DataJpaTest(properties = {
+		"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+		"spring.jpa.properties.hibernate.generate_statistics=true" })
+@Import({ ItemService.class, StockEngine.class, DashboardStatsService.class, CachingReportService.class,
+		ReportService.class, ReportSummaryService.class, SearchIndexService.class })
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ItemServiceTests {
+
+	@Autowired
+	private ItemService itemService;
+
+	@Autowired
+	private IItemRepository itemRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@AfterEach
+	void tearDown() {
+		jdbcTemplate.update("delete from inventory_item");
+		jdbcTemplate.update("delete from item_type");
+	}
+
+	@Test
+	void backfillLeavesDuplicatesAloneAndDoesNotWalkForThemAgain() {
+		// Items as the previous release stored them: no normalized name, and nothing kept duplicates out
+		jdbcTemplate.update("insert into item_type (item_type_id, type_name) values (1, 'Tools')");
+		jdbcTemplate.update("insert into inventory_item (item_id, item_name, item_quantity, item_price, item_fine_rate, "
+				+ "item_invoice_number, item_type_fk) values (1, 'Hammer', 5, 1, 1, 1, 1), (2, ' hammer', 5, 1, 1, 1, 1), "
+				+ "(3, 'Saw', 5, 1, 1, 1, 1)");
+
+		itemService.backfillNormalizedNames();
+
+		assertEquals("hammer", itemRepository.findById(1L).get().getNormalizedName());
+		assertEquals("saw", itemRepository.findById(3L).get().getNormalizedName());
+		// The duplicate keeps its name as entered and is only reported
+		assertEquals(" hammer", itemRepository.findById(2L).get().getName());
+		assertNull(itemRepository.findById(2L).get().getNormalizedName());
+
+		// The next start finds only the duplicate left: one read for it and one check, no walk or saves
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+		itemService.backfillNormalizedNames();
+		assertEquals(2, statistics.getPrepareStatementCount());
+		assertEquals(0, statistics.getEntityUpdateCount());
+	}
+}
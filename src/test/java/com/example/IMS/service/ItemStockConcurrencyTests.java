@@ -0,0 +1,186 @@
+package com.example.IMS.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongPredicate;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.IMS.Utilities.Helper;
+import com.example.IMS.dto.LoanBatchRequest;
+import com.example.IMS.model.Borrower;
+import com.example.IMS.model.Item;
+import com.example.IMS.model.Loan;
+import com.example.IMS.repository.IBorrowerRepository;
+import com.example.IMS.repository.IItemRepository;
+import com.example.IMS.repository.ILoanRepository;
+
+// Each stock change commits on its own, so these tests run outside a test transaction
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+@Import({ ItemService.class, ItemIssuanceService.class, LoanBatchService.class, StockEngine.class, DashboardStatsService.class,
+		DashboardTrackingService.class, DashboardEventBroadcaster.class, CachingReportService.class, ReportService.class,
+		ReportSummaryService.class, SearchIndexService.class })
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ItemStockConcurrencyTests {
+
+	private static final int STOCK = 100;
+	private static final int THREADS = 300;
+
+	@Autowired
+	private ItemService itemService;
+
+	@Autowired
+	private IItemRepository itemRepository;
+
+	@Autowired
+	private DashboardStatsService dashboardStatsService;
+
+	@Autowired
+	private ItemIssuanceService itemIssuanceService;
+
+	@Autowired
+	private LoanBatchService loanBatchService;
+
+	@Autowired
+	private IBorrowerRepository borrowerRepository;
+
+	@Autowired
+	private ILoanRepository loanRepository;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	private long itemId;
+
+	@BeforeEach
+	void setUp() {
+		Item item = new Item();
+		item.setName("Projector");
+		item.setQuantity(STOCK);
+		item.setPrice(500);
+		item.setFineRate(5);
+		item.setInvoiceNumber(1);
+		itemId = itemRepository.save(item).getId();
+		dashboardStatsService.reconcile();
+	}
+
+	@AfterEach
+	void tearDown() {
+		loanRepository.deleteAll();
+		borrowerRepository.deleteAll();
+		itemRepository.deleteAll();
+	}
+
+	@Test
+	void concurrentIssuesNeverOversell() throws Exception {
+		assertEquals(STOCK, runConcurrently(itemService::takeOne));
+
+		assertEquals(0, itemRepository.findQuantity(itemId).get());
+		assertEquals(0, dashboardStatsService.getStats().getInventoryRemaining());
+		assertEquals(1, dashboardStatsService.getStats().getLowStockCount());
+	}
+
+	@Test
+	void concurrentReturnsAreAllCounted() throws Exception {
+		assertEquals(THREADS, runConcurrently(itemService::returnOne));
+
+		assertEquals(STOCK + THREADS, itemRepository.findQuantity(itemId).get());
+		assertEquals(STOCK + THREADS, dashboardStatsService.getStats().getInventoryRemaining());
+		assertEquals(0, dashboardStatsService.getStats().getLowStockCount());
+	}
+
+	@Test
+	void concurrentReturnsOfOneLoanCloseItOnce() throws Exception {
+		long loanId = issueLoan();
+
+		// Each thread works on a copy of the loan it looked up itself, as concurrent form submits do
+		TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+		assertEquals(1, runConcurrently(id -> transaction.execute(status ->
+				itemIssuanceService.returnItemIssued(loanRepository.findById(loanId).get()))));
+
+		assertTrue(loanRepository.findById(loanId).get().isReturned());
+	}
+
+	@Test
+	void concurrentBatchAndFormReturnsOfOneLoanCloseItOnce() throws Exception {
+		long loanId = issueLoan();
+		LoanBatchRequest request = new LoanBatchRequest();
+		request.setBorrowerId(loanRepository.findBorrowerIdByLoanId(loanId).get());
+		request.setItemIds(new ArrayList<>(List.of(itemId)));
+
+		// Half the threads return the loan in a batch, half through the return form
+		AtomicInteger batchReturns = new AtomicInteger();
+		AtomicInteger calls = new AtomicInteger();
+		TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+		assertEquals(1, runConcurrently(id -> {
+			if (calls.incrementAndGet() % 2 == 0) {
+				return transaction.execute(status ->
+						itemIssuanceService.returnItemIssued(loanRepository.findById(loanId).get()));
+			}
+			boolean returned = loanBatchService.returnItems(request).getSucceeded() == 1;
+			if (returned) {
+				batchReturns.incrementAndGet();
+			}
+			return returned;
+		}));
+
+		assertTrue(loanRepository.findById(loanId).get().isReturned());
+		// Only a batch return puts its unit back here; the form puts it back in the controller
+		assertEquals(STOCK + batchReturns.get(), itemRepository.findQuantity(itemId).get());
+	}
+
+	// One open loan of the item, saved without taking stock for it
+	private long issueLoan() {
+		Borrower borrower = new Borrower();
+		borrower.setFirstName("Ada");
+		borrower.setLastName("Byron");
+		borrower.setEmail("ada@example.com");
+		borrowerRepository.save(borrower);
+		Loan loan = new Loan();
+		loan.setItem(itemRepository.findById(itemId).get());
+		loan.setBorrower(borrower);
+		loan.setIssueDate(Helper.now());
+		loan.setLoanDuration(7);
+		return loanRepository.save(loan).getId();
+	}
+
+	// Releases every thread at once against the same item; returns how many changes succeeded
+	private int runConcurrently(LongPredicate change) throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<Boolean>> results = new ArrayList<>();
+		for (int i = 0; i < THREADS; i++) {
+			results.add(executor.submit(() -> {
+				start.await();
+				return change.test(itemId);
+			}));
+		}
+		start.countDown();
+		int succeeded = 0;
+		for (Future<Boolean> result : results) {
+			if (result.get(1, TimeUnit.MINUTES)) {
+				succeeded++;
+			}
+		}
+		executor.shutdown();
+		return succeeded;
+	}
+}
@@ -0,0 +1,201 @@
+package com.example.IMS.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.IMS.dto.LoanBatchRequest;
+import com.example.IMS.dto.LoanBatchResult;
+import com.example.IMS.model.Borrower;
+import com.example.IMS.model.Item;
+import com.example.IMS.model.Loan;
+import com.example.IMS.repository.IBorrowerRepository;
+import com.example.IMS.repository.IItemRepository;
+import com.example.IMS.repository.ILoanRepository;
+
+// Each batch commits its own transaction, so these tests run outside a test transaction
+@DataJpaTest(properties = {
+		"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+		"spring.jpa.properties.hibernate.generate_statistics=true" })
+@Import({ LoanBatchService.class, StockEngine.class, DashboardStatsService.class, DashboardTrackingService.class,
+		DashboardEventBroadcaster.class, CachingReportService.class, ReportService.class, ReportSummaryService.class })
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class LoanBatchServiceTests {
+
+	@Autowired
+	private LoanBatchService loanBatchService;
+
+	@Autowired
+	private IItemRepository itemRepository;
+
+	@Autowired
+	private IBorrowerRepository borrowerRepository;
+
+	@Autowired
+	private ILoanRepository loanRepository;
+
+	@Autowired
+	private DashboardStatsService dashboardStatsService;
+
+	@Autowired
+	private ReportSummaryService reportSummaryService;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	private long borrowerId;
+	private long projectorId;
+	private long laptopId;
+
+	@BeforeEach
+	void setUp() {
+		Borrower borrower = new Borrower();
+		borrower.setFirstName("Ada");
+		borrower.setLastName("Byron");
+		borrower.setEmail("ada@example.com");
+		borrowerId = borrowerRepository.save(borrower).getId();
+		projectorId = saveItem("Projector", 2);
+		laptopId = saveItem("Laptop", 100);
+		dashboardStatsService.reconcile();
+		reportSummaryService.rebuild();
+	}
+
+	@AfterEach
+	void tearDown() {
+		loanRepository.deleteAll();
+		itemRepository.deleteAll();
+		borrowerRepository.deleteAll();
+		reportSummaryService.rebuild();
+	}
+
+	@Test
+	void issueAppliesTheLinesThatCanBe() {
+		LoanBatchResult result = loanBatchService.issue(request(false, projectorId, projectorId, laptopId, projectorId, -1L));
+
+		assertTrue(result.isApplied());
+		assertEquals(3, result.getSucceeded());
+		assertEquals(2, result.getFailed());
+		assertNull(result.getLines().get(2).getError());
+		assertEquals("Item is out of stock.", result.getLines().get(3).getError());
+		assertEquals("Item id does not exist", result.getLines().get(4).getError());
+
+		assertEquals(0, quantity(projectorId));
+		assertEquals(99, quantity(laptopId));
+		assertEquals(3, loanRepository.countActiveLoans());
+		assertEquals(3, reportSummaryService.getActiveLoanCount());
+		assertEquals(3, dashboardStatsService.getStats().getItemsBorrowed());
+		assertEquals(99, dashboardStatsService.getStats().getInventoryRemaining());
+		assertTrue(reportSummaryService.check().isEmpty());
+	}
+
+	@Test
+	void allOrNothingIssueAppliesNothingWhenALineFails() {
+		LoanBatchResult result = loanBatchService.issue(request(true, laptopId, projectorId, projectorId, projectorId));
+
+		assertFalse(result.isApplied());
+		assertEquals(0, result.getSucceeded());
+		assertEquals(3, result.getFailed());
+		assertEquals(0, result.getLines().get(0).getLoanId());
+
+		assertEquals(2, quantity(projectorId));
+		assertEquals(100, quantity(laptopId));
+		assertEquals(0, loanRepository.count());
+		assertEquals(0, dashboardStatsService.getStats().getItemsBorrowed());
+		assertEquals(102, dashboardStatsService.getStats().getInventoryRemaining());
+	}
+
+	@Test
+	void returnClosesTheOldestOpenLoans() {
+		loanBatchService.issue(request(false, laptopId, laptopId, projectorId));
+
+		LoanBatchResult result = loanBatchService.returnItems(request(false, laptopId, projectorId, projectorId));
+
+		assertEquals(2, result.getSucceeded());
+		assertEquals("The borrower has no open loan of this item.", result.getLines().get(2).getError());
+		assertEquals(99, quantity(laptopId));
+		assertEquals(2, quantity(projectorId));
+		assertEquals(1, loanRepository.countActiveLoans());
+		assertEquals(1, dashboardStatsService.getStats().getItemsBorrowed());
+		assertEquals(2, dashboardStatsService.getStats().getItemsReturned());
+		assertTrue(reportSummaryService.check().isEmpty());
+	}
+
+	@Test
+	void loansAreInsertedInBatches() {
+		Long[] itemIds = Collections.nCopies(50, laptopId).toArray(new Long[0]);
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+
+		LoanBatchResult result = loanBatchService.issue(request(false, itemIds));
+
+		assertEquals(50, result.getSucceeded());
+		assertEquals(50, statistics.getEntityStatistics(Loan.class.getName()).getInsertCount());
+		// One statement per loan would take 50 on its own
+		assertTrue(statistics.getPrepareStatementCount() < 20, "statements: " + statistics.getPrepareStatementCount());
+		assertEquals(50, quantity(laptopId));
+	}
+
+	@Test
+	void concurrentBatchesListingItemsInOppositeOrdersAllApply() throws Exception {
+		long tabletId = saveItem("Tablet", 100);
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		List<Future<LoanBatchResult>> results = new ArrayList<>();
+		for (int i = 0; i < 40; i++) {
+			LoanBatchRequest request = i % 2 == 0 ? request(false, laptopId, tabletId) : request(false, tabletId, laptopId);
+			results.add(executor.submit(() -> loanBatchService.issue(request)));
+		}
+		for (Future<LoanBatchResult> result : results) {
+			assertEquals(2, result.get(1, TimeUnit.MINUTES).getSucceeded());
+		}
+		executor.shutdown();
+
+		assertEquals(60, quantity(laptopId));
+		assertEquals(60, quantity(tabletId));
+	}
+
+	private LoanBatchRequest request(boolean allOrNothing, Long... itemIds) {
+		LoanBatchRequest request = new LoanBatchRequest();
+		request.setBorrowerId(borrowerId);
+		request.setItemIds(new ArrayList<>(Arrays.asList(itemIds)));
+		request.setLoanDuration(7);
+		request.setAllOrNothing(allOrNothing);
+		return request;
+	}
+
+	private long saveItem(String name, int quantity) {
+		Item item = new Item();
+		item.setName(name);
+		item.setQuantity(quantity);
+		item.setPrice(500);
+		item.setFineRate(5);
+		item.setInvoiceNumber(1);
+		return itemRepository.save(item).getId();
+	}
+
+	private int quantity(long itemId) {
+		return itemRepository.findQuantity(itemId).get();
+	}
+}
@@ -0,0 +1,130 @@
+package com.example.IMS.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.IMS.model.Loan;
+import com.example.IMS.repository.ILoanRepository;
+
+// The migration commits each batch itself, so these tests run outside a test transaction
+@DataJpaTest(properties = {
+		"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+		"loans.date-migration.batch-size=" + LoanDateMigrationTests.BATCH_SIZE,
+		"loans.date-migration.sweep-interval-ms=3600000" })
+@Import(LoanDateMigration.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class LoanDateMigrationTests {
+
+	static final int BATCH_SIZE = 7;
+
+	private static final int LOANS = 20;
+
+	@Autowired
+	private LoanDateMigration loanDateMigration;
+
+	@Autowired
+	private ILoanRepository loanRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	// Loans as the previous release wrote them: string dates only, and "" while not returned
+	@BeforeEach
+	void seed() {
+		List<Object[]> loans = new ArrayList<>();
+		for (int i = 1; i <= LOANS; i++) {
+			loans.add(new Object[] { i, String.format("2024/11/%02d 10:00:00", i), i % 2 == 0 ? "2024/12/01 09:30:00" : "" });
+		}
+		jdbcTemplate.batchUpdate("insert into loan (loan_id, issue_date, return_date, loan_duration, total_fine) "
+				+ "values (?, ?, ?, 7, 0)", loans);
+	}
+
+	@AfterEach
+	void tearDown() {
+		jdbcTemplate.update("delete from loan");
+	}
+
+	@Test
+	void legacyDatesAreCopiedToTypedColumns() {
+		assertEquals(LOANS, loanDateMigration.migrate());
+
+		Map<String, Object> row = jdbcTemplate.queryForMap("select issued_at, due_at, returned_at from loan where loan_id = 2");
+		assertEquals(LocalDateTime.of(2024, 11, 2, 10, 0), ((Timestamp) row.get("issued_at")).toLocalDateTime());
+		assertEquals(LocalDateTime.of(2024, 11, 9, 10, 0), ((Timestamp) row.get("due_at")).toLocalDateTime());
+		assertEquals(LocalDateTime.of(2024, 12, 1, 9, 30), ((Timestamp) row.get("returned_at")).toLocalDateTime());
+		assertNull(jdbcTemplate.queryForObject("select returned_at from loan where loan_id = 1", Timestamp.class));
+
+		// Nothing is left for the next sweep
+		assertEquals(0, loanDateMigration.migrate());
+	}
+
+	@Test
+	void reportsFilterAndGroupOnTheTypedColumns() {
+		loanDateMigration.migrate();
+
+		assertEquals(5, loanRepository.countIssuedBetween(LocalDateTime.of(2024, 11, 3, 0, 0), LocalDateTime.of(2024, 11, 8, 0, 0)));
+		List<Object[]> returnedByDay = loanRepository.countReturnedByDay();
+		assertEquals(1, returnedByDay.size());
+		assertEquals(LocalDate.of(2024, 12, 1), ((Date) returnedByDay.get(0)[0]).toLocalDate());
+		assertEquals(LOANS / 2, ((Number) returnedByDay.get(0)[1]).intValue());
+	}
+
+	@Test
+	void returnsWrittenByOlderInstancesArePickedUpByTheSweep() {
+		loanDateMigration.migrate();
+		jdbcTemplate.update("update loan set return_date = '2024/12/02 11:00:00' where loan_id = 3");
+
+		loanDateMigration.sweep();
+
+		assertEquals(LocalDateTime.of(2024, 12, 2, 11, 0),
+				jdbcTemplate.queryForObject("select returned_at from loan where loan_id = 3", Timestamp.class).toLocalDateTime());
+		// Dates the typed columns already hold are kept
+		assertEquals(LocalDateTime.of(2024, 11, 3, 10, 0),
+				jdbcTemplate.queryForObject("select issued_at from loan where loan_id = 3", Timestamp.class).toLocalDateTime());
+	}
+
+	@Test
+	void oldSampleDaysAreCopiedAndUnreadableDatesAreOnlyLookedAtOnce() {
+		loanDateMigration.migrate();
+		jdbcTemplate.update("insert into loan (loan_id, issue_date, return_date, loan_duration, total_fine) "
+				+ "values (101, '2024-10-20', '2024-11-10', 21, 0), (102, 'someday', '', 7, 0)");
+
+		assertEquals(1, loanDateMigration.migrate());
+		assertEquals(LocalDateTime.of(2024, 11, 10, 0, 0),
+				jdbcTemplate.queryForObject("select returned_at from loan where loan_id = 101", Timestamp.class).toLocalDateTime());
+		assertNull(jdbcTemplate.queryForObject("select issued_at from loan where loan_id = 102", Timestamp.class));
+		assertEquals(0, loanDateMigration.migrate());
+	}
+
+	@Test
+	void loansNotYetMigratedAreReadFromTheStrings() {
+		Loan open = loanRepository.findById(1L).get();
+		Loan returned = loanRepository.findById(2L).get();
+
+		assertEquals(LocalDateTime.of(2024, 11, 1, 10, 0), open.getIssueDate());
+		assertEquals(LocalDateTime.of(2024, 11, 8, 10, 0), open.getDueDate());
+		assertFalse(open.isReturned());
+		assertTrue(returned.isReturned());
+		assertEquals(LocalDateTime.of(2024, 12, 1, 9, 30), returned.getReturnDate());
+	}
+}
@@ -0,0 +1,102 @@
+package com.example.IMS.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import com.example.IMS.model.ItemType;
+import com.example.IMS.model.Vendor;
+import com.example.IMS.repository.IReferenceDataVersionRepository;
+
+@DataJpaTest(properties = {
+		"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+		"spring.jpa.properties.hibernate.generate_statistics=true" })
+@Import(ReferenceDataCache.class)
+class ReferenceDataCacheTests {
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private IReferenceDataVersionRepository versionRepository;
+
+	@Autowired
+	private ReferenceDataCache referenceDataCache;
+
+	private Vendor acme;
+
+	private Statistics statistics;
+
+	@BeforeEach
+	void setUp() {
+		acme = vendor("Acme  Supplies");
+		ItemType tools = new ItemType();
+		tools.setTypeName("Tools");
+		entityManager.persist(tools);
+		entityManager.flush();
+		referenceDataCache.load();
+
+		statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+	}
+
+	@Test
+	void lookupsAreServedFromMemory() {
+		assertEquals(acme.getId(), referenceDataCache.getVendorByName(" acme supplies").getId());
+		assertEquals(acme.getId(), referenceDataCache.getVendorById(acme.getId()).getId());
+		assertEquals("Tools", referenceDataCache.getItemTypeByName("TOOLS").getTypeName());
+		assertNull(referenceDataCache.getVendorByName("Globex"));
+		assertNull(referenceDataCache.getItemTypeByName(null));
+		assertEquals(0, statistics.getPrepareStatementCount());
+	}
+
+	@Test
+	void localWritesUpdateTheCacheInPlace() {
+		long version = referenceDataCache.getVersion();
+		Vendor globex = vendor("Globex");
+		referenceDataCache.vendorSaved(globex);
+		referenceDataCache.vendorDeleted(acme.getId());
+
+		assertEquals(version + 2, referenceDataCache.getVersion());
+		assertSame(globex, referenceDataCache.getVendorByName("globex"));
+		assertNull(referenceDataCache.getVendorByName("Acme Supplies"));
+		assertEquals(0, statistics.getEntityLoadCount());
+	}
+
+	@Test
+	void writesFromAnotherInstanceAreReloadedOnTheVersionCheck() {
+		referenceDataCache.checkVersion();
+		assertEquals(0, statistics.getEntityLoadCount());
+
+		// Another instance adds a vendor and bumps the shared version
+		Vendor initech = vendor("Initech");
+		versionRepository.bump();
+		entityManager.clear();
+		assertNull(referenceDataCache.getVendorByName("Initech"));
+
+		referenceDataCache.checkVersion();
+		assertEquals(initech.getId(), referenceDataCache.getVendorByName("initech").getId());
+	}
+
+	private Vendor vendor(String name) {
+		Vendor vendor = new Vendor();
+		vendor.setName(name);
+		entityManager.persist(vendor);
+		entityManager.flush();
+		return vendor;
+	}
+}
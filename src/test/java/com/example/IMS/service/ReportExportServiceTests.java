@@ -0,0 +1,43 @@
+package com.example.IMS.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.math.BigDecimal;
+
+import org.junit.jupiter.api.Test;
+
+class ReportExportServiceTests {
+
+	@Test
+	void textStartingLikeAFormulaIsPrefixedWithAQuote() {
+		assertEquals("'=1+1", ReportExportService.csvField("=1+1"));
+		assertEquals("'+1+1", ReportExportService.csvField("+1+1"));
+		assertEquals("'-1+1", ReportExportService.csvField("-1+1"));
+		assertEquals("'@SUM(A1)", ReportExportService.csvField("@SUM(A1)"));
+		assertEquals("'\t=1+1", ReportExportService.csvField("\t=1+1"));
+		// The carriage return also makes the field quoted
+		assertEquals("\"'\r=1+1\"", ReportExportService.csvField("\r=1+1"));
+	}
+
+	@Test
+	void guardedTextIsStillQuotedWhenItHoldsASeparatorOrQuote() {
+		assertEquals("\"'=1,2\"", ReportExportService.csvField("=1,2"));
+		assertEquals("\"'=HYPERLINK(\"\"x\"\")\"", ReportExportService.csvField("=HYPERLINK(\"x\")"));
+	}
+
+	@Test
+	void numbersAreWrittenAsIs() {
+		assertEquals("-5", ReportExportService.csvField(-5));
+		assertEquals("-2.5", ReportExportService.csvField(-2.5));
+		assertEquals("-10", ReportExportService.csvField(-10L));
+		assertEquals("-0.75", ReportExportService.csvField(new BigDecimal("-0.75")));
+		assertEquals("12", ReportExportService.csvField(12));
+	}
+
+	@Test
+	void plainTextAndMissingValues() {
+		assertEquals("Claw Hammer", ReportExportService.csvField("Claw Hammer"));
+		assertEquals("", ReportExportService.csvField(""));
+		assertEquals("", ReportExportService.csvField(null));
+	}
+}
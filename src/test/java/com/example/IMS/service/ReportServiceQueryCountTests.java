@@ -0,0 +1,143 @@
+package com.example.IMS.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import com.example.IMS.Utilities.ChunkedRows;
+import com.example.IMS.dto.IssuedItemRow;
+import com.example.IMS.model.Borrower;
+import com.example.IMS.model.Item;
+import com.example.IMS.model.Loan;
+
+@DataJpaTest(properties = {
+		"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+		"spring.jpa.properties.hibernate.generate_statistics=true",
+		"rendering.chunk-size=" + ReportServiceQueryCountTests.CHUNK_SIZE })
+@Import({ ReportService.class, CachingReportService.class, ReportSummaryService.class })
+class ReportServiceQueryCountTests {
+
+	private static final int LOANS = 20;
+
+	static final int CHUNK_SIZE = 8;
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private ReportService reportService;
+
+	@Autowired
+	private CachingReportService cachingReportService;
+
+	private Statistics statistics;
+
+	@BeforeEach
+	void setUp() {
+		// Every loan gets its own item and borrower, so lazy loading would cost two statements per row
+		for (int i = 0; i < LOANS; i++) {
+			Item item = new Item();
+			item.setName("Item " + i);
+			item.setQuantity(5);
+			entityManager.persist(item);
+
+			Borrower borrower = new Borrower();
+			borrower.setFirstName("First" + i);
+			borrower.setLastName("Last" + i);
+			borrower.setEmail("borrower" + i + "@example.com");
+			entityManager.persist(borrower);
+
+			Loan loan = new Loan();
+			loan.setItem(item);
+			loan.setBorrower(borrower);
+			loan.setIssueDate(LocalDateTime.of(2024, 11, 1, 10, 0));
+			loan.setReturnDate(i % 2 == 0 ? null : LocalDateTime.of(2024, 11, 5, 10, 0));
+			loan.setLoanDuration(7);
+			entityManager.persist(loan);
+		}
+		entityManager.flush();
+		entityManager.clear();
+
+		statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+	}
+
+	@Test
+	void currentlyBorrowedItemsUseOneStatementPerChunk() {
+		List<Long> loanIds = new ArrayList<>();
+		reportService.getCurrentlyBorrowedItems().forEach(row -> loanIds.add(row.getLoanId()));
+		assertEquals(LOANS / 2, loanIds.size());
+		assertAscending(loanIds);
+		assertEquals(2, statistics.getPrepareStatementCount());
+	}
+
+	@Test
+	void issuedItemsReportUsesOneStatementPerChunk() {
+		// Every loan has the same issue date, so the chunks can only continue by loan id
+		List<Long> loanIds = new ArrayList<>();
+		reportService.getIssuedItemsReport(LocalDate.of(2024, 11, 1), LocalDate.of(2024, 11, 30))
+				.forEach(row -> loanIds.add(row.getLoanId()));
+		assertEquals(LOANS, loanIds.size());
+		assertAscending(loanIds);
+		assertEquals(3, statistics.getPrepareStatementCount());
+	}
+
+	@Test
+	void emptyCheckReadsTheFirstChunkOnlyOnce() {
+		ChunkedRows<IssuedItemRow> rows = reportService.getIssuedItemsReport(LocalDate.of(2024, 11, 1),
+				LocalDate.of(2024, 11, 30));
+		assertFalse(rows.isEmpty());
+		int count = 0;
+		for (IssuedItemRow row : rows) {
+			count++;
+		}
+		assertEquals(LOANS, count);
+		assertEquals(3, statistics.getPrepareStatementCount());
+		assertTrue(reportService.getIssuedItemsReport(LocalDate.of(2024, 12, 1), LocalDate.of(2024, 12, 31)).isEmpty());
+	}
+
+	@Test
+	void cachedReportsReadOnlyTheChunksAfterTheFirst() {
+		LocalDate from = LocalDate.of(2024, 11, 1);
+		LocalDate to = LocalDate.of(2024, 11, 30);
+		cachingReportService.getIssuedItemsReport(from, to).forEach(row -> { });
+		statistics.clear();
+
+		List<Long> loanIds = new ArrayList<>();
+		cachingReportService.getIssuedItemsReport(from, to).forEach(row -> loanIds.add(row.getLoanId()));
+		assertEquals(LOANS, loanIds.size());
+		assertAscending(loanIds);
+		assertEquals(2, statistics.getPrepareStatementCount());
+
+		// Borrower saves, fine payments among them, drop the cached chunk
+		cachingReportService.invalidate(CachingReportService.Region.FINES);
+		statistics.clear();
+		cachingReportService.getIssuedItemsReport(from, to).forEach(row -> { });
+		assertEquals(3, statistics.getPrepareStatementCount());
+	}
+
+	private static void assertAscending(List<Long> ids) {
+		for (int i = 1; i < ids.size(); i++) {
+			assertTrue(ids.get(i - 1) < ids.get(i), "rows out of order or repeated at " + i);
+		}
+	}
+}
@@ -0,0 +1,232 @@
+package com.example.IMS.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.IMS.Utilities.StockJournal;
+import com.example.IMS.model.Item;
+import com.example.IMS.repository.IItemRepository;
+import com.example.IMS.repository.IStockJournalCheckpointRepository;
+
+// The journal is applied in transactions of its own, so these tests run outside a test transaction
+@DataJpaTest(properties = {
+		"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+		"stock.engine.enabled=true",
+		"stock.engine.flush-interval-ms=3600000" })
+@Import({ StockEngine.class, ItemService.class, DashboardStatsService.class, CachingReportService.class,
+		ReportService.class, ReportSummaryService.class, SearchIndexService.class })
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class StockEngineTests {
+
+	private static final int STOCK = 100;
+	private static final int THREADS = 300;
+
+	private static Path journalDir;
+
+	@Autowired
+	private StockEngine stockEngine;
+
+	@Autowired
+	private ItemService itemService;
+
+	@Autowired
+	private IItemRepository itemRepository;
+
+	@Autowired
+	private IStockJournalCheckpointRepository checkpointRepository;
+
+	@Autowired
+	private CachingReportService cachingReportService;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	private Item item;
+
+	@DynamicPropertySource
+	static void journalDir(DynamicPropertyRegistry registry) throws IOException {
+		journalDir = Files.createTempDirectory("stock-journal");
+		registry.add("stock.engine.journal-dir", journalDir::toString);
+	}
+
+	@BeforeEach
+	void setUp() {
+		item = new Item();
+		item.setName("Projector");
+		item.setQuantity(STOCK);
+		item.setPrice(500);
+		item.setFineRate(5);
+		item.setInvoiceNumber(1);
+		itemRepository.save(item);
+	}
+
+	@AfterEach
+	void tearDown() {
+		stockEngine.flush();
+		itemRepository.deleteAll();
+	}
+
+	@Test
+	void concurrentIssuesAreGrantedInMemoryAndAppliedInOneBatch() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<Boolean>> results = new ArrayList<>();
+		for (int i = 0; i < THREADS; i++) {
+			results.add(executor.submit(() -> {
+				start.await();
+				return itemService.takeOne(item.getId());
+			}));
+		}
+		start.countDown();
+		int issued = 0;
+		for (Future<Boolean> result : results) {
+			if (result.get(1, TimeUnit.MINUTES)) {
+				issued++;
+			}
+		}
+		executor.shutdown();
+
+		assertEquals(STOCK, issued);
+		// Nothing reaches the item table until the journal is applied
+		assertEquals(STOCK, quantity());
+		stockEngine.flush();
+		assertEquals(0, quantity());
+		assertTrue(StockJournal.segments(journalDir).size() <= 1);
+	}
+
+	@Test
+	void editsSetTheStockOnlyAfterPendingChangesAreApplied() {
+		for (int i = 0; i < 5; i++) {
+			itemService.takeOne(item.getId());
+		}
+		Item edited = itemRepository.findById(item.getId()).get();
+		edited.setQuantity(edited.getQuantity() + 50 - 5);
+		itemService.saveItem(edited);
+		assertEquals(STOCK + 50 - 5, quantity());
+
+		itemService.takeOne(item.getId());
+		stockEngine.flush();
+		assertEquals(STOCK + 50 - 6, quantity());
+	}
+
+	@Test
+	void changesMadeInTheDatabaseWhileSuspendedAreSeenByTheReload() throws Exception {
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		CountDownLatch entered = new CountDownLatch(1);
+		AtomicReference<Future<Integer>> fallback = new AtomicReference<>();
+		stockEngine.runSuspended(item.getId(), () -> {
+			fallback.set(executor.submit(() -> stockEngine.change(item.getId(), -1, () -> {
+				entered.countDown();
+				// Still running when the suspended write is done
+				sleep(200);
+				return itemRepository.takeOne(item.getId()) == 1 ? quantity() : StockEngine.OUT_OF_STOCK;
+			})));
+			try {
+				assertTrue(entered.await(1, TimeUnit.MINUTES));
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+		assertEquals(STOCK - 1, (int) fallback.get().get(1, TimeUnit.MINUTES));
+		executor.shutdown();
+
+		int issued = 0;
+		while (itemService.takeOne(item.getId())) {
+			issued++;
+		}
+		assertEquals(STOCK - 1, issued);
+		stockEngine.flush();
+		assertEquals(0, quantity());
+	}
+
+	@Test
+	void changesThatWouldTakeTheStoredStockBelowZeroAreRefused() {
+		for (int i = 0; i < 5; i++) {
+			itemService.takeOne(item.getId());
+		}
+		// Stock set behind the engine's back
+		jdbcTemplate.update("update inventory_item set item_quantity = 2 where item_id = ?", item.getId());
+
+		stockEngine.flush();
+		assertEquals(2, quantity());
+
+		// The slot was loaded again from the database
+		int issued = 0;
+		while (itemService.takeOne(item.getId())) {
+			issued++;
+		}
+		assertEquals(2, issued);
+		stockEngine.flush();
+		assertEquals(0, quantity());
+	}
+
+	@Test
+	void journalLeftByACrashIsAppliedExactlyOnce() throws Exception {
+		for (int i = 0; i < 5; i++) {
+			itemService.takeOne(item.getId());
+		}
+		itemService.returnOne(item.getId());
+
+		// The journal as a crashed process would leave it, recovered by a newly started engine
+		Path crashed = Files.createTempDirectory("stock-journal");
+		for (Path segment : StockJournal.segments(journalDir)) {
+			Files.copy(segment, crashed.resolve(segment.getFileName()));
+		}
+		StockEngine restarted = new StockEngine();
+		ReflectionTestUtils.setField(restarted, "itemRepository", itemRepository);
+		ReflectionTestUtils.setField(restarted, "checkpointRepository", checkpointRepository);
+		ReflectionTestUtils.setField(restarted, "cachingReportService", cachingReportService);
+		ReflectionTestUtils.setField(restarted, "jdbcTemplate", jdbcTemplate);
+		ReflectionTestUtils.setField(restarted, "transactionManager", transactionManager);
+		ReflectionTestUtils.setField(restarted, "journalDir", crashed.toString());
+		restarted.start();
+
+		assertEquals(STOCK - 4, quantity());
+		assertTrue(StockJournal.segments(crashed).isEmpty());
+
+		// The same records in the running engine's journal are behind the checkpoint now
+		stockEngine.flush();
+		assertEquals(STOCK - 4, quantity());
+	}
+
+	private static void sleep(long millis) {
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private int quantity() {
+		return itemRepository.findQuantity(item.getId()).get();
+	}
+}
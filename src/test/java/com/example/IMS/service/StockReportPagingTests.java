@@ -0,0 +1,137 @@
+package com.example.IMS.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import com.example.IMS.dto.StockPageRequest;
+import com.example.IMS.dto.StockReportRow;
+import com.example.IMS.model.Item;
+import com.example.IMS.model.ItemType;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+@Import({ ReportService.class, ReportSummaryService.class })
+class StockReportPagingTests {
+
+	private static final String[] NAMES = { "Hammer", "Rake", "Saw", "Drill", "Ladder" };
+	private static final int ITEMS = 15;
+	private static final int PAGE_SIZE = 4;
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	@Autowired
+	private ReportService reportService;
+
+	private final List<StockReportRow> items = new ArrayList<>();
+
+	@BeforeEach
+	void setUp() {
+		ItemType tools = new ItemType();
+		tools.setTypeName("Tools");
+		entityManager.persist(tools);
+		ItemType garden = new ItemType();
+		garden.setTypeName("Garden");
+		entityManager.persist(garden);
+
+		// Every name, quantity and price appears several times, and a third of the items have no type
+		ItemType[] types = { tools, garden, null };
+		for (int i = 0; i < ITEMS; i++) {
+			Item item = new Item();
+			item.setName(NAMES[i / 3]);
+			item.setItemType(types[i % 3]);
+			item.setQuantity(i % 4);
+			item.setPrice(i % 3 * 1.5);
+			entityManager.persist(item);
+			items.add(new StockReportRow(item.getId(), item.getName(),
+					types[i % 3] != null ? types[i % 3].getTypeName() : null, item.getQuantity(), item.getPrice()));
+		}
+		entityManager.flush();
+		entityManager.clear();
+	}
+
+	@ParameterizedTest
+	@CsvSource({ "id,false", "id,true", "name,false", "name,true", "typeName,false", "typeName,true",
+			"quantity,false", "quantity,true", "price,false", "price,true" })
+	void pagesForwardsAndBackwardsWithoutGapsOrRepeats(String sortColumn, boolean descending) {
+		Function<StockReportRow, Object> sortKey = sortKey(sortColumn);
+		Comparator<StockReportRow> order = Comparator.comparing(row -> (Comparable) sortKey.apply(row));
+		order = order.thenComparingLong(StockReportRow::getId);
+		List<Long> expected = items.stream().sorted(descending ? order.reversed() : order).map(StockReportRow::getId)
+				.collect(Collectors.toList());
+
+		// Forwards: the first page by offset, every later one seeking past the last row shown
+		List<List<StockReportRow>> pages = new ArrayList<>();
+		List<StockReportRow> page = reportService.getItemStockPage(request(sortColumn, descending)).getData();
+		while (!page.isEmpty()) {
+			pages.add(page);
+			StockPageRequest next = request(sortColumn, descending);
+			StockReportRow last = page.get(page.size() - 1);
+			next.setAfterValue(sortValue(sortKey, last));
+			next.setAfterId(last.getId());
+			page = reportService.getItemStockPage(next).getData();
+		}
+		assertEquals(expected, pages.stream().flatMap(List::stream).map(StockReportRow::getId)
+				.collect(Collectors.toList()));
+		assertEquals((ITEMS + PAGE_SIZE - 1) / PAGE_SIZE, pages.size());
+
+		// Backwards from the last page: each previous page is the one shown before it going forwards
+		for (int i = pages.size() - 1; i > 0; i--) {
+			StockPageRequest previous = request(sortColumn, descending);
+			StockReportRow first = pages.get(i).get(0);
+			previous.setBeforeValue(sortValue(sortKey, first));
+			previous.setBeforeId(first.getId());
+			assertEquals(ids(pages.get(i - 1)), ids(reportService.getItemStockPage(previous).getData()));
+		}
+		StockPageRequest beforeFirst = request(sortColumn, descending);
+		beforeFirst.setBeforeValue(sortValue(sortKey, pages.get(0).get(0)));
+		beforeFirst.setBeforeId(pages.get(0).get(0).getId());
+		assertTrue(reportService.getItemStockPage(beforeFirst).getData().isEmpty());
+	}
+
+	private static StockPageRequest request(String sortColumn, boolean descending) {
+		StockPageRequest request = new StockPageRequest();
+		request.setSortColumn(sortColumn);
+		request.setDescending(descending);
+		request.setLength(PAGE_SIZE);
+		return request;
+	}
+
+	// What the report sorts on; an item without a type sorts as an empty type name
+	private static Function<StockReportRow, Object> sortKey(String sortColumn) {
+		switch (sortColumn) {
+			case "name":
+				return StockReportRow::getName;
+			case "typeName":
+				return row -> row.getTypeName() != null ? row.getTypeName() : "";
+			case "quantity":
+				return StockReportRow::getQuantity;
+			case "price":
+				return StockReportRow::getPrice;
+			default:
+				return StockReportRow::getId;
+		}
+	}
+
+	// Sent back the way the stock report page sends it
+	private static String sortValue(Function<StockReportRow, Object> sortKey, StockReportRow row) {
+		return String.valueOf(sortKey.apply(row));
+	}
+
+	private static List<Long> ids(List<StockReportRow> rows) {
+		return rows.stream().map(StockReportRow::getId).collect(Collectors.toList());
+	}
+}